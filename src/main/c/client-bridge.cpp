@@ -5,6 +5,8 @@
 
 #define _USE_MATH_DEFINES
 #include <math.h>
+#include <string.h>
+#include <algorithm>
 
 #include "com_harbinger_jbw_Broodwar.h"
 #include "com_harbinger_jbw_Unit.h"
@@ -39,9 +41,47 @@ std::map<BWTA::Region*, int> regionMap;
 jint *intBuf;
 const int bufferSize = 5000000;
 
+// direct buffer shared with Java for the per-frame unit data
+jint *unitBuf;
+int unitBufSize;
+const int unitBufHeaderSize = 1;
+const int unitAttributeCount = 73;
+
+// unit data sent during the previous delta frames, indexed by unit ID
+const int maxUnitCount = 10000;
+jint *lastUnitData;
+int *lastUnitUpdate;
+int unitUpdateCount = 1;
+
+// direct buffer shared with Java for the events of a frame
+jint *eventBuf;
+char *eventText;
+int eventTextCapacity;
+const int eventBufHeaderSize = 2;
+const int eventAttributeCount = 4;
+const int maxEventCount = 1024;
+void resetEvents(void);
+bool putEvent(int type, int p1, int p2, const std::string* text);
+
+// layout of the unit command buffer shared with Java
+const int commandBufHeaderSize = 1;
+const int commandAttributeCount = 6;
+const int maxCommandCount = 2048;
+
+// layout of the display list buffers shared with Java
+const int shapeBufHeaderSize = 2;
+const int shapeAttributeCount = 8;
+enum ShapeType { SHAPE_TEXT, SHAPE_LINE, SHAPE_RECTANGLE, SHAPE_ELLIPSE };
+const int shapeScreen = 1;
+const int shapeFill = 2;
+
+// direct buffer shared with Java for the key state, one bit per key code
+jlong *keyStateBuf;
+const int keyCount = 256;
+const int keyStateWordCount = keyCount / 64;
+
 void reconnect(void);
 void loadTypeData(void);
-bool keyState[256];
 
 // conversion ratios
 double TO_DEGREES = 180.0 / M_PI;
@@ -50,7 +90,7 @@ double fixedScale = 100.0;
 /**
 * Entry point from Java
 */
-JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnect(JNIEnv* env, jobject jObj, jobject classRef)
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnectBuffers(JNIEnv* env, jobject jObj, jobject classRef, jobject unitBuffer, jobject eventBuffer, jobject keyStateBuffer)
 {
 	// get the java callback functions
 	jEnv = env;
@@ -63,12 +103,38 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnect(JNIEnv* env
 	jmethodID gameStartCallback = env->GetMethodID(jc, "gameStarted", "()V");
 	jmethodID gameUpdateCallback = env->GetMethodID(jc, "gameUpdate", "()V");
 	jmethodID gameEndCallback = env->GetMethodID(jc, "gameEnded", "()V");
-	jmethodID eventCallback = env->GetMethodID(jc, "eventOccurred", "(IIILjava/lang/String;)V");
-	jmethodID keyPressCallback = env->GetMethodID(jc, "keyPressed", "(I)V");
+	jmethodID eventsCallback = env->GetMethodID(jc, "eventsOccurred", "()V");
 
 	// allocate room for return data structure
 	intBuf = new jint[bufferSize];
 
+	// register the direct buffer used for the unit data
+	unitBuf = (jint*) env->GetDirectBufferAddress(unitBuffer);
+	unitBufSize = (unitBuf != NULL) ? static_cast<int>(env->GetDirectBufferCapacity(unitBuffer) / sizeof(jint)) : 0;
+	if (unitBuf == NULL) {
+		javaPrint("Unit buffer could not be registered");
+	}
+	lastUnitData = new jint[maxUnitCount * unitAttributeCount];
+	lastUnitUpdate = new int[maxUnitCount];
+	std::fill(lastUnitUpdate, lastUnitUpdate + maxUnitCount, 0);
+
+	// register the direct buffer used for the events
+	eventBuf = (jint*) env->GetDirectBufferAddress(eventBuffer);
+	if (eventBuf != NULL) {
+		const int eventBufIntCount = eventBufHeaderSize + maxEventCount * eventAttributeCount;
+		eventText = (char*) (eventBuf + eventBufIntCount);
+		eventTextCapacity = static_cast<int>(env->GetDirectBufferCapacity(eventBuffer)) - eventBufIntCount * sizeof(jint);
+		resetEvents();
+	} else {
+		javaPrint("Event buffer could not be registered");
+	}
+
+	// register the direct buffer used for the key state
+	keyStateBuf = (jlong*) env->GetDirectBufferAddress(keyStateBuffer);
+	if (keyStateBuf == NULL) {
+		javaPrint("Key state buffer could not be registered");
+	}
+
 	// connet to BWAPI
 	BWAPI::BWAPI_init();
 	javaPrint("Connecting...");
@@ -93,6 +159,16 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnect(JNIEnv* env
 
 		// in game
 		while (Broodwar->isInGame()) {
+			// snapshot the key state, Java determines which keys were pressed
+			if (keyStateBuf != NULL) {
+				std::fill(keyStateBuf, keyStateBuf + keyStateWordCount, 0);
+				for (int keyCode = 0; keyCode < keyCount; ++keyCode) {
+					if (Broodwar->getKeyState(keyCode)) {
+						keyStateBuf[keyCode >> 6] |= (jlong) 1 << (keyCode & 63);
+					}
+				}
+			}
+
 			// update client data before event callbacks
 			env->CallObjectMethod(classref, gameUpdateCallback);
 
@@ -100,95 +176,62 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnect(JNIEnv* env
 			// BWAPI will always issue a MatchStart event as the very first event of a match
 			// BWAPI will always issue a MatchFrame event as the very last event of a frame (second-last at MatchEnd)
 			// BWAPI will always issue a MatchEnd event as the very last event of a match
+			// all events of the frame are encoded into the event buffer and delivered in one upcall,
+			// unless there are more events than fit in the buffer
+			resetEvents();
 			for (std::list<Event>::iterator e = Broodwar->getEvents().begin(); e != Broodwar->getEvents().end(); ++e) {
+				int p1 = 0;
+				int p2 = 0;
+				std::string text;
+				bool hasText = false;
 				switch (e->getType()) {
-				case EventType::MatchStart:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), 0, 0, JNI_NULL);
-					break;
 				case EventType::MatchEnd:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->isWinner() ? 1 : 0, 0, JNI_NULL);
-					break;
-				case EventType::MatchFrame:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), 0, 0, JNI_NULL);
-					break;
-				case EventType::MenuFrame:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), 0, 0, JNI_NULL);
-					break;
-				case EventType::SendText: {
-					jstring string = env->NewStringUTF(e->getText().c_str());
-					env->CallObjectMethod(classref, eventCallback, e->getType(), 0, 0, string);
-					env->DeleteLocalRef(string);
-					}
+					p1 = e->isWinner() ? 1 : 0;
 					break;
-				case EventType::ReceiveText: {
-					jstring string = env->NewStringUTF(e->getText().c_str());
-					env->CallObjectMethod(classref, eventCallback, e->getType(), 0, 0, string);
-					env->DeleteLocalRef(string);
-					}
+				case EventType::SendText:
+				case EventType::ReceiveText:
+				case EventType::SaveGame:
+					text = e->getText();
+					hasText = true;
 					break;
 				case EventType::PlayerLeft:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getPlayer()->getID(), 0, JNI_NULL);
+				case EventType::PlayerDropped:
+					p1 = e->getPlayer()->getID();
 					break;
 				case EventType::NukeDetect:
 					if (e->getPosition() != Positions::Unknown) {
-						env->CallObjectMethod(classref, eventCallback, e->getType(), e->getPosition().x(), e->getPosition().y(), JNI_NULL);
+						p1 = e->getPosition().x();
+						p2 = e->getPosition().y();
 					} else {
-						env->CallObjectMethod(classref, eventCallback, e->getType(), -1, -1, JNI_NULL);
+						p1 = -1;
+						p2 = -1;
 					}
 					break;
 				case EventType::UnitDiscover:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
 				case EventType::UnitEvade:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
 				case EventType::UnitShow:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
 				case EventType::UnitHide:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
 				case EventType::UnitCreate:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
 				case EventType::UnitDestroy:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
 				case EventType::UnitMorph:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
 				case EventType::UnitRenegade:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
-				case EventType::SaveGame: {
-					jstring string = env->NewStringUTF(e->getText().c_str());
-					env->CallObjectMethod(classref, eventCallback, e->getType(), 0, 0, string);
-					env->DeleteLocalRef(string);
-					}
-					break;
 				case EventType::UnitComplete:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getUnit()->getID(), 0, JNI_NULL);
-					break;
-				case EventType::PlayerDropped:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), e->getPlayer()->getID(), 0, JNI_NULL);
+					p1 = e->getUnit()->getID();
 					break;
-				case EventType::None:
-					env->CallObjectMethod(classref, eventCallback, e->getType(), 0, 0, JNI_NULL);
+				default:
 					break;
 				}
-			}
 
-			// check for key presses
-			for (int keyCode = 0; keyCode <= 0xff; ++keyCode) {	
-				if (Broodwar->getKeyState(keyCode)) {	
-					if (!keyState[keyCode]) {
-						env->CallObjectMethod(classref, keyPressCallback, keyCode);
-					}
-					keyState[keyCode] = true;
-				} else {
-					keyState[keyCode] = false;
+				if (!putEvent(e->getType(), p1, p2, hasText ? &text : NULL)) {
+					// the buffer is full, deliver the events so far and start a new batch
+					env->CallObjectMethod(classref, eventsCallback);
+					resetEvents();
+					putEvent(e->getType(), p1, p2, hasText ? &text : NULL);
 				}
 			}
+			if (eventBuf != NULL && eventBuf[0] > 0) {
+				env->CallObjectMethod(classref, eventsCallback);
+			}
 
 			// wait for the next frame
 			BWAPI::BWAPIClient.update();
@@ -513,6 +556,15 @@ JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getRequiredUnits(JNI
 	return result;
 }
 
+/**
+* Returns the revision of the BWAPI library that provides the type data; used as the key of the
+* type data cache.
+*/
+JNIEXPORT jint JNICALL Java_com_harbinger_jbw_Broodwar_getRevision(JNIEnv* env, jobject jObj)
+{
+	return BWAPI::BWAPI_getRevision();
+}
+
 JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getRaceTypes(JNIEnv* env, jobject jObj)
 {
 	int index = 0;
@@ -752,10 +804,213 @@ JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getOrderTypes(JNIEnv
 	return result;
 }
 
+/**
+* Removes all events from the event buffer.
+*/
+void resetEvents(void)
+{
+	if (eventBuf != NULL) {
+		eventBuf[0] = 0;
+		eventBuf[1] = 0;
+	}
+}
+
+/**
+* Appends an event to the event buffer. Each event takes up a fixed number of integer values: the
+* type, two parameters and the length of its text (-1 if there is none). The text is appended to
+* the text of the previous events.
+*
+* Returns false if the event does not fit in the buffer, unless the buffer is empty, in which case
+* the text is truncated to fit.
+*/
+bool putEvent(int type, int p1, int p2, const std::string* text)
+{
+	if (eventBuf == NULL) {
+		return true;
+	}
+
+	const int count = eventBuf[0];
+	const int textSize = eventBuf[1];
+	int textLength = (text != NULL) ? static_cast<int>(text->size()) : 0;
+	if (count == maxEventCount) {
+		return false;
+	}
+	if (textSize + textLength > eventTextCapacity) {
+		if (count > 0) {
+			return false;
+		}
+		textLength = eventTextCapacity;
+	}
+
+	int index = eventBufHeaderSize + count * eventAttributeCount;
+	eventBuf[index++] = type;
+	eventBuf[index++] = p1;
+	eventBuf[index++] = p2;
+	eventBuf[index++] = (text != NULL) ? textLength : -1;
+	if (textLength > 0) {
+		memcpy(eventText + textSize, text->data(), textLength);
+	}
+	eventBuf[0] = count + 1;
+	eventBuf[1] = textSize + textLength;
+	return true;
+}
+
+/**
+* Writes the data of a single unit into the buffer starting at the index.
+*
+* Each unit takes up a fixed number of integer values. Currently: 73
+*
+* Returns the index following the last value written.
+*/
+int putUnitData(jint* buf, int index, Unit* unit)
+{
+	buf[index++] = unit->getID();
+	buf[index++] = unit->getReplayID();
+	buf[index++] = unit->getPlayer()->getID();
+	buf[index++] = unit->getType().getID();
+	buf[index++] = unit->getPosition().x();
+	buf[index++] = unit->getPosition().y();
+	buf[index++] = unit->getTilePosition().x();
+	buf[index++] = unit->getTilePosition().y();
+	buf[index++] = static_cast<int>(TO_DEGREES * unit->getAngle());
+	buf[index++] = static_cast<int>(fixedScale * unit->getVelocityX());
+	buf[index++] = static_cast<int>(fixedScale * unit->getVelocityY());
+	buf[index++] = unit->getHitPoints();
+	buf[index++] = unit->getShields();
+	buf[index++] = unit->getEnergy();
+	buf[index++] = unit->getResources();
+	buf[index++] = unit->getResourceGroup();
+	buf[index++] = unit->getLastCommandFrame();
+	buf[index++] = unit->getLastCommand().getType().getID();
+	// getLastAttackingPlayer doesn't work as documented, have to check for "None" player
+	buf[index++] = (unit->getLastAttackingPlayer() != NULL
+		&& unit->getLastAttackingPlayer()->getType() != PlayerTypes::None)
+		? unit->getLastAttackingPlayer()->getID() : -1;
+	buf[index++] = unit->getInitialType().getID();
+	buf[index++] = unit->getInitialPosition().x();
+	buf[index++] = unit->getInitialPosition().y();
+	buf[index++] = unit->getInitialTilePosition().x();
+	buf[index++] = unit->getInitialTilePosition().y();
+	buf[index++] = unit->getInitialHitPoints();
+	buf[index++] = unit->getInitialResources();
+	buf[index++] = unit->getKillCount();
+	buf[index++] = unit->getAcidSporeCount();
+	buf[index++] = unit->getInterceptorCount();
+	buf[index++] = unit->getScarabCount();
+	buf[index++] = unit->getSpiderMineCount();
+	buf[index++] = unit->getGroundWeaponCooldown();
+	buf[index++] = unit->getAirWeaponCooldown();
+	buf[index++] = unit->getSpellCooldown();
+	buf[index++] = unit->getDefenseMatrixPoints();
+	buf[index++] = unit->getDefenseMatrixTimer();
+	buf[index++] = unit->getEnsnareTimer();
+	buf[index++] = unit->getIrradiateTimer();
+	buf[index++] = unit->getLockdownTimer();
+	buf[index++] = unit->getMaelstromTimer();
+	buf[index++] = unit->getOrderTimer();
+	buf[index++] = unit->getPlagueTimer();
+	buf[index++] = unit->getRemoveTimer();
+	buf[index++] = unit->getStasisTimer();
+	buf[index++] = unit->getStimTimer();
+	buf[index++] = unit->getBuildType().getID();
+	buf[index++] = unit->getTrainingQueue().size();
+	buf[index++] = unit->getTech().getID();
+	buf[index++] = unit->getUpgrade().getID();
+	buf[index++] = unit->getRemainingBuildTime();
+	buf[index++] = unit->getRemainingTrainTime();
+	buf[index++] = unit->getRemainingResearchTime();
+	buf[index++] = unit->getRemainingUpgradeTime();
+	buf[index++] = (unit->getBuildUnit() != NULL) ? unit->getBuildUnit()->getID() : -1;
+	buf[index++] = (unit->getTarget() != NULL) ? unit->getTarget()->getID() : -1;
+	buf[index++] = unit->getTargetPosition().x();
+	buf[index++] = unit->getTargetPosition().y();
+	buf[index++] = unit->getOrder().getID();
+	buf[index++] = (unit->getOrderTarget() != NULL) ? unit->getOrderTarget()->getID() : -1;
+	buf[index++] = unit->getSecondaryOrder().getID();
+	buf[index++] = unit->getRallyPosition().x();
+	buf[index++] = unit->getRallyPosition().y();
+	buf[index++] = (unit->getRallyUnit() != NULL) ? unit->getRallyUnit()->getID() : -1;
+	buf[index++] = (unit->getAddon() != NULL) ? unit->getAddon()->getID() : -1;
+	buf[index++] = (unit->getNydusExit() != NULL) ? unit->getNydusExit()->getID() : -1;
+	buf[index++] = (unit->getTransport() != NULL) ? unit->getTransport()->getID() : -1;
+	buf[index++] = unit->getLoadedUnits().size(); // see separate getLoadedUnits method
+	buf[index++] = (unit->getCarrier() != NULL) ? unit->getCarrier()->getID() : -1;
+	// see getInterceptorCount and separate getInterceptors method
+	buf[index++] = (unit->getHatchery() != NULL) ? unit->getHatchery()->getID() : -1;
+	buf[index++] = unit->getLarva().size(); // see separate getLarva method
+	buf[index++] = (unit->getPowerUp() != NULL) ? unit->getPowerUp()->getID() : -1;
+	// status flags, packed into two ints with one bit per UnitFlag ordinal
+	const bool flagValues[] = {
+		unit->exists(),
+		unit->hasNuke(),
+		unit->isAccelerating(),
+		unit->isAttacking(),
+		unit->isAttackFrame(),
+		unit->isBeingConstructed(),
+		unit->isBeingGathered(),
+		unit->isBeingHealed(),
+		unit->isBlind(),
+		unit->isBraking(),
+		unit->isBurrowed(),
+		unit->isCarryingGas(),
+		unit->isCarryingMinerals(),
+		unit->isCloaked(),
+		unit->isCompleted(),
+		unit->isConstructing(),
+		unit->isDefenseMatrixed(),
+		unit->isDetected(),
+		unit->isEnsnared(),
+		unit->isFollowing(),
+		unit->isGatheringGas(),
+		unit->isGatheringMinerals(),
+		unit->isHallucination(),
+		unit->isHoldingPosition(),
+		unit->isIdle(),
+		unit->isInterruptible(),
+		unit->isInvincible(),
+		unit->isIrradiated(),
+		unit->isLifted(),
+		unit->isLoaded(),
+		unit->isLockedDown(),
+		unit->isMaelstrommed(),
+		unit->isMorphing(),
+		unit->isMoving(),
+		unit->isParasited(),
+		unit->isPatrolling(),
+		unit->isPlagued(),
+		unit->isRepairing(),
+		unit->isSelected(),
+		unit->isSieged(),
+		unit->isStartingAttack(),
+		unit->isStasised(),
+		unit->isStimmed(),
+		unit->isStuck(),
+		unit->isTraining(),
+		unit->isUnderAttack(),
+		unit->isUnderDarkSwarm(),
+		unit->isUnderDisruptionWeb(),
+		unit->isUnderStorm(),
+		unit->isUnpowered(),
+		unit->isUpgrading(),
+		unit->isVisible()
+	};
+	unsigned long long flags = 0;
+	for (int bit = 0; bit < (int)(sizeof(flagValues) / sizeof(flagValues[0])); bit++)
+	{
+		if (flagValues[bit])
+		{
+			flags |= 1ULL << bit;
+		}
+	}
+	buf[index++] = (jint)(flags & 0xFFFFFFFF);
+	buf[index++] = (jint)(flags >> 32);
+	return index;
+}
+
 /**
 * Returns the list of active units in the game.
 *
-* Each unit takes up a fixed number of integer values. Currently: 123
+* Each unit takes up a fixed number of integer values. Currently: 73
 */
 JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getAllUnitsData(JNIEnv* env, jobject jObj)
 {
@@ -763,133 +1018,7 @@ JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getAllUnitsData(JNIE
 
 	std::set<Unit*> units = Broodwar->getAllUnits();
 	for (std::set<Unit*>::iterator i = units.begin(); i != units.end(); ++i) {
-		intBuf[index++] = (*i)->getID();
-		intBuf[index++] = (*i)->getReplayID();
-		intBuf[index++] = (*i)->getPlayer()->getID();
-		intBuf[index++] = (*i)->getType().getID();
-		intBuf[index++] = (*i)->getPosition().x();
-		intBuf[index++] = (*i)->getPosition().y();
-		intBuf[index++] = (*i)->getTilePosition().x();
-		intBuf[index++] = (*i)->getTilePosition().y();
-		intBuf[index++] = static_cast<int>(TO_DEGREES * (*i)->getAngle());
-		intBuf[index++] = static_cast<int>(fixedScale * (*i)->getVelocityX());
-		intBuf[index++] = static_cast<int>(fixedScale * (*i)->getVelocityY());
-		intBuf[index++] = (*i)->getHitPoints();
-		intBuf[index++] = (*i)->getShields();
-		intBuf[index++] = (*i)->getEnergy();
-		intBuf[index++] = (*i)->getResources();
-		intBuf[index++] = (*i)->getResourceGroup();
-		intBuf[index++] = (*i)->getLastCommandFrame();
-		intBuf[index++] = (*i)->getLastCommand().getType().getID();
-		// getLastAttackingPlayer doesn't work as documented, have to check for "None" player
-		intBuf[index++] = ((*i)->getLastAttackingPlayer() != NULL
-			&& (*i)->getLastAttackingPlayer()->getType() != PlayerTypes::None)
-			? (*i)->getLastAttackingPlayer()->getID() : -1;
-		intBuf[index++] = (*i)->getInitialType().getID();
-		intBuf[index++] = (*i)->getInitialPosition().x();
-		intBuf[index++] = (*i)->getInitialPosition().y();
-		intBuf[index++] = (*i)->getInitialTilePosition().x();
-		intBuf[index++] = (*i)->getInitialTilePosition().y();
-		intBuf[index++] = (*i)->getInitialHitPoints();
-		intBuf[index++] = (*i)->getInitialResources();
-		intBuf[index++] = (*i)->getKillCount();
-		intBuf[index++] = (*i)->getAcidSporeCount();
-		intBuf[index++] = (*i)->getInterceptorCount();
-		intBuf[index++] = (*i)->getScarabCount();
-		intBuf[index++] = (*i)->getSpiderMineCount();
-		intBuf[index++] = (*i)->getGroundWeaponCooldown();
-		intBuf[index++] = (*i)->getAirWeaponCooldown();
-		intBuf[index++] = (*i)->getSpellCooldown();
-		intBuf[index++] = (*i)->getDefenseMatrixPoints();
-		intBuf[index++] = (*i)->getDefenseMatrixTimer();
-		intBuf[index++] = (*i)->getEnsnareTimer();
-		intBuf[index++] = (*i)->getIrradiateTimer();
-		intBuf[index++] = (*i)->getLockdownTimer();
-		intBuf[index++] = (*i)->getMaelstromTimer();
-		intBuf[index++] = (*i)->getOrderTimer();
-		intBuf[index++] = (*i)->getPlagueTimer();
-		intBuf[index++] = (*i)->getRemoveTimer();
-		intBuf[index++] = (*i)->getStasisTimer();
-		intBuf[index++] = (*i)->getStimTimer();
-		intBuf[index++] = (*i)->getBuildType().getID();
-		intBuf[index++] = (*i)->getTrainingQueue().size();
-		intBuf[index++] = (*i)->getTech().getID();
-		intBuf[index++] = (*i)->getUpgrade().getID();
-		intBuf[index++] = (*i)->getRemainingBuildTime();
-		intBuf[index++] = (*i)->getRemainingTrainTime();
-		intBuf[index++] = (*i)->getRemainingResearchTime();
-		intBuf[index++] = (*i)->getRemainingUpgradeTime();
-		intBuf[index++] = ((*i)->getBuildUnit() != NULL) ? (*i)->getBuildUnit()->getID() : -1;
-		intBuf[index++] = ((*i)->getTarget() != NULL) ? (*i)->getTarget()->getID() : -1;
-		intBuf[index++] = (*i)->getTargetPosition().x();
-		intBuf[index++] = (*i)->getTargetPosition().y();
-		intBuf[index++] = (*i)->getOrder().getID();
-		intBuf[index++] = ((*i)->getOrderTarget() != NULL) ? (*i)->getOrderTarget()->getID() : -1;
-		intBuf[index++] = (*i)->getSecondaryOrder().getID();
-		intBuf[index++] = (*i)->getRallyPosition().x();
-		intBuf[index++] = (*i)->getRallyPosition().y();
-		intBuf[index++] = ((*i)->getRallyUnit() != NULL) ? (*i)->getRallyUnit()->getID() : -1;
-		intBuf[index++] = ((*i)->getAddon() != NULL) ? (*i)->getAddon()->getID() : -1;
-		intBuf[index++] = ((*i)->getNydusExit() != NULL) ? (*i)->getNydusExit()->getID() : -1;
-		intBuf[index++] = ((*i)->getTransport() != NULL) ? (*i)->getTransport()->getID() : -1;
-		intBuf[index++] = (*i)->getLoadedUnits().size(); // see separate getLoadedUnits method
-		intBuf[index++] = ((*i)->getCarrier() != NULL) ? (*i)->getCarrier()->getID() : -1;
-		// see getInterceptorCount and separate getInterceptors method
-		intBuf[index++] = ((*i)->getHatchery() != NULL) ? (*i)->getHatchery()->getID() : -1;
-		intBuf[index++] = (*i)->getLarva().size(); // see separate getLarva method
-		intBuf[index++] = ((*i)->getPowerUp() != NULL) ? (*i)->getPowerUp()->getID() : -1;
-		intBuf[index++] = (*i)->exists() ? 1 : 0;
-		intBuf[index++] = (*i)->hasNuke() ? 1 : 0;
-		intBuf[index++] = (*i)->isAccelerating() ? 1 : 0;
-		intBuf[index++] = (*i)->isAttacking() ? 1 : 0;
-		intBuf[index++] = (*i)->isAttackFrame() ? 1 : 0;
-		intBuf[index++] = (*i)->isBeingConstructed() ? 1 : 0;
-		intBuf[index++] = (*i)->isBeingGathered() ? 1 : 0;
-		intBuf[index++] = (*i)->isBeingHealed() ? 1 : 0;
-		intBuf[index++] = (*i)->isBlind() ? 1 : 0;
-		intBuf[index++] = (*i)->isBraking() ? 1 : 0;
-		intBuf[index++] = (*i)->isBurrowed() ? 1 : 0;
-		intBuf[index++] = (*i)->isCarryingGas() ? 1 : 0;
-		intBuf[index++] = (*i)->isCarryingMinerals() ? 1 : 0;
-		intBuf[index++] = (*i)->isCloaked() ? 1 : 0;
-		intBuf[index++] = (*i)->isCompleted() ? 1 : 0;
-		intBuf[index++] = (*i)->isConstructing() ? 1 : 0;
-		intBuf[index++] = (*i)->isDefenseMatrixed() ? 1 : 0;
-		intBuf[index++] = (*i)->isDetected() ? 1 : 0;
-		intBuf[index++] = (*i)->isEnsnared() ? 1 : 0;
-		intBuf[index++] = (*i)->isFollowing() ? 1 : 0;
-		intBuf[index++] = (*i)->isGatheringGas() ? 1 : 0;
-		intBuf[index++] = (*i)->isGatheringMinerals() ? 1 : 0;
-		intBuf[index++] = (*i)->isHallucination() ? 1 : 0;
-		intBuf[index++] = (*i)->isHoldingPosition() ? 1 : 0;
-		intBuf[index++] = (*i)->isIdle() ? 1 : 0;
-		intBuf[index++] = (*i)->isInterruptible() ? 1 : 0;
-		intBuf[index++] = (*i)->isInvincible() ? 1 : 0;
-		intBuf[index++] = (*i)->isIrradiated() ? 1 : 0;
-		intBuf[index++] = (*i)->isLifted() ? 1 : 0;
-		intBuf[index++] = (*i)->isLoaded() ? 1 : 0;
-		intBuf[index++] = (*i)->isLockedDown() ? 1 : 0;
-		intBuf[index++] = (*i)->isMaelstrommed() ? 1 : 0;
-		intBuf[index++] = (*i)->isMorphing() ? 1 : 0;
-		intBuf[index++] = (*i)->isMoving() ? 1 : 0;
-		intBuf[index++] = (*i)->isParasited() ? 1 : 0;
-		intBuf[index++] = (*i)->isPatrolling() ? 1 : 0;
-		intBuf[index++] = (*i)->isPlagued() ? 1 : 0;
-		intBuf[index++] = (*i)->isRepairing() ? 1 : 0;
-		intBuf[index++] = (*i)->isSelected() ? 1 : 0;
-		intBuf[index++] = (*i)->isSieged() ? 1 : 0;
-		intBuf[index++] = (*i)->isStartingAttack() ? 1 : 0;
-		intBuf[index++] = (*i)->isStasised() ? 1 : 0;
-		intBuf[index++] = (*i)->isStimmed() ? 1 : 0;
-		intBuf[index++] = (*i)->isStuck() ? 1 : 0;
-		intBuf[index++] = (*i)->isTraining() ? 1 : 0;
-		intBuf[index++] = (*i)->isUnderAttack() ? 1 : 0;
-		intBuf[index++] = (*i)->isUnderDarkSwarm() ? 1 : 0;
-		intBuf[index++] = (*i)->isUnderDisruptionWeb() ? 1 : 0;
-		intBuf[index++] = (*i)->isUnderStorm() ? 1 : 0;
-		intBuf[index++] = (*i)->isUnpowered() ? 1 : 0;
-		intBuf[index++] = (*i)->isUpgrading() ? 1 : 0;
-		intBuf[index++] = (*i)->isVisible() ? 1 : 0;
+		index = putUnitData(intBuf, index, *i);
 	}
 
 	jintArray result = env->NewIntArray(index);
@@ -897,6 +1026,85 @@ JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getAllUnitsData(JNIE
 	return result;
 }
 
+/**
+* Writes the list of active units in the game into the unit buffer registered at connection.
+*
+* The first value is the number of units, followed by the data of each unit.
+*/
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_fillUnitBuffer(JNIEnv* env, jobject jObj)
+{
+	if (unitBuf == NULL) {
+		return;
+	}
+
+	int count = 0;
+	int index = unitBufHeaderSize;
+
+	std::set<Unit*> units = Broodwar->getAllUnits();
+	for (std::set<Unit*>::iterator i = units.begin(); i != units.end(); ++i) {
+		if (index + unitAttributeCount > unitBufSize) {
+			break;
+		}
+		index = putUnitData(unitBuf, index, *i);
+		count++;
+	}
+
+	unitBuf[0] = count;
+}
+
+/**
+* Writes the units that changed since the previous delta frame into the unit buffer registered at
+* connection, followed by the IDs of all active units.
+*
+* A unit is considered changed if it was not written during the previous delta frame or if any of
+* its values differ from the values that were last written. Resetting treats all units as changed.
+*/
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_fillUnitBufferDelta(JNIEnv* env, jobject jObj, jboolean reset)
+{
+	if (unitBuf == NULL) {
+		return;
+	}
+
+	// skipping an update count ensures no unit is considered unchanged
+	unitUpdateCount += reset ? 2 : 1;
+
+	int count = 0;
+	int index = unitBufHeaderSize;
+	int idCount = 0;
+
+	std::set<Unit*> units = Broodwar->getAllUnits();
+	const int limit = unitBufSize - 1 - static_cast<int>(units.size());
+	for (std::set<Unit*>::iterator i = units.begin(); i != units.end(); ++i) {
+		if (index + unitAttributeCount > limit) {
+			break;
+		}
+		const int id = (*i)->getID();
+		putUnitData(unitBuf, index, *i);
+		intBuf[idCount++] = id;
+
+		bool changed = true;
+		if (id >= 0 && id < maxUnitCount) {
+			jint *last = lastUnitData + (id * unitAttributeCount);
+			changed = lastUnitUpdate[id] != unitUpdateCount - 1
+				|| memcmp(last, unitBuf + index, unitAttributeCount * sizeof(jint)) != 0;
+			if (changed) {
+				memcpy(last, unitBuf + index, unitAttributeCount * sizeof(jint));
+			}
+			lastUnitUpdate[id] = unitUpdateCount;
+		}
+
+		// unchanged units are overwritten by the next unit
+		if (changed) {
+			index += unitAttributeCount;
+			count++;
+		}
+	}
+
+	unitBuf[0] = count;
+	unitBuf[index++] = idCount;
+	memcpy(unitBuf + index, intBuf, idCount * sizeof(jint));
+}
+
 JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getLoadedUnits(JNIEnv* env, jobject, jint unitID)
 {
 	int index = 0;
@@ -1093,6 +1301,134 @@ JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getUnitIdsOnTile(JNI
 // Unit Commands
 /*****************************************************************************************************************/
 
+/**
+* Issues a single queued unit command. The command type is a UnitCommandType ID and the meaning of
+* the target, position and extra values depends on it, matching the individual command functions.
+*/
+bool issueCommand(int type, int unitID, int targetID, int x, int y, int extra)
+{
+	Unit* unit = Broodwar->getUnit(unitID);
+	if (unit == NULL) {
+		return false;
+	}
+	Unit* target = (targetID >= 0) ? Broodwar->getUnit(targetID) : NULL;
+
+	switch (type) {
+	case UnitCommandTypes::Enum::Attack_Move:
+		return unit->attack(BWAPI::Position(x, y));
+	case UnitCommandTypes::Enum::Attack_Unit:
+		return target != NULL && unit->attack(target);
+	case UnitCommandTypes::Enum::Build:
+		return unitTypeMap.count(extra) > 0 && unit->build(BWAPI::TilePosition(x, y), unitTypeMap[extra]);
+	case UnitCommandTypes::Enum::Build_Addon:
+		return unitTypeMap.count(extra) > 0 && unit->buildAddon(unitTypeMap[extra]);
+	case UnitCommandTypes::Enum::Train:
+		return unitTypeMap.count(extra) > 0 && unit->train(unitTypeMap[extra]);
+	case UnitCommandTypes::Enum::Morph:
+		return unitTypeMap.count(extra) > 0 && unit->morph(unitTypeMap[extra]);
+	case UnitCommandTypes::Enum::Research:
+		return techTypeMap.count(extra) > 0 && unit->research(techTypeMap[extra]);
+	case UnitCommandTypes::Enum::Upgrade:
+		return upgradeTypeMap.count(extra) > 0 && unit->upgrade(upgradeTypeMap[extra]);
+	case UnitCommandTypes::Enum::Set_Rally_Position:
+		return unit->setRallyPoint(BWAPI::Position(x, y));
+	case UnitCommandTypes::Enum::Set_Rally_Unit:
+		return target != NULL && unit->setRallyPoint(target);
+	case UnitCommandTypes::Enum::Move:
+		return unit->move(BWAPI::Position(x, y));
+	case UnitCommandTypes::Enum::Patrol:
+		return unit->patrol(BWAPI::Position(x, y));
+	case UnitCommandTypes::Enum::Hold_Position:
+		return unit->holdPosition();
+	case UnitCommandTypes::Enum::Stop:
+		return unit->stop();
+	case UnitCommandTypes::Enum::Follow:
+		return target != NULL && unit->follow(target);
+	case UnitCommandTypes::Enum::Gather:
+		return target != NULL && unit->gather(target);
+	case UnitCommandTypes::Enum::Return_Cargo:
+		return unit->returnCargo();
+	case UnitCommandTypes::Enum::Repair:
+		return target != NULL && unit->repair(target);
+	case UnitCommandTypes::Enum::Burrow:
+		return unit->burrow();
+	case UnitCommandTypes::Enum::Unburrow:
+		return unit->unburrow();
+	case UnitCommandTypes::Enum::Cloak:
+		return unit->cloak();
+	case UnitCommandTypes::Enum::Decloak:
+		return unit->decloak();
+	case UnitCommandTypes::Enum::Siege:
+		return unit->siege();
+	case UnitCommandTypes::Enum::Unsiege:
+		return unit->unsiege();
+	case UnitCommandTypes::Enum::Lift:
+		return unit->lift();
+	case UnitCommandTypes::Enum::Land:
+		return unit->land(BWAPI::TilePosition(x, y));
+	case UnitCommandTypes::Enum::Load:
+		return target != NULL && unit->load(target);
+	case UnitCommandTypes::Enum::Unload:
+		return target != NULL && unit->unload(target);
+	case UnitCommandTypes::Enum::Unload_All:
+		return unit->unloadAll();
+	case UnitCommandTypes::Enum::Unload_All_Position:
+		return unit->unloadAll(BWAPI::Position(x, y));
+	case UnitCommandTypes::Enum::Right_Click_Position:
+		return unit->rightClick(BWAPI::Position(x, y));
+	case UnitCommandTypes::Enum::Right_Click_Unit:
+		return target != NULL && unit->rightClick(target);
+	case UnitCommandTypes::Enum::Halt_Construction:
+		return unit->haltConstruction();
+	case UnitCommandTypes::Enum::Cancel_Construction:
+		return unit->cancelConstruction();
+	case UnitCommandTypes::Enum::Cancel_Addon:
+		return unit->cancelAddon();
+	case UnitCommandTypes::Enum::Cancel_Train:
+		return unit->cancelTrain();
+	case UnitCommandTypes::Enum::Cancel_Train_Slot:
+		return unit->cancelTrain(extra);
+	case UnitCommandTypes::Enum::Cancel_Morph:
+		return unit->cancelMorph();
+	case UnitCommandTypes::Enum::Cancel_Research:
+		return unit->cancelResearch();
+	case UnitCommandTypes::Enum::Cancel_Upgrade:
+		return unit->cancelUpgrade();
+	case UnitCommandTypes::Enum::Use_Tech:
+		return techTypeMap.count(extra) > 0 && unit->useTech(techTypeMap[extra]);
+	case UnitCommandTypes::Enum::Use_Tech_Position:
+		return techTypeMap.count(extra) > 0 && unit->useTech(techTypeMap[extra], BWAPI::Position(x, y));
+	case UnitCommandTypes::Enum::Use_Tech_Unit:
+		return techTypeMap.count(extra) > 0 && target != NULL && unit->useTech(techTypeMap[extra], target);
+	case UnitCommandTypes::Enum::Place_COP:
+		return unit->placeCOP(BWAPI::TilePosition(x, y));
+	default:
+		return false;
+	}
+}
+
+/**
+* Issues all of the unit commands queued in the command buffer and writes the result of each
+* command after the space reserved for the commands.
+*
+* Layout: [command count][type, unit ID, target ID, x, y, extra]...[result]...
+*/
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_flushCommandBuffer(JNIEnv* env, jobject jObj, jobject commandBuffer)
+{
+	jint* buf = (jint*) env->GetDirectBufferAddress(commandBuffer);
+	if (buf == NULL) {
+		javaPrint("Command buffer could not be accessed");
+		return;
+	}
+
+	const int count = buf[0];
+	jint* results = buf + commandBufHeaderSize + maxCommandCount * commandAttributeCount;
+	for (int i = 0; i < count; i++) {
+		const jint* command = buf + commandBufHeaderSize + i * commandAttributeCount;
+		results[i] = issueCommand(command[0], command[1], command[2], command[3], command[4], command[5]) ? 1 : 0;
+	}
+}
+
 JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Unit_attack__III(JNIEnv* env, jobject jObj, jint unitID, jint x, jint y)
 {
 	Unit* unit = Broodwar->getUnit(unitID);
@@ -1511,14 +1847,35 @@ JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_placeCOP(JNIEnv* env,
 // Extended functions
 /*****************************************************************************************************************/
 
-JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_isVisible(JNIEnv* env, jobject jObj, jint tileX, jint tileY)
-{
-	return Broodwar->isVisible(tileX, tileY);
-}
-
-JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_isExplored(JNIEnv* env, jobject jObj, jint tileX, jint tileY)
-{
-	return Broodwar->isExplored(tileX, tileY);
+/**
+* Packs the visible and explored state of every build tile into two bit fields, one bit per tile
+* stored row by row
+*/
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_updateVisibility(JNIEnv* env, jobject jObj, jobject buffer)
+{
+	jlong* buf = (jlong*) env->GetDirectBufferAddress(buffer);
+	if (buf == NULL) {
+		javaPrint("Visibility buffer could not be accessed");
+		return;
+	}
+
+	const int width = Broodwar->mapWidth();
+	const int height = Broodwar->mapHeight();
+	const int wordCount = (width * height + 63) / 64;
+	jlong* visible = buf;
+	jlong* explored = buf + wordCount;
+	std::fill(buf, buf + 2 * wordCount, 0);
+	for (int ty = 0; ty < height; ty++) {
+		for (int tx = 0; tx < width; tx++) {
+			const int bit = tx + width * ty;
+			if (Broodwar->isVisible(tx, ty)) {
+				visible[bit >> 6] |= (jlong) 1 << (bit & 63);
+			}
+			if (Broodwar->isExplored(tx, ty)) {
+				explored[bit >> 6] |= (jlong) 1 << (bit & 63);
+			}
+		}
+	}
 }
 
 JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_isBuildable(JNIEnv *, jobject, jint tx, jint ty, jboolean includeBuildings){
@@ -1530,9 +1887,46 @@ JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_isBuildable(JNIEnv *,
 	return Broodwar->isBuildable(tx, ty, checkBuildings);
 }
 
-JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_hasCreep(JNIEnv* env, jobject jObj, jint tx, jint ty)
-{
-	return Broodwar->hasCreep(tx, ty);
+/**
+* Packs a single layer, either the creep or the power for one building size, into a bit field, one
+* bit per tile stored row by row. The bit field of the previous update of the layer is kept in the
+* buffer, and only the words that changed are listed after the layers
+*/
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_updateBuildTiles(JNIEnv* env, jobject jObj, jobject buffer, jint layer)
+{
+	jlong* buf = (jlong*) env->GetDirectBufferAddress(buffer);
+	if (buf == NULL) {
+		javaPrint("Build tile buffer could not be accessed");
+		return;
+	}
+
+	static const int powerSizes[][2] = { { 2, 2 }, { 3, 2 }, { 4, 3 } };
+	const int layerCount = 4;
+	const int width = Broodwar->mapWidth();
+	const int tileCount = width * Broodwar->mapHeight();
+	const int wordCount = (tileCount + 63) / 64;
+	jlong* changes = buf + layerCount * wordCount;
+	jlong* words = buf + layer * wordCount;
+	int changeCount = 0;
+	for (int w = 0; w < wordCount; w++) {
+		jlong word = 0;
+		const int end = std::min((w + 1) * 64, tileCount);
+		for (int bit = w * 64; bit < end; bit++) {
+			const int tx = bit % width;
+			const int ty = bit / width;
+			const bool set = (layer == 0)
+				? Broodwar->hasCreep(tx, ty)
+				: Broodwar->hasPower(tx, ty, powerSizes[layer - 1][0], powerSizes[layer - 1][1]);
+			if (set) {
+				word |= (jlong) 1 << (bit & 63);
+			}
+		}
+		if (word != words[w]) {
+			words[w] = word;
+			changes[1 + changeCount++] = layer * wordCount + w;
+		}
+	}
+	changes[0] = changeCount;
 }
 
 JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_hasPower__II(JNIEnv* env, jobject jObj, jint tileX, jint tileY)
@@ -1756,4 +2150,54 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_drawEllipseMap(JNIEnv* en
 JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_drawEllipseScreen(JNIEnv* env, jobject jObj, jint x, jint y, jint xRadius, jint yRadius, jint color, jboolean fill)
 {
 	Broodwar->drawEllipseScreen(x, y, xRadius, yRadius, BWAPI::Color(color), fill ? true : false);
+}
+
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_drawDisplayList(JNIEnv* env, jobject jObj, jobject shapeBuffer, jobject textBuffer)
+{
+	jint* buf = (jint*) env->GetDirectBufferAddress(shapeBuffer);
+	const char* text = (const char*) env->GetDirectBufferAddress(textBuffer);
+	if (buf == NULL || text == NULL) {
+		javaPrint("Display list could not be accessed");
+		return;
+	}
+
+	const int count = buf[0];
+	int textOffset = 0;
+	for (int i = 0; i < count; i++) {
+		const jint* shape = buf + shapeBufHeaderSize + i * shapeAttributeCount;
+		const bool screen = (shape[1] & shapeScreen) != 0;
+		const bool fill = (shape[1] & shapeFill) != 0;
+		const BWAPI::Color color(shape[6]);
+		switch (shape[0]) {
+		case SHAPE_TEXT:
+			if (screen) {
+				Broodwar->drawTextScreen(shape[2], shape[3], "%.*s", shape[7], text + textOffset);
+			} else {
+				Broodwar->drawTextMap(shape[2], shape[3], "%.*s", shape[7], text + textOffset);
+			}
+			textOffset += shape[7];
+			break;
+		case SHAPE_LINE:
+			if (screen) {
+				Broodwar->drawLineScreen(shape[2], shape[3], shape[4], shape[5], color);
+			} else {
+				Broodwar->drawLineMap(shape[2], shape[3], shape[4], shape[5], color);
+			}
+			break;
+		case SHAPE_RECTANGLE:
+			if (screen) {
+				Broodwar->drawBoxScreen(shape[2], shape[3], shape[4], shape[5], color, fill);
+			} else {
+				Broodwar->drawBoxMap(shape[2], shape[3], shape[4], shape[5], color, fill);
+			}
+			break;
+		case SHAPE_ELLIPSE:
+			if (screen) {
+				Broodwar->drawEllipseScreen(shape[2], shape[3], shape[4], shape[5], color, fill);
+			} else {
+				Broodwar->drawEllipseMap(shape[2], shape[3], shape[4], shape[5], color, fill);
+			}
+			break;
+		}
+	}
 }
\ No newline at end of file
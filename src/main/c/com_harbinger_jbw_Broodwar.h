@@ -7,6 +7,12 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef com_harbinger_jbw_Broodwar_MAX_MAP_SIZE
+#define com_harbinger_jbw_Broodwar_MAX_MAP_SIZE 256L
+#undef com_harbinger_jbw_Broodwar_LEGACY_UNIT_ATTRIBUTES
+#define com_harbinger_jbw_Broodwar_LEGACY_UNIT_ATTRIBUTES 123L
+#undef com_harbinger_jbw_Broodwar_MAX_PLAYERS
+#define com_harbinger_jbw_Broodwar_MAX_PLAYERS 12L
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    getFrame
@@ -87,6 +93,14 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_leaveGame
 JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_sendText
   (JNIEnv *, jobject, jstring);
 
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    updateVisibility
+ * Signature: (Ljava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_updateVisibility
+  (JNIEnv *, jobject, jobject);
+
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    isVisible
@@ -127,6 +141,14 @@ JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_canBuildHere__IIIZ
 JNIEXPORT jboolean JNICALL Java_com_harbinger_jbw_Broodwar_canBuildHere__IIIIZ
   (JNIEnv *, jobject, jint, jint, jint, jint, jboolean);
 
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    updateBuildTiles
+ * Signature: (Ljava/nio/ByteBuffer;I)V
+ */
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_updateBuildTiles
+  (JNIEnv *, jobject, jobject, jint);
+
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    hasCreep
@@ -287,6 +309,14 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_drawEllipseMap
 JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_drawEllipseScreen
   (JNIEnv *, jobject, jint, jint, jint, jint, jint, jboolean);
 
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    drawDisplayList
+ * Signature: (Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_drawDisplayList
+  (JNIEnv *, jobject, jobject, jobject);
+
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    nativeConnect
@@ -295,6 +325,14 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_drawEllipseScreen
 JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnect
   (JNIEnv *, jobject, jobject);
 
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    nativeConnectBuffers
+ * Signature: (Lcom/harbinger/jbw/Broodwar;Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnectBuffers
+  (JNIEnv *, jobject, jobject, jobject, jobject, jobject);
+
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    nativeEnableUserInput
@@ -303,6 +341,14 @@ JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeConnect
 JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_nativeEnableUserInput
   (JNIEnv *, jobject);
 
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    flushCommandBuffer
+ * Signature: (Ljava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_flushCommandBuffer
+  (JNIEnv *, jobject, jobject);
+
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    nativeEnablePerfectInformation
@@ -327,6 +373,22 @@ JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getPlayersData
 JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getAllUnitsData
   (JNIEnv *, jobject);
 
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    fillUnitBuffer
+ * Signature: ()V
+ */
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_fillUnitBuffer
+  (JNIEnv *, jobject);
+
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    fillUnitBufferDelta
+ * Signature: (Z)V
+ */
+JNIEXPORT void JNICALL Java_com_harbinger_jbw_Broodwar_fillUnitBufferDelta
+  (JNIEnv *, jobject, jboolean);
+
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    getPlayerUpdate
@@ -359,6 +421,14 @@ JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getResearchStatus
 JNIEXPORT jintArray JNICALL Java_com_harbinger_jbw_Broodwar_getUpgradeStatus
   (JNIEnv *, jobject, jint);
 
+/*
+ * Class:     com_harbinger_jbw_Broodwar
+ * Method:    getRevision
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL Java_com_harbinger_jbw_Broodwar_getRevision
+  (JNIEnv *, jobject);
+
 /*
  * Class:     com_harbinger_jbw_Broodwar
  * Method:    getRaceTypes
@@ -16,6 +16,10 @@ import com.harbinger.jbw.Type.Upgrade;
 import com.harbinger.jbw.Type.Weapon;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
@@ -23,25 +27,86 @@ import java.util.*;
 
 /**
  * Provides access to the Broodwar game.
+ *
+ * <p>
+ * The lists of units and players are read-only views that are maintained by this class rather than
+ * copies, so retrieving them does not allocate. The unit lists are refreshed at the start of every
+ * frame and the player lists at the start of every match; a list that must outlive the current
+ * frame should be copied.
  */
 public class Broodwar {
 
+    /**
+     * Indicates how the unit data is transferred from the bridge every frame.
+     */
+    public static enum UnitTransport {
+
+        /** The bridge copies the unit data into a newly allocated array every frame. */
+        ARRAY,
+
+        /** The bridge writes the unit data directly into a buffer that is shared with Java. */
+        DIRECT_BUFFER,
+
+        /**
+         * The bridge writes the unit data directly into a buffer that is shared with Java, but only
+         * for the units whose data changed since the previous frame.
+         */
+        DELTA;
+    }
+
     static {
         loadNativeDependencies();
     }
 
     private static final Charset CHARACTER_SET = getKoreanCharset();
+    private static final ErrorCode[] ERROR_CODES = ErrorCode.values();
+
+    private static final String TYPE_DATA_CACHE_DIRECTORY = "bwapi-data/";
+    private static final String TYPE_DATA_CACHE_FILE = "types.jbwt";
+
+    /** The maximum width and height of a map, in build tiles */
+    private static final int MAX_MAP_SIZE = 256;
+
+    /**
+     * The number of attributes of a unit written by {@link #getAllUnitsData()} of a legacy bridge,
+     * which transfers each {@link UnitFlag} as a separate attribute rather than as a bit field.
+     */
+    static final int LEGACY_UNIT_ATTRIBUTES = 123;
+
+    /** The maximum number of players in a match; matches the BWAPI player array size */
+    static final int MAX_PLAYERS = 12;
 
-    private final Map<Integer, Unit> units = new HashMap<>();
+    private final UnitRegistry units = new UnitRegistry();
+    private UnitTable unitTable = new UnitTable();
+    private final List<Unit> allUnits = new ArrayList<>();
     private final List<Unit> playerUnits = new ArrayList<>();
     private final List<Unit> alliedUnits = new ArrayList<>();
     private final List<Unit> enemyUnits = new ArrayList<>();
     private final List<Unit> neutralUnits = new ArrayList<>();
+    private final List<List<Unit>> unitsByPlayer = new ArrayList<>(MAX_PLAYERS);
+    private final List<List<Unit>> unitListsByPlayer = new ArrayList<>(MAX_PLAYERS);
+    private final List<Unit> changedUnits = new ArrayList<>();
+    private final List<Unit> removedUnits = new ArrayList<>();
+    private int unitFrameStamp;
+
+    private final List<Unit> allUnitsView = Collections.unmodifiableList(allUnits);
+    private final List<Unit> playerUnitsView = Collections.unmodifiableList(playerUnits);
+    private final List<Unit> alliedUnitsView = Collections.unmodifiableList(alliedUnits);
+    private final List<Unit> enemyUnitsView = Collections.unmodifiableList(enemyUnits);
+    private final List<Unit> neutralUnitsView = Collections.unmodifiableList(neutralUnits);
+    private final List<List<Unit>> unitsByPlayerViews = new ArrayList<>(MAX_PLAYERS);
+    private final List<Unit> changedUnitsView = Collections.unmodifiableList(changedUnits);
+    private final List<Unit> removedUnitsView = Collections.unmodifiableList(removedUnits);
 
     private final Map<Integer, Player> players = new HashMap<>();
+    private final List<Player> playerList = new ArrayList<>();
     private final List<Player> allies = new ArrayList<>();
     private final List<Player> enemies = new ArrayList<>();
 
+    private final List<Player> playersView = Collections.unmodifiableList(playerList);
+    private final List<Player> alliesView = Collections.unmodifiableList(allies);
+    private final List<Player> enemiesView = Collections.unmodifiableList(enemies);
+
     private final BroodwarListener listener;
 
     private Player self;
@@ -49,6 +114,36 @@ public class Broodwar {
 
     private GameMap map;
 
+    private final UnitDataBuffer unitBuffer = new UnitDataBuffer();
+    private final EventBuffer eventBuffer = new EventBuffer();
+    private final CommandBuffer commandBuffer = new CommandBuffer();
+    private final KeyStateBuffer keyStateBuffer = new KeyStateBuffer();
+    private final ByteBuffer visibilityBuffer = ByteBuffer.allocateDirect(
+            2 * TileBitmap.getWordCount(MAX_MAP_SIZE, MAX_MAP_SIZE) * Long.BYTES).order(
+            ByteOrder.nativeOrder());
+    private final LongBuffer visibilityData = visibilityBuffer.asLongBuffer();
+    private TileBitmap visibleTiles = new TileBitmap(0, 0);
+    private TileBitmap exploredTiles = new TileBitmap(0, 0);
+    private final BuildTileBuffer buildTileBuffer = new BuildTileBuffer(MAX_MAP_SIZE,
+            MAX_MAP_SIZE, this::transferBuildTiles);
+    private UnitGrid unitGrid;
+    private BuildingPlacer buildingPlacer;
+    private int buildingPlacerStamp;
+    private boolean commandBatching;
+    private int commandSequence;
+    private int flushedCommandSequence;
+    private final BitSet commandResults = new BitSet();
+    private boolean frameCommandsFlushed;
+    private boolean commandFiltering;
+    private int commandFrame;
+    private int commandLatencyFrames;
+    private int suppressedCommandCount;
+    private final DisplayList frameDisplayList = new DisplayList();
+    private final List<DisplayList> displayLists = new ArrayList<>();
+    private UnitTransport unitTransport = UnitTransport.DIRECT_BUFFER;
+    private boolean unitDeltaReset = true;
+    private boolean legacyBridge;
+
     /**
      * Constructs the Broodwar with the listener to notify when game events occur.
      *
@@ -64,6 +159,12 @@ public class Broodwar {
             throw new IllegalArgumentException("listener cannot be null");
         }
         this.listener = listener;
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            final List<Unit> playerBucket = new ArrayList<>();
+            unitsByPlayer.add(playerBucket);
+            unitsByPlayerViews.add(Collections.unmodifiableList(playerBucket));
+            unitListsByPlayer.add(neutralUnits);
+        }
     }
 
     /**
@@ -75,9 +176,276 @@ public class Broodwar {
      * <p>
      * Although this method can be invoked any time, the connection will only be successfully
      * established when the game is in the Main Menu, Game Lobby, Mission Briefing, and Battle.net.
+     *
+     * <p>
+     * A bridge built before the buffer based transfers were introduced does not export their
+     * native methods. With such a legacy bridge the unit data is always transferred as an
+     * {@link UnitTransport#ARRAY array}, commands are never {@link #setCommandBatching(boolean)
+     * batched}, display lists are drawn one shape at a time, the visibility and creep are queried
+     * tile by tile, no tiles are {@link #getPoweredTiles(UnitType) powered} and
+     * {@link #isKeyDown(int)} always returns false.
      */
     public void connect() {
-        nativeConnect(this);
+        legacyBridge = !isBridgeCurrent();
+        if (legacyBridge) {
+            System.err.println("The bridge predates the buffer transfers; rebuild the bridge.");
+            nativeConnect(this);
+        } else {
+            nativeConnectBuffers(this, unitBuffer.getByteBuffer(), eventBuffer.getByteBuffer(),
+                    keyStateBuffer.getByteBuffer());
+        }
+    }
+
+    /**
+     * @return true if the bridge exports the native methods of the buffer based transfers; false
+     *         if it is a legacy bridge
+     */
+    private boolean isBridgeCurrent() {
+        try {
+            getRevision();
+            return true;
+
+        } catch (final UnsatisfiedLinkError ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if connected to a bridge that predates the buffer based transfers
+     */
+    boolean isLegacyBridge() {
+        return legacyBridge;
+    }
+
+    /**
+     * Sets how the unit data is transferred from the bridge every frame. The default is
+     * {@link UnitTransport#DIRECT_BUFFER}.
+     *
+     * @param unitTransport
+     *            the transport to use for all future frames
+     */
+    public void setUnitTransport(final UnitTransport unitTransport) {
+        if (unitTransport == null) {
+            throw new IllegalArgumentException("unitTransport cannot be null");
+        }
+        this.unitTransport = unitTransport;
+        unitDeltaReset = true;
+    }
+
+    /**
+     * @return the transport currently used to transfer the unit data from the bridge
+     */
+    public UnitTransport getUnitTransport() {
+        return unitTransport;
+    }
+
+    /**
+     * Sets whether unit commands are batched. The default is false.
+     *
+     * <p>
+     * While batching, the command methods of {@link Unit} do not issue the commands immediately.
+     * Instead the commands are queued and issued to the bridge in a single call at the end of the
+     * frame, after the listener has processed {@link BroodwarListener#matchFrame()}, or whenever
+     * {@link #flushCommands()} is invoked. The command methods then return true to indicate that
+     * the command was queued; whether the command was successfully issued is available after the
+     * flush through {@link #isCommandSuccessful(int)}.
+     *
+     * <p>
+     * When the queue is full, the queued commands are flushed before the next command is queued.
+     * The results of every flush during a frame, including such automatic flushes, remain
+     * available until the first flush of the following frame.
+     *
+     * <p>
+     * Disabling batching flushes any queued commands.
+     *
+     * @param commandBatching
+     *            true to batch unit commands; false to issue them immediately
+     */
+    public void setCommandBatching(final boolean commandBatching) {
+        if (!commandBatching) {
+            flushCommands();
+        }
+        this.commandBatching = commandBatching;
+    }
+
+    /**
+     * @return true if unit commands are batched; false if they are issued immediately, which is
+     *         always the case with a legacy bridge
+     */
+    public boolean isCommandBatching() {
+        return commandBatching && !legacyBridge;
+    }
+
+    /**
+     * Provides the ID that will be assigned to the next queued command. IDs increase by one for
+     * every queued command, so an agent can remember the ID before issuing a command to a unit and
+     * check the result of the command after it has been flushed.
+     *
+     * @return the ID of the next queued command
+     */
+    public int getNextCommandId() {
+        return commandSequence + commandBuffer.getCommandCount();
+    }
+
+    /**
+     * Issues all queued unit commands to the bridge in a single call. Commands are also flushed
+     * automatically at the end of every frame and whenever the queue is full.
+     */
+    public void flushCommands() {
+        if (commandBuffer.getCommandCount() == 0) {
+            return;
+        }
+        flushCommandBuffer(commandBuffer.getByteBuffer());
+        commandsFlushed();
+    }
+
+    /**
+     * Marks the queued commands as flushed once the bridge has written their results. While
+     * {@link #setCommandFiltering(boolean) filtering}, the units are told which of their commands
+     * failed, so that the failed commands can be retried.
+     */
+    void commandsFlushed() {
+        if (frameCommandsFlushed) {
+            commandResults.clear();
+            flushedCommandSequence = commandSequence;
+            frameCommandsFlushed = false;
+        }
+        final int resultIndex = commandSequence - flushedCommandSequence;
+        commandSequence += commandBuffer.getCommandCount();
+        commandBuffer.flushed();
+        for (int command = 0; command < commandBuffer.getFlushedCount(); command++) {
+            final boolean result = commandBuffer.getResult(command);
+            commandResults.set(resultIndex + command, result);
+            if (commandFiltering && !result) {
+                final Unit unit = units.get(commandBuffer.getUnitId(command));
+                if (unit != null) {
+                    unit.commandFailed(commandBuffer.getType(command));
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes the commands queued during the frame at the end of the frame. The results of the
+     * flushes of the frame are discarded by the first flush of the following frame.
+     */
+    void flushFrameCommands() {
+        flushCommands();
+        frameCommandsFlushed = true;
+    }
+
+    CommandBuffer getCommandBuffer() {
+        return commandBuffer;
+    }
+
+    /**
+     * Provides the result of a batched command. The results of all the flushes of the most recent
+     * frame are available until the first flush of the following frame.
+     *
+     * @param commandId
+     *            the {@link #getNextCommandId() ID} of the command
+     *
+     * @return true if the command was successfully issued; false otherwise
+     *
+     * @throws IndexOutOfBoundsException
+     *             thrown if the command was not flushed during the most recent frame
+     */
+    public boolean isCommandSuccessful(final int commandId) throws IndexOutOfBoundsException {
+        if ((commandId < flushedCommandSequence) || (commandId >= commandSequence)) {
+            throw new IndexOutOfBoundsException("command " + commandId + " was not flushed");
+        }
+        return commandResults.get(commandId - flushedCommandSequence);
+    }
+
+    /**
+     * Sets whether redundant unit commands are filtered. The default is false.
+     *
+     * <p>
+     * While filtering, a command sent to a unit is dropped if it is identical (same command type,
+     * target, position and extra value) to the previous command successfully sent to the unit, and
+     * the previous command was sent no more than {@link #getRemainingLatencyFrames()} frames ago.
+     * Such a command cannot have any effect before the previous one is processed, so re-issuing it
+     * only adds actions and can make the unit stutter. The command methods of {@link Unit} return
+     * true for dropped commands.
+     *
+     * <p>
+     * Only orders that are safe to repeat, such as moving, attacking, patrolling, gathering and
+     * stopping, are filtered. Commands that queue work or spend resources, such as training,
+     * morphing, researching, upgrading, unloading and using techs, are always sent.
+     *
+     * <p>
+     * Commands sent while filtering is disabled are not remembered, so after filtering is enabled
+     * again the first command sent to each unit is never dropped.
+     *
+     * @param commandFiltering
+     *            true to filter redundant commands; false to send every command
+     */
+    public void setCommandFiltering(final boolean commandFiltering) {
+        this.commandFiltering = commandFiltering;
+    }
+
+    /**
+     * @return true if redundant unit commands are filtered; false otherwise
+     */
+    public boolean isCommandFiltering() {
+        return commandFiltering;
+    }
+
+    /**
+     * @return the number of redundant commands that have been dropped since the match started
+     */
+    public int getSuppressedCommandCount() {
+        return suppressedCommandCount;
+    }
+
+    /**
+     * Sets the frame used to determine whether a command is within the latency window of the
+     * previous command.
+     */
+    void updateCommandFrame(final int frame, final int latencyFrames) {
+        commandFrame = frame;
+        commandLatencyFrames = latencyFrames;
+    }
+
+    int getCommandFrame() {
+        return commandFrame;
+    }
+
+    int getCommandLatencyFrames() {
+        return commandLatencyFrames;
+    }
+
+    void commandSuppressed() {
+        suppressedCommandCount++;
+    }
+
+    /**
+     * Queues a unit command to be issued at the next flush.
+     *
+     * @return the ID of the queued command
+     */
+    int queueCommand(final Command type, final int unitId, final int targetId, final int x,
+            final int y, final int extra) {
+        if (commandBuffer.isFull()) {
+            flushCommands();
+        }
+        return commandSequence + commandBuffer.put(type, unitId, targetId, x, y, extra);
+    }
+
+    /**
+     * Determines whether a key is held down in the current frame. Key states are only available
+     * if user input has been {@link #enableUserInput() enabled}.
+     *
+     * @param keyCode
+     *            the key code of the key
+     *
+     * @return true if the key is down; false otherwise
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the key code is not between 0 and 255
+     */
+    public boolean isKeyDown(final int keyCode) throws IllegalArgumentException {
+        return keyStateBuffer.isDown(keyCode);
     }
 
     /**
@@ -216,7 +584,7 @@ public class Broodwar {
      */
     public ErrorCode getLastError() {
         final int index = getLastErrorCode();
-        return ErrorCode.values()[index];
+        return ERROR_CODES[index];
     }
 
     private native int getLastErrorCode();
@@ -254,21 +622,21 @@ public class Broodwar {
      * @return the players in the match that have not left or been defeated
      */
     public List<Player> getPlayers() {
-        return new ArrayList<>(players.values());
+        return playersView;
     }
 
     /**
      * @return the agent's allies in the match that have not left or been defeated
      */
     public List<Player> getAllies() {
-        return new ArrayList<>(allies);
+        return alliesView;
     }
 
     /**
      * @return the agent's enemies in the match that have not left or been defeated
      */
     public List<Player> getEnemies() {
-        return new ArrayList<>(enemies);
+        return enemiesView;
     }
 
     Player getPlayer(final int playerId) {
@@ -279,35 +647,35 @@ public class Broodwar {
      * @return all accessible units
      */
     public List<Unit> getAllUnits() {
-        return new ArrayList<>(units.values());
+        return allUnitsView;
     }
 
     /**
      * @return all accessible units owned by the agent
      */
     public List<Unit> getUnits() {
-        return new ArrayList<>(playerUnits);
+        return playerUnitsView;
     }
 
     /**
      * @return all accessible units owned by allies
      */
     public List<Unit> getAlliedUnits() {
-        return new ArrayList<>(alliedUnits);
+        return alliedUnitsView;
     }
 
     /**
      * @return all accessible units owned by enemies
      */
     public List<Unit> getEnemyUnits() {
-        return new ArrayList<>(enemyUnits);
+        return enemyUnitsView;
     }
 
     /**
      * @return all accessible units owned by the neutral player
      */
     public List<Unit> getNeutralUnits() {
-        return new ArrayList<>(neutralUnits);
+        return neutralUnitsView;
     }
 
     /**
@@ -319,19 +687,94 @@ public class Broodwar {
      * @return all accessible units owned by the player
      */
     public List<Unit> getUnits(final Player player) {
-        final List<Unit> playerUnits = new ArrayList<>();
-        for (final Unit unit : units.values()) {
-            if (unit.getPlayer() == player) {
-                playerUnits.add(unit);
+        if ((player == null) || (player.getId() < 0) || (player.getId() >= MAX_PLAYERS)) {
+            return Collections.emptyList();
+        }
+        return unitsByPlayerViews.get(player.getId());
+    }
+
+    /**
+     * Provides the accessible units that have all of the specified {@link UnitFlag flags} set. The
+     * flags are tested by scanning the flag column of the {@link #getUnitTable() unit table}.
+     *
+     * @param flagMask
+     *            the {@link UnitFlag#mask(UnitFlag...) mask} of the flags the units must have
+     *
+     * @return the accessible units that have all of the flags set
+     */
+    public List<Unit> getUnits(final long flagMask) {
+        final List<Unit> matchingUnits = new ArrayList<>();
+        final long[] flags = unitTable.flags;
+        for (int slot = 0; slot < unitTable.getSlotCount(); slot++) {
+            if ((flags[slot] & flagMask) == flagMask) {
+                final Unit unit = unitTable.getUnit(slot);
+                if (unit != null) {
+                    matchingUnits.add(unit);
+                }
             }
         }
-        return playerUnits;
+        return matchingUnits;
+    }
+
+    /**
+     * Provides the units whose data changed during the current frame.
+     *
+     * <p>
+     * When using the {@link UnitTransport#DELTA delta} transport, only the units whose data
+     * changed since the previous frame are provided; otherwise all accessible units are provided.
+     *
+     * @return the units whose data changed during the current frame
+     */
+    public List<Unit> getChangedUnits() {
+        return changedUnitsView;
+    }
+
+    /**
+     * Provides the units that stopped being accessible during the current frame. The removed units
+     * have been {@link Unit#setDestroyed() destroyed} and retain their last known data.
+     *
+     * @return the units removed during the current frame
+     */
+    public List<Unit> getRemovedUnits() {
+        return removedUnitsView;
+    }
+
+    /**
+     * Provides the columnar storage of all accessible units. Each unit's attributes are stored at
+     * its {@link Unit#getSlot() slot} within the table.
+     *
+     * <p>
+     * A new table is used for every match.
+     *
+     * @return the table containing the data of all accessible units
+     */
+    public UnitTable getUnitTable() {
+        return unitTable;
     }
 
-    Unit getUnit(final int unitId) {
+    /**
+     * Provides the accessible unit with the specified ID. The lookup is a direct array access, so
+     * it is suitable for resolving unit references, such as {@link Unit#getTarget()}, every frame.
+     *
+     * @param unitId
+     *            the ID of the unit
+     *
+     * @return the unit with the ID; null if no such unit is accessible
+     */
+    public Unit getUnitById(final int unitId) {
         return units.get(unitId);
     }
 
+    /**
+     * Provides the spatial index of the accessible units, which finds the units near a position
+     * without visiting every unit. The index is updated at the start of every frame.
+     *
+     * @return the spatial index of the current match
+     */
+    public UnitGrid getUnitGrid() {
+        return unitGrid;
+    }
+
     /**
      * @return the map that the current match is using
      */
@@ -348,11 +791,9 @@ public class Broodwar {
      * @return true if the build tile is visible; false otherwise
      */
     public boolean isVisible(final Position position) {
-        return isVisible(position.getX(BUILD), position.getY(BUILD));
+        return visibleTiles.get(position);
     }
 
-    private native boolean isVisible(final int tileX, final int tileY);
-
     /**
      * Indicates if the specified location has been explored (i.e. was visible at some point during
      * the match).
@@ -363,9 +804,58 @@ public class Broodwar {
      * @return true if the position has been explored; false otherwise
      */
     public boolean isExplored(final Position position) {
-        return isExplored(position.getX(BUILD), position.getY(BUILD));
+        return exploredTiles.get(position);
+    }
+
+    /**
+     * Provides the visibility of every build tile in the current frame. Querying the snapshot does
+     * not require any calls to the bridge, so it is suitable for evaluating large areas of the map.
+     *
+     * @return the build tiles that are visible
+     */
+    public TileBitmap getVisibleTiles() {
+        return visibleTiles;
+    }
+
+    /**
+     * Provides the build tiles that have been explored (i.e. were visible at some point during the
+     * match) as of the current frame.
+     *
+     * @return the build tiles that have been explored
+     */
+    public TileBitmap getExploredTiles() {
+        return exploredTiles;
     }
 
+    /**
+     * Transfers the visibility of the tiles from the bridge in a single call.
+     */
+    private void updateVisibility() {
+        if (legacyBridge) {
+            for (int tileY = 0; tileY < visibleTiles.getHeight(); tileY++) {
+                for (int tileX = 0; tileX < visibleTiles.getWidth(); tileX++) {
+                    visibleTiles.set(tileX, tileY, isVisible(tileX, tileY));
+                    exploredTiles.set(tileX, tileY, isExplored(tileX, tileY));
+                }
+            }
+            return;
+        }
+        updateVisibility(visibilityBuffer);
+        visibleTiles.read(visibilityData, 0);
+        exploredTiles.read(visibilityData,
+                TileBitmap.getWordCount(visibleTiles.getWidth(), visibleTiles.getHeight()));
+    }
+
+    private native void updateVisibility(final ByteBuffer buffer);
+
+    /**
+     * Only exported by legacy bridges.
+     */
+    private native boolean isVisible(final int tileX, final int tileY);
+
+    /**
+     * Only exported by legacy bridges.
+     */
     private native boolean isExplored(final int tileX, final int tileY);
 
     /**
@@ -379,9 +869,10 @@ public class Broodwar {
      *            true if the check if consider visible builds as being prohibitive; false otherwise
      *
      * @return true if the position is buildable; false otherwise
+     *
+     * @see #getBuildingPlacer()
      */
     public boolean isBuildable(final Position position, final boolean includeBuildings) {
-        // TODO: Consider units in this check.
         return isBuildable(position.getX(BUILD), position.getY(BUILD), includeBuildings);
     }
 
@@ -448,9 +939,96 @@ public class Broodwar {
      * @return true if the build position has creep on it; false otherwise
      */
     public boolean hasCreep(final Position position) {
-        return hasCreep(position.getX(BUILD), position.getY(BUILD));
+        return getCreepTiles().get(position);
+    }
+
+    /**
+     * Provides the creep on every build tile in the current frame. The creep is transferred from
+     * the bridge separately from the {@link #getPoweredTiles(UnitType) psi power}, at most once per
+     * frame and only if it is requested.
+     *
+     * @return the build tiles that have creep on them; no tiles before the match has started
+     */
+    public TileBitmap getCreepTiles() {
+        return buildTileBuffer.get(BuildTileBuffer.CREEP);
+    }
+
+    /**
+     * Provides the build tiles at which a Protoss building would be powered in the current frame,
+     * if its top-left tile were placed there. Power is provided for the building sizes 2x2 (e.g.
+     * Photon Cannon), 3x2 (e.g. Forge) and 4x3 (e.g. Gateway). Each size is transferred from the
+     * bridge separately, at most once per frame and only if it is requested.
+     *
+     * @param unitType
+     *            the type of building
+     *
+     * @return the top-left build tiles at which the building would be powered
+     *
+     * @throws IllegalArgumentException
+     *             thrown if power is not provided for the size of the building
+     */
+    public TileBitmap getPoweredTiles(final UnitType unitType) throws IllegalArgumentException {
+        final int layer = BuildTileBuffer.getPowerLayer(unitType);
+        if (layer == -1) {
+            throw new IllegalArgumentException("power is not provided for " + unitType);
+        }
+        return buildTileBuffer.get(layer);
+    }
+
+    /**
+     * Provides the building placer, which determines where buildings can be placed in the current
+     * frame without a call to the bridge for every tile. The placer is updated with the units of
+     * the current frame the first time it is requested during a frame; the creep and power are
+     * only transferred once the placer needs them.
+     *
+     * @return the building placer of the current match; null if no match has started
+     */
+    public BuildingPlacer getBuildingPlacer() {
+        if (buildingPlacer == null) {
+            return null;
+        }
+        if (buildingPlacerStamp != unitFrameStamp) {
+            buildingPlacer.update(allUnits, buildTileBuffer);
+            buildingPlacerStamp = unitFrameStamp;
+        }
+        return buildingPlacer;
+    }
+
+    /**
+     * Writes a single layer of the {@link BuildTileBuffer} and lists the words of the layer that
+     * changed since the previous transfer.
+     */
+    private native void updateBuildTiles(final ByteBuffer buffer, final int layer);
+
+    /**
+     * Transfers a single layer of the {@link BuildTileBuffer}. A legacy bridge is queried tile by
+     * tile for the creep; its power queries cannot be linked, so the power layers stay empty.
+     */
+    private void transferBuildTiles(final ByteBuffer buffer, final int layer) {
+        if (!legacyBridge) {
+            updateBuildTiles(buffer, layer);
+            return;
+        }
+        if (layer != BuildTileBuffer.CREEP) {
+            return;
+        }
+        final int width = map.getSize().getX(BUILD);
+        final int tileCount = width * map.getSize().getY(BUILD);
+        long word = 0;
+        for (int bit = 0; bit < tileCount; bit++) {
+            if (hasCreep(bit % width, bit / width)) {
+                word |= 1L << bit;
+            }
+            if (((bit % Long.SIZE) == (Long.SIZE - 1)) || (bit == (tileCount - 1))) {
+                buildTileBuffer.put(layer, bit / Long.SIZE, word);
+                word = 0;
+            }
+        }
     }
 
+    /**
+     * Only exported by legacy bridges.
+     */
     private native boolean hasCreep(final int tileX, final int tileY);
 
     /**
@@ -1186,6 +1764,119 @@ public class Broodwar {
         drawEllipseScreen(x, y, radius, radius, color.getId(), fill);
     }
 
+    /**
+     * Provides the display list that is drawn at the end of the current frame and then cleared.
+     * Recording many shapes into the display list is considerably cheaper than invoking the draw
+     * methods for each of them, since the whole list is drawn by the bridge in a single call.
+     *
+     * @return the display list of the current frame
+     */
+    public DisplayList getDisplayList() {
+        return frameDisplayList;
+    }
+
+    /**
+     * Adds a retained display list, which is drawn at the end of every frame until it is removed.
+     * The list is not cleared after it is drawn, so it only needs to be recorded again when its
+     * contents change.
+     *
+     * @param displayList
+     *            the display list to draw every frame
+     */
+    public void addDisplayList(final DisplayList displayList) {
+        if (!displayLists.contains(displayList)) {
+            displayLists.add(displayList);
+        }
+    }
+
+    /**
+     * Stops drawing a retained display list.
+     *
+     * @param displayList
+     *            the display list to remove
+     */
+    public void removeDisplayList(final DisplayList displayList) {
+        displayLists.remove(displayList);
+    }
+
+    private void drawDisplayLists() {
+        for (final DisplayList displayList : displayLists) {
+            drawDisplayList(displayList);
+        }
+        drawDisplayList(frameDisplayList);
+        frameDisplayList.clear();
+    }
+
+    private void drawDisplayList(final DisplayList displayList) {
+        if (displayList.isEmpty()) {
+            return;
+        }
+        if (legacyBridge) {
+            drawShapes(displayList);
+        } else {
+            drawDisplayList(displayList.getShapeBuffer(), displayList.getTextBuffer());
+        }
+    }
+
+    /**
+     * Draws the shapes of a display list one at a time, for legacy bridges that cannot draw a
+     * whole display list in a single call.
+     */
+    private void drawShapes(final DisplayList displayList) {
+        int textOffset = 0;
+        for (int shape = 0; shape < displayList.size(); shape++) {
+            final boolean screen = (displayList.getFlags(shape) & DisplayList.SCREEN) != 0;
+            final boolean fill = (displayList.getFlags(shape) & DisplayList.FILL) != 0;
+            final int x1 = displayList.getCoordinate(shape, 0);
+            final int y1 = displayList.getCoordinate(shape, 1);
+            final int x2 = displayList.getCoordinate(shape, 2);
+            final int y2 = displayList.getCoordinate(shape, 3);
+            final int color = displayList.getColor(shape);
+            switch (displayList.getType(shape)) {
+                case DisplayList.TEXT : {
+                    final int textLength = displayList.getTextLength(shape);
+                    final String text = displayList.getText(textOffset, textLength);
+                    textOffset += textLength;
+                    if (screen) {
+                        drawTextScreen(x1, y1, text);
+                    } else {
+                        drawTextMap(x1, y1, text);
+                    }
+                    break;
+                }
+
+                case DisplayList.LINE :
+                    if (screen) {
+                        drawLineScreen(x1, y1, x2, y2, color);
+                    } else {
+                        drawLineMap(x1, y1, x2, y2, color);
+                    }
+                    break;
+
+                case DisplayList.RECTANGLE :
+                    if (screen) {
+                        drawRectangleScreen(x1, y1, x2 - x1, y2 - y1, color, fill);
+                    } else {
+                        drawRectangleMap(x1, y1, x2 - x1, y2 - y1, color, fill);
+                    }
+                    break;
+
+                case DisplayList.ELLIPSE :
+                    if (screen) {
+                        drawEllipseScreen(x1, y1, x2, y2, color, fill);
+                    } else {
+                        drawEllipseMap(x1, y1, x2, y2, color, fill);
+                    }
+                    break;
+
+                default :
+                    break;
+            }
+        }
+    }
+
+    private native void drawDisplayList(final ByteBuffer shapeBuffer, final ByteBuffer textBuffer);
+
     // *********************************************************************************************
     // Static Methods
     // *********************************************************************************************
@@ -1236,86 +1927,141 @@ public class Broodwar {
     }
 
     private void loadTypeData() {
-        // race types
+        if (legacyBridge) {
+            // the revision is not available, so the cache cannot be validated
+            fetchTypeData(0).initializeTypes();
+            return;
+        }
+        final int revision = getRevision();
+        final File typeDataCacheFile = new File(TYPE_DATA_CACHE_DIRECTORY, TYPE_DATA_CACHE_FILE);
+
+        TypeData typeData = null;
+        if (typeDataCacheFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(typeDataCacheFile)))) {
+                typeData = TypeData.read(in, revision);
+
+            } catch (final IOException ex) {
+                System.err.println("Type data could not be loaded.");
+                System.err.println(ex.getMessage());
+            }
+        }
+
+        if (typeData == null) {
+            typeData = fetchTypeData(revision);
+            try {
+                if (!typeDataCacheFile.getParentFile().exists()) {
+                    typeDataCacheFile.getParentFile().mkdirs();
+                }
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(typeDataCacheFile)))) {
+                    typeData.write(out);
+                }
+
+            } catch (final IOException ex) {
+                System.err.println("Type data could not be cached.");
+                System.err.println(ex.getMessage());
+            }
+        }
+
+        typeData.initializeTypes();
+    }
+
+    /**
+     * Retrieves the type tables from the bridge.
+     */
+    private TypeData fetchTypeData(final int revision) {
+        final TypeData typeData = new TypeData(revision);
+
         final int[] raceTypeData = getRaceTypes();
-        for (int index = 0; index < raceTypeData.length; index += Race.NUM_ATTRIBUTES) {
-            final int id = raceTypeData[index];
-            Race.getRaceType(id).initialize(raceTypeData, index, getRaceTypeName(id));
+        final String[] raceTypeNames = new String[raceTypeData.length / Race.NUM_ATTRIBUTES];
+        for (int i = 0; i < raceTypeNames.length; i++) {
+            raceTypeNames[i] = getRaceTypeName(raceTypeData[i * Race.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.RACE, raceTypeData, raceTypeNames);
 
-        // unit types
         final int[] unitTypeData = getUnitTypes();
-        for (int index = 0; index < unitTypeData.length; index += UnitType.NUM_ATTRIBUTES) {
-            final int id = unitTypeData[index];
-            UnitType.getUnitType(id).initialize(unitTypeData, index, getUnitTypeName(id),
-                    getRequiredUnits(id));
+        final String[] unitTypeNames = new String[unitTypeData.length / UnitType.NUM_ATTRIBUTES];
+        final int[][] requiredUnits = new int[unitTypeNames.length][];
+        for (int i = 0; i < unitTypeNames.length; i++) {
+            final int id = unitTypeData[i * UnitType.NUM_ATTRIBUTES];
+            unitTypeNames[i] = getUnitTypeName(id);
+            requiredUnits[i] = getRequiredUnits(id);
         }
+        typeData.put(TypeData.Category.UNIT, unitTypeData, unitTypeNames);
+        typeData.putRequiredUnits(requiredUnits);
 
-        // tech types
         final int[] techTypeData = getTechTypes();
-        for (int index = 0; index < techTypeData.length; index += Tech.NUM_ATTRIBUTES) {
-            final int id = techTypeData[index];
-            Tech.getTechType(id).initialize(techTypeData, index, getTechTypeName(id));
+        final String[] techTypeNames = new String[techTypeData.length / Tech.NUM_ATTRIBUTES];
+        for (int i = 0; i < techTypeNames.length; i++) {
+            techTypeNames[i] = getTechTypeName(techTypeData[i * Tech.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.TECH, techTypeData, techTypeNames);
 
-        // upgrade types
         final int[] upgradeTypeData = getUpgradeTypes();
-        for (int index = 0; index < upgradeTypeData.length; index += Upgrade.NUM_ATTRIBUTES) {
-            final int id = upgradeTypeData[index];
-            Upgrade.getUpgradeType(id).initialize(upgradeTypeData, index, getUpgradeTypeName(id));
+        final String[] upgradeTypeNames = new String[upgradeTypeData.length
+                / Upgrade.NUM_ATTRIBUTES];
+        for (int i = 0; i < upgradeTypeNames.length; i++) {
+            upgradeTypeNames[i] = getUpgradeTypeName(upgradeTypeData[i * Upgrade.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.UPGRADE, upgradeTypeData, upgradeTypeNames);
 
-        // weapon types
         final int[] weaponTypeData = getWeaponTypes();
-        for (int index = 0; index < weaponTypeData.length; index += Weapon.NUM_ATTRIBUTES) {
-            final int id = weaponTypeData[index];
-            Weapon.getWeaponType(id).initialize(weaponTypeData, index, getWeaponTypeName(id));
+        final String[] weaponTypeNames = new String[weaponTypeData.length / Weapon.NUM_ATTRIBUTES];
+        for (int i = 0; i < weaponTypeNames.length; i++) {
+            weaponTypeNames[i] = getWeaponTypeName(weaponTypeData[i * Weapon.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.WEAPON, weaponTypeData, weaponTypeNames);
 
-        // unit size types
         final int[] unitSizeTypeData = getUnitSizeTypes();
-        for (int index = 0; index < unitSizeTypeData.length; index += UnitSize.NUM_ATTRIBUTES) {
-            final int id = unitSizeTypeData[index];
-            UnitSize.getUnitSizeType(id).initialize(unitSizeTypeData, index,
-                    getUnitSizeTypeName(id));
+        final String[] unitSizeTypeNames = new String[unitSizeTypeData.length
+                / UnitSize.NUM_ATTRIBUTES];
+        for (int i = 0; i < unitSizeTypeNames.length; i++) {
+            unitSizeTypeNames[i] = getUnitSizeTypeName(
+                    unitSizeTypeData[i * UnitSize.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.UNIT_SIZE, unitSizeTypeData, unitSizeTypeNames);
 
-        // bullet types
         final int[] bulletTypeData = getBulletTypes();
-        for (int index = 0; index < bulletTypeData.length; index += Bullet.NUM_ATTRIBUTES) {
-            final int id = bulletTypeData[index];
-            Bullet.getBulletType(id).initialize(bulletTypeData, index, getBulletTypeName(id));
+        final String[] bulletTypeNames = new String[bulletTypeData.length / Bullet.NUM_ATTRIBUTES];
+        for (int i = 0; i < bulletTypeNames.length; i++) {
+            bulletTypeNames[i] = getBulletTypeName(bulletTypeData[i * Bullet.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.BULLET, bulletTypeData, bulletTypeNames);
 
-        // damage types
         final int[] damageTypeData = getDamageTypes();
-        for (int index = 0; index < damageTypeData.length; index += Damage.NUM_ATTRIBUTES) {
-            final int id = damageTypeData[index];
-            Damage.getDamageType(id).initialize(damageTypeData, index, getDamageTypeName(id));
+        final String[] damageTypeNames = new String[damageTypeData.length / Damage.NUM_ATTRIBUTES];
+        for (int i = 0; i < damageTypeNames.length; i++) {
+            damageTypeNames[i] = getDamageTypeName(damageTypeData[i * Damage.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.DAMAGE, damageTypeData, damageTypeNames);
 
-        // explosion types
         final int[] explosionTypeData = getExplosionTypes();
-        for (int index = 0; index < explosionTypeData.length; index += Explosion.NUM_ATTRIBUTES) {
-            final int id = explosionTypeData[index];
-            Explosion.getExplosionType(id).initialize(explosionTypeData, index,
-                    getExplosionTypeName(id));
+        final String[] explosionTypeNames = new String[explosionTypeData.length
+                / Explosion.NUM_ATTRIBUTES];
+        for (int i = 0; i < explosionTypeNames.length; i++) {
+            explosionTypeNames[i] = getExplosionTypeName(
+                    explosionTypeData[i * Explosion.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.EXPLOSION, explosionTypeData, explosionTypeNames);
 
-        // unitCommand types
         final int[] unitCommandTypeData = getUnitCommandTypes();
-        for (int index = 0; index < unitCommandTypeData.length; index += Command.NUM_ATTRIBUTES) {
-            final int id = unitCommandTypeData[index];
-            Command.getCommandType(id).initialize(unitCommandTypeData, index,
-                    getUnitCommandTypeName(id));
+        final String[] unitCommandTypeNames = new String[unitCommandTypeData.length
+                / Command.NUM_ATTRIBUTES];
+        for (int i = 0; i < unitCommandTypeNames.length; i++) {
+            unitCommandTypeNames[i] = getUnitCommandTypeName(
+                    unitCommandTypeData[i * Command.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.COMMAND, unitCommandTypeData, unitCommandTypeNames);
 
-        // order types
         final int[] orderTypeData = getOrderTypes();
-        for (int index = 0; index < orderTypeData.length; index += Order.NUM_ATTRIBUTES) {
-            final int id = orderTypeData[index];
-            Order.getOrderType(id).initialize(orderTypeData, index, getOrderTypeName(id));
+        final String[] orderTypeNames = new String[orderTypeData.length / Order.NUM_ATTRIBUTES];
+        for (int i = 0; i < orderTypeNames.length; i++) {
+            orderTypeNames[i] = getOrderTypeName(orderTypeData[i * Order.NUM_ATTRIBUTES]);
         }
+        typeData.put(TypeData.Category.ORDER, orderTypeData, orderTypeNames);
+
+        return typeData;
     }
 
     /**
@@ -1334,6 +2080,7 @@ public class Broodwar {
         allies.clear();
         enemies.clear();
         players.clear();
+        playerList.clear();
 
         final int[] playerData = getPlayersData();
         for (int index = 0; index < playerData.length; index += Player.NUM_ATTRIBUTES) {
@@ -1341,6 +2088,7 @@ public class Broodwar {
             final Player player = new Player(playerData, index, name);
 
             players.put(player.getId(), player);
+            playerList.add(player);
 
             if (player.isSelf()) {
                 self = player;
@@ -1353,34 +2101,33 @@ public class Broodwar {
             }
         }
 
-        // get unit data
-        units.clear();
-        playerUnits.clear();
-        alliedUnits.clear();
-        enemyUnits.clear();
-        neutralUnits.clear();
-        final int[] unitData = getAllUnitsData();
-
-        for (int index = 0; index < unitData.length; index += Unit.NUM_ATTRIBUTES) {
-            final int id = unitData[index];
-            final Unit unit = new Unit(id, this);
-            unit.update(unitData, index);
-
-            units.put(id, unit);
-            if ((self != null) && (unit.getPlayer() == self)) {
-                playerUnits.add(unit);
-
-            } else if (allies.contains(unit.getPlayer())) {
-                alliedUnits.add(unit);
-
-            } else if (enemies.contains(unit.getPlayer())) {
-                enemyUnits.add(unit);
-
-            } else {
-                neutralUnits.add(unit);
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            unitListsByPlayer.set(i, neutralUnits);
+        }
+        for (final Player player : players.values()) {
+            if ((player.getId() >= 0) && (player.getId() < MAX_PLAYERS)) {
+                unitListsByPlayer.set(player.getId(), getUnitList(player));
             }
         }
+
+        // get unit data
+        units.clear();
+        unitTable = new UnitTable();
+        unitDeltaReset = true;
+        suppressedCommandCount = 0;
+        updateUnits();
         loadMapData();
+
+        final int mapWidth = map.getSize().getX(BUILD);
+        final int mapHeight = map.getSize().getY(BUILD);
+        visibleTiles = new TileBitmap(mapWidth, mapHeight);
+        exploredTiles = new TileBitmap(mapWidth, mapHeight);
+        updateVisibility();
+        buildTileBuffer.reset(mapWidth, mapHeight);
+        buildingPlacer = new BuildingPlacer(map);
+        buildingPlacerStamp = 0;
+        unitGrid = new UnitGrid(map.getSize().getX(PIXEL), map.getSize().getY(PIXEL));
+        unitGrid.update(allUnits);
     }
 
     private void loadMapData() {
@@ -1499,51 +2246,175 @@ public class Broodwar {
                         getUpgradeStatus(playerId));
             }
         }
-        // update units
-        final int[] unitData = getAllUnitsData();
-        final HashSet<Integer> deadUnits = new HashSet<>(units.keySet());
-        playerUnits.clear();
-        alliedUnits.clear();
-        enemyUnits.clear();
-        neutralUnits.clear();
+        updateCommandFrame(getFrame(), getRemainingLatencyFrames());
+        keyStateBuffer.update();
+        updateVisibility();
+        updateUnits();
+        unitGrid.update(allUnits);
+        buildTileBuffer.invalidate();
+    }
+
+    /**
+     * Transfers the unit data from the bridge and updates the units and unit lists.
+     */
+    private void updateUnits() {
+        if (legacyBridge) {
+            final int[] unitData = convertLegacyUnitData(getAllUnitsData());
+            updateUnits(IntBuffer.wrap(unitData), 0, unitData.length / Unit.NUM_ATTRIBUTES, false);
+            return;
+        }
+        switch (unitTransport) {
+            case ARRAY : {
+                final int[] unitData = getAllUnitsData();
+                updateUnits(IntBuffer.wrap(unitData), 0, unitData.length / Unit.NUM_ATTRIBUTES,
+                        false);
+                break;
+            }
+
+            case DIRECT_BUFFER :
+                fillUnitBuffer();
+                updateUnits(unitBuffer.getData(), UnitDataBuffer.HEADER_SIZE,
+                        unitBuffer.getUnitCount(), false);
+                break;
+
+            case DELTA :
+                fillUnitBufferDelta(unitDeltaReset);
+                unitDeltaReset = false;
+                updateUnits(unitBuffer.getData(), UnitDataBuffer.HEADER_SIZE,
+                        unitBuffer.getUnitCount(), true);
+                break;
+
+            default :
+                break;
+        }
+    }
 
-        for (int index = 0; index < unitData.length; index += Unit.NUM_ATTRIBUTES) {
-            final int id = unitData[index];
+    /**
+     * Converts the unit data of a legacy bridge, which holds every {@link UnitFlag} as a separate
+     * attribute following the numeric attributes, into the layout with the flags packed into the
+     * last two attributes.
+     *
+     * @param legacyData
+     *            the data of the units, {@link #LEGACY_UNIT_ATTRIBUTES} attributes per unit
+     *
+     * @return the data of the units, {@link Unit#NUM_ATTRIBUTES} attributes per unit
+     */
+    static int[] convertLegacyUnitData(final int[] legacyData) {
+        final int flagsIndex = Unit.NUM_ATTRIBUTES - 2;
+        final int unitCount = legacyData.length / LEGACY_UNIT_ATTRIBUTES;
+        final int[] unitData = new int[unitCount * Unit.NUM_ATTRIBUTES];
+        for (int unit = 0; unit < unitCount; unit++) {
+            final int legacyIndex = unit * LEGACY_UNIT_ATTRIBUTES;
+            final int index = unit * Unit.NUM_ATTRIBUTES;
+            System.arraycopy(legacyData, legacyIndex, unitData, index, flagsIndex);
+            long flags = 0;
+            for (final UnitFlag flag : UnitFlag.values()) {
+                if (legacyData[legacyIndex + flagsIndex + flag.ordinal()] == 1) {
+                    flags |= flag.getMask();
+                }
+            }
+            unitData[index + flagsIndex] = (int) flags;
+            unitData[index + flagsIndex + 1] = (int) (flags >>> Integer.SIZE);
+        }
+        return unitData;
+    }
 
-            deadUnits.remove(id);
+    /**
+     * Updates the units and unit lists from the unit data.
+     *
+     * @param unitData
+     *            the unit data in the layout written by the bridge
+     *
+     * @param offset
+     *            the index of the first unit within the unit data
+     *
+     * @param unitCount
+     *            the number of units within the unit data
+     *
+     * @param delta
+     *            true if the unit data only contains the changed units and is followed by the IDs
+     *            of all accessible units; false if the unit data contains all accessible units
+     */
+    void updateUnits(final IntBuffer unitData, final int offset, final int unitCount,
+            final boolean delta) {
+        changedUnits.clear();
+        removedUnits.clear();
+        final int stamp = ++unitFrameStamp;
+        final int end = offset + (unitCount * Unit.NUM_ATTRIBUTES);
+        for (int index = offset; index < end; index += Unit.NUM_ATTRIBUTES) {
+            final int id = unitData.get(index);
 
             Unit unit = units.get(id);
             if (unit == null) {
-                unit = new Unit(id, this);
-                units.put(id, unit);
+                unit = new Unit(id, this, unitTable);
+                units.put(unit);
             }
 
             unit.update(unitData, index);
+            changedUnits.add(unit);
+        }
 
-            if (self != null) {
-                if (unit.getPlayer() == self) {
-                    playerUnits.add(unit);
-                } else if (allies.contains(unit.getPlayer())) {
-                    alliedUnits.add(unit);
-                } else if (enemies.contains(unit.getPlayer())) {
-                    enemyUnits.add(unit);
-                } else {
-                    neutralUnits.add(unit);
+        playerUnits.clear();
+        alliedUnits.clear();
+        enemyUnits.clear();
+        neutralUnits.clear();
+        allUnits.clear();
+        for (final List<Unit> playerBucket : unitsByPlayer) {
+            playerBucket.clear();
+        }
+
+        if (delta) {
+            final int idCount = unitData.get(end);
+            for (int index = end + 1; index <= (end + idCount); index++) {
+                final Unit unit = units.get(unitData.get(index));
+                if (unit != null) {
+                    unit.setFrameStamp(stamp);
+                    addToUnitList(unit);
                 }
-            } else if (allies.contains(unit.getPlayer())) {
-                alliedUnits.add(unit);
-            } else if (enemies.contains(unit.getPlayer())) {
-                enemyUnits.add(unit);
-            } else {
-                neutralUnits.add(unit);
             }
+        } else {
+            for (final Unit unit : changedUnits) {
+                unit.setFrameStamp(stamp);
+                addToUnitList(unit);
+            }
+        }
+
+        // remove the units that were not accessible during this update; removal moves the last unit
+        // into the vacated position, so iterate backwards
+        for (int i = units.size() - 1; i >= 0; i--) {
+            final Unit unit = units.getAt(i);
+            if (unit.getFrameStamp() != stamp) {
+                unit.setDestroyed();
+                units.remove(unit.getId());
+                removedUnits.add(unit);
+            }
+        }
+    }
+
+    private void addToUnitList(final Unit unit) {
+        allUnits.add(unit);
+        final int playerId = unit.getPlayerId();
+        if ((playerId >= 0) && (playerId < MAX_PLAYERS)) {
+            unitsByPlayer.get(playerId).add(unit);
+            unitListsByPlayer.get(playerId).add(unit);
+        } else {
+            neutralUnits.add(unit);
         }
+    }
 
-        // update the unit lists
-        for (final Integer unitID : deadUnits) {
-            units.get(unitID).setDestroyed();
-            units.remove(unitID);
+    /**
+     * Determines which of the unit lists the units owned by the player belong to. This is resolved
+     * once per match so that the units can be partitioned without searching the players.
+     */
+    private List<Unit> getUnitList(final Player player) {
+        if ((self != null) && (player == self)) {
+            return playerUnits;
+        } else if (allies.contains(player)) {
+            return alliedUnits;
+        } else if (enemies.contains(player)) {
+            return enemyUnits;
         }
+        return neutralUnits;
     }
 
     /**
@@ -1557,14 +2428,33 @@ public class Broodwar {
     }
 
     /**
-     * Sends BWAPI callback events to the event listener.
+     * Sends the batch of events that the bridge wrote into the {@link EventBuffer} to the event
+     * listener, in the order they occurred.
      *
      * <p>
-     * The meaning of the parameters is dependent on the event type itself. In some cases, none of
-     * the parameters are used.
+     * C++ callback function.
+     */
+    void eventsOccurred() {
+        final int eventCount = eventBuffer.getEventCount();
+        int textOffset = 0;
+        for (int event = 0; event < eventCount; event++) {
+            final int textLength = eventBuffer.getTextLength(event);
+            String text = null;
+            if (textLength >= 0) {
+                text = eventBuffer.getText(textOffset, textLength, CHARACTER_SET);
+                textOffset += textLength;
+            }
+            eventOccurred(eventBuffer.getType(event), eventBuffer.getParam1(event),
+                    eventBuffer.getParam2(event), text);
+        }
+    }
+
+    /**
+     * Sends a BWAPI event to the event listener.
      *
      * <p>
-     * C++ callback function.
+     * The meaning of the parameters is dependent on the event type itself. In some cases, none of
+     * the parameters are used.
      *
      * @param eventTypeId
      *            id of the event that occurred
@@ -1592,6 +2482,9 @@ public class Broodwar {
 
             case MATCH_FRAME :
                 listener.matchFrame();
+                keysPressed();
+                flushFrameCommands();
+                drawDisplayLists();
                 break;
 
             case MENU_FRAME :
@@ -1693,24 +2586,37 @@ public class Broodwar {
         PLAYER_DROPPED,
         NONE;
 
+        private static final EventType[] EVENT_TYPES = values();
+
         public static EventType getEventType(final int id) {
-            return EventType.values()[id];
+            return EVENT_TYPES[id];
         }
     }
 
     /**
-     * Notifies the event listener that a key was pressed.
+     * Notifies the event listener that a key was pressed. Only invoked by legacy bridges, which
+     * do not write the {@link KeyStateBuffer}.
      *
      * <p>
      * C++ callback function.
      *
      * @param keyCode
-     *            key pressed by the user
+     *            the key code of the key
      */
     void keyPressed(final int keyCode) {
         listener.keyPressed(keyCode);
     }
 
+    /**
+     * Notifies the event listener of every key that was pressed since the previous frame.
+     */
+    private void keysPressed() {
+        for (int keyCode = keyStateBuffer.nextPressedKey(0); keyCode != -1; keyCode =
+                keyStateBuffer.nextPressedKey(keyCode + 1)) {
+            listener.keyPressed(keyCode);
+        }
+    }
+
     /**
      * Utility function for printing to the java console from C++.
      *
@@ -1722,10 +2628,19 @@ public class Broodwar {
         System.out.println("Bridge: " + msg);
     }
 
+    /**
+     * The entry point of legacy bridges, which invoke the callbacks for every event and pressed
+     * key and do not write any of the buffers.
+     */
     private native void nativeConnect(final Broodwar broodwar);
 
+    private native void nativeConnectBuffers(final Broodwar broodwar, final ByteBuffer unitBuffer,
+            final ByteBuffer eventBuffer, final ByteBuffer keyStateBuffer);
+
     private native void nativeEnableUserInput();
 
+    private native void flushCommandBuffer(final ByteBuffer commandBuffer);
+
     private native void nativeEnablePerfectInformation();
 
     // *********************************************************************************************
@@ -1736,6 +2651,10 @@ public class Broodwar {
 
     private native int[] getAllUnitsData();
 
+    private native void fillUnitBuffer();
+
+    private native void fillUnitBufferDelta(final boolean reset);
+
     private native int[] getPlayerUpdate(final int playerId);
 
     private native byte[] getPlayerName(final int playerId);
@@ -1744,6 +2663,8 @@ public class Broodwar {
 
     private native int[] getUpgradeStatus(final int playerId);
 
+    private native int getRevision();
+
     private native int[] getRaceTypes();
 
     private native String getRaceTypeName(final int unitTypeId);
@@ -0,0 +1,207 @@
+package com.harbinger.jbw;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Long-lived block of direct memory that the bridge writes the creep and psi power of every build
+ * tile into.
+ *
+ * <p>
+ * The buffer holds a {@link TileBitmap bit field} for each layer, followed by a list of the words
+ * that changed during the latest update:
+ *
+ * <pre>
+ * [creep][power 1]...[power n] [change count][change 1]...[change n]
+ * </pre>
+ *
+ * <p>
+ * Each layer is computed and transferred by the bridge separately, and only when its snapshot is
+ * first {@link #get(int) requested} during a frame. The bridge keeps the bit field of the layer
+ * in the buffer up to date and only lists the words that differ from what the buffer already
+ * held, each identified by its index from the start of the first layer. Creep spreads and recedes
+ * slowly and power only changes when a Pylon is completed or destroyed, so usually only a few
+ * words have to be copied into the Java snapshots.
+ *
+ * <p>
+ * Psi power depends on the size of the building, so there is a power layer for each of the
+ * {@link #POWER_SIZES sizes} of Protoss buildings that require power. Bit (x, y) of a power layer
+ * is set if a building of that size placed with its top-left tile at (x, y) would be powered.
+ *
+ * <p>
+ * The {@link #put(int, int, long)} method acts as a stand-in for the bridge, which allows the
+ * buffer to be used without the game.
+ */
+class BuildTileBuffer {
+
+    /** The layer holding the creep */
+    static final int CREEP = 0;
+
+    /** The width and height, in build tiles, of the buildings of each power layer */
+    static final int[][] POWER_SIZES = { { 2, 2 }, { 3, 2 }, { 4, 3 } };
+
+    /** The number of layers */
+    static final int LAYER_COUNT = 1 + POWER_SIZES.length;
+
+    private final ByteBuffer buffer;
+    private final LongBuffer data;
+    private final ObjIntConsumer<ByteBuffer> bridge;
+
+    private final TileBitmap[] layers = new TileBitmap[LAYER_COUNT];
+    private final boolean[] current = new boolean[LAYER_COUNT];
+    private int wordCount;
+
+    /**
+     * Constructs a buffer large enough for a map of the maximum size, which is only filled by
+     * {@link #put(int, int, long)}.
+     *
+     * @param maxWidth
+     *            the maximum width of a map, in build tiles
+     *
+     * @param maxHeight
+     *            the maximum height of a map, in build tiles
+     */
+    BuildTileBuffer(final int maxWidth, final int maxHeight) {
+        this(maxWidth, maxHeight, null);
+    }
+
+    /**
+     * Constructs a buffer large enough for a map of the maximum size.
+     *
+     * @param maxWidth
+     *            the maximum width of a map, in build tiles
+     *
+     * @param maxHeight
+     *            the maximum height of a map, in build tiles
+     *
+     * @param bridge
+     *            writes a single layer and its changes into the buffer, just as
+     *            {@link #put(int, int, long)} would; null if the buffer is only filled by
+     *            {@link #put(int, int, long)}
+     */
+    BuildTileBuffer(final int maxWidth, final int maxHeight,
+            final ObjIntConsumer<ByteBuffer> bridge) {
+        final int capacity = (2 * LAYER_COUNT * TileBitmap.getWordCount(maxWidth, maxHeight)) + 1;
+        buffer = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+        data = buffer.asLongBuffer();
+        this.bridge = bridge;
+        for (int i = 0; i < LAYER_COUNT; i++) {
+            layers[i] = new TileBitmap(0, 0);
+        }
+    }
+
+    /**
+     * @return the direct buffer that is passed to the bridge when updating
+     */
+    ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Clears the buffer and the snapshots for a new map.
+     *
+     * @param width
+     *            the width of the map, in build tiles
+     *
+     * @param height
+     *            the height of the map, in build tiles
+     */
+    void reset(final int width, final int height) {
+        wordCount = TileBitmap.getWordCount(width, height);
+        for (int i = 0; i < data.capacity(); i++) {
+            data.put(i, 0);
+        }
+        for (int i = 0; i < LAYER_COUNT; i++) {
+            layers[i] = new TileBitmap(width, height);
+        }
+        invalidate();
+    }
+
+    /**
+     * Marks the snapshots as out of date at the start of a frame, so that each layer is
+     * transferred from the bridge again the next time it is requested.
+     */
+    void invalidate() {
+        Arrays.fill(current, false);
+    }
+
+    /**
+     * Copies the words that changed during the latest update into the snapshots.
+     */
+    void update() {
+        final int changeIndex = getChangeIndex();
+        final int changeCount = (int) data.get(changeIndex);
+        for (int i = 1; i <= changeCount; i++) {
+            final int index = (int) data.get(changeIndex + i);
+            layers[index / wordCount].setWord(index % wordCount, data.get(index));
+        }
+        data.put(changeIndex, 0);
+    }
+
+    private int getChangeIndex() {
+        return LAYER_COUNT * wordCount;
+    }
+
+    /**
+     * Provides the snapshot of a layer, transferring the layer from the bridge first if it has not
+     * been transferred since the buffer was {@link #invalidate() invalidated}.
+     *
+     * @param layer
+     *            the layer, either {@link #CREEP} or a power layer
+     *
+     * @return the snapshot of the layer
+     */
+    TileBitmap get(final int layer) {
+        if ((bridge != null) && (wordCount > 0) && !current[layer]) {
+            bridge.accept(buffer, layer);
+            update();
+            current[layer] = true;
+        }
+        return layers[layer];
+    }
+
+    /**
+     * @param unitType
+     *            the type of building
+     *
+     * @return the power layer for buildings of the size of the type; -1 if there is no such layer
+     */
+    static int getPowerLayer(final UnitType unitType) {
+        for (int i = 0; i < POWER_SIZES.length; i++) {
+            if ((POWER_SIZES[i][0] == unitType.getTileWidth())
+                    && (POWER_SIZES[i][1] == unitType.getTileHeight())) {
+                return 1 + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a word of a layer and lists it as changed, just as the bridge would.
+     *
+     * @param layer
+     *            the layer of the word
+     *
+     * @param index
+     *            the index of the word within the layer
+     *
+     * @param word
+     *            the new value of the word
+     */
+    void put(final int layer, final int index, final long word) {
+        final int bufferIndex = (layer * wordCount) + index;
+        if (data.get(bufferIndex) == word) {
+            return;
+        }
+        data.put(bufferIndex, word);
+        final int changeIndex = getChangeIndex();
+        final int changeCount = (int) data.get(changeIndex) + 1;
+        data.put(changeIndex + changeCount, bufferIndex);
+        data.put(changeIndex, changeCount);
+    }
+}
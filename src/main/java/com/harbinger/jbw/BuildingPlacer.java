@@ -0,0 +1,335 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.BUILD;
+
+import com.harbinger.jbw.Type.Race;
+import com.harbinger.jbw.Type.UnitType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Determines where buildings can be placed without making a call to the bridge for every tile.
+ *
+ * <p>
+ * The placer combines the static buildability of the {@link GameMap}, the footprints of the units
+ * on the ground, and the {@link Broodwar#getCreepTiles() creep} and
+ * {@link Broodwar#getPoweredTiles(UnitType) psi power} of the current frame. The footprints are
+ * kept in an occupancy grid that holds the number of units covering each build tile. Every update
+ * only changes the tiles of the units that moved, appeared or disappeared since the previous update.
+ *
+ * <p>
+ * The rules follow those of BWAPI: every tile of the building must be buildable and free of other
+ * ground units; buildings that require creep must be placed entirely on creep, while other
+ * non-Zerg buildings cannot be placed on creep; buildings that require psi must be powered;
+ * resource depots cannot be placed within three tiles of a resource; and refineries must be placed
+ * on a Vespene Geyser. Unlike {@link Broodwar#canBuildHere(Position, UnitType, boolean)}, the
+ * placer does not check whether the tiles have been explored.
+ */
+public class BuildingPlacer {
+
+    /** The number of build tiles around a resource within which resource depots cannot be placed */
+    static final int RESOURCE_MARGIN = 3;
+
+    private final int width;
+    private final int height;
+    private final boolean[] buildable;
+    private final int[] occupancy;
+    private final int[] resourceMargin;
+
+    // the footprint applied to the grids for each unit ID, in build tiles (right/bottom exclusive)
+    private final int[] footprintLeft = new int[UnitDataBuffer.MAX_UNITS];
+    private final int[] footprintTop = new int[UnitDataBuffer.MAX_UNITS];
+    private final int[] footprintRight = new int[UnitDataBuffer.MAX_UNITS];
+    private final int[] footprintBottom = new int[UnitDataBuffer.MAX_UNITS];
+    private final boolean[] footprintResource = new boolean[UnitDataBuffer.MAX_UNITS];
+    private final int[] footprintStamp = new int[UnitDataBuffer.MAX_UNITS];
+    private int[] trackedIds = new int[256];
+    private int trackedCount;
+    private int stamp;
+
+    private final List<Unit> geysers = new ArrayList<>();
+    private BuildTileBuffer buildTiles;
+
+    /**
+     * Constructs a placer for a map without any units.
+     *
+     * @param map
+     *            the map of the current match
+     */
+    BuildingPlacer(final GameMap map) {
+        width = map.getSize().getX(BUILD);
+        height = map.getSize().getY(BUILD);
+        buildable = new boolean[width * height];
+        occupancy = new int[width * height];
+        resourceMargin = new int[width * height];
+        for (int ty = 0; ty < height; ty++) {
+            for (int tx = 0; tx < width; tx++) {
+                buildable[tx + (width * ty)] = map.isBuildable(new Position(tx, ty, BUILD));
+            }
+        }
+    }
+
+    /**
+     * Applies the changes to the footprints of the units since the previous update.
+     *
+     * @param units
+     *            all accessible units
+     *
+     * @param buildTileBuffer
+     *            the creep and power of the current frame
+     */
+    void update(final List<Unit> units, final BuildTileBuffer buildTileBuffer) {
+        buildTiles = buildTileBuffer;
+        geysers.clear();
+        stamp++;
+
+        for (final Unit unit : units) {
+            final UnitType type = unit.getType();
+            if (type == UnitType.Resource_Vespene_Geyser) {
+                geysers.add(unit);
+            }
+
+            final int id = unit.getId();
+            if (type.isFlyer() || unit.isLifted() || unit.isLoaded()) {
+                continue;
+            }
+            final int left = Math.max(unit.getLeft() / 32, 0);
+            final int top = Math.max(unit.getTop() / 32, 0);
+            final int right = Math.min((unit.getRight() / 32) + 1, width);
+            final int bottom = Math.min((unit.getBottom() / 32) + 1, height);
+            final boolean resource = type.isResourceContainer();
+            if (footprintStamp[id] == 0) {
+                track(id);
+            } else if ((footprintLeft[id] != left) || (footprintTop[id] != top)
+                    || (footprintRight[id] != right) || (footprintBottom[id] != bottom)
+                    || (footprintResource[id] != resource)) {
+                applyFootprint(id, -1);
+            } else {
+                footprintStamp[id] = stamp;
+                continue;
+            }
+            footprintLeft[id] = left;
+            footprintTop[id] = top;
+            footprintRight[id] = right;
+            footprintBottom[id] = bottom;
+            footprintResource[id] = resource;
+            footprintStamp[id] = stamp;
+            applyFootprint(id, 1);
+        }
+
+        // remove the footprints of the units that were not on the ground during this update
+        for (int i = 0; i < trackedCount;) {
+            final int id = trackedIds[i];
+            if (footprintStamp[id] != stamp) {
+                applyFootprint(id, -1);
+                footprintStamp[id] = 0;
+                trackedIds[i] = trackedIds[--trackedCount];
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void track(final int id) {
+        if (trackedCount == trackedIds.length) {
+            trackedIds = Arrays.copyOf(trackedIds, trackedCount * 2);
+        }
+        trackedIds[trackedCount++] = id;
+    }
+
+    private void applyFootprint(final int id, final int delta) {
+        addRectangle(occupancy, footprintLeft[id], footprintTop[id], footprintRight[id],
+                footprintBottom[id], delta);
+        if (footprintResource[id]) {
+            addRectangle(resourceMargin, footprintLeft[id] - RESOURCE_MARGIN, footprintTop[id]
+                    - RESOURCE_MARGIN, footprintRight[id] + RESOURCE_MARGIN, footprintBottom[id]
+                    + RESOURCE_MARGIN, delta);
+        }
+    }
+
+    private void addRectangle(final int[] grid, final int left, final int top, final int right,
+            final int bottom, final int delta) {
+        final int clippedLeft = Math.max(left, 0);
+        final int clippedRight = Math.min(right, width);
+        for (int ty = Math.max(top, 0); ty < Math.min(bottom, height); ty++) {
+            for (int tx = clippedLeft; tx < clippedRight; tx++) {
+                grid[tx + (width * ty)] += delta;
+            }
+        }
+    }
+
+    /**
+     * @param position
+     *            the build tile to check
+     *
+     * @return the number of ground units covering the build tile
+     */
+    public int getOccupancy(final Position position) {
+        final int tx = position.getX(BUILD);
+        final int ty = position.getY(BUILD);
+        if ((tx < 0) || (ty < 0) || (tx >= width) || (ty >= height)) {
+            return 0;
+        }
+        return occupancy[tx + (width * ty)];
+    }
+
+    /**
+     * Indicates if a building can be placed with its top-left tile at the position.
+     *
+     * @param unitType
+     *            the type of building
+     *
+     * @param position
+     *            the top-left build tile of the building
+     *
+     * @param builder
+     *            the unit that will build the building, which does not block the placement; null
+     *            if there is no such unit
+     *
+     * @return true if the building can be placed at the position; false otherwise
+     */
+    public boolean canBuildHere(final UnitType unitType, final Position position,
+            final Unit builder) {
+        return !getPlacements(unitType, position, 0, builder).isEmpty();
+    }
+
+    /**
+     * Finds all positions at which a building can be placed within a radius, using a single pass
+     * over the tiles around the center.
+     *
+     * @param unitType
+     *            the type of building
+     *
+     * @param center
+     *            the center of the search
+     *
+     * @param radius
+     *            the maximum distance of the top-left tile of the building from the center, in
+     *            build tiles
+     *
+     * @param builder
+     *            the unit that will build the building, which does not block the placement; null
+     *            if there is no such unit
+     *
+     * @return the top-left build tiles at which the building can be placed, ordered by their
+     *         distance from the center
+     */
+    public List<Position> getPlacements(final UnitType unitType, final Position center,
+            final int radius, final Unit builder) {
+        final int centerX = center.getX(BUILD);
+        final int centerY = center.getY(BUILD);
+        final List<Position> placements = new ArrayList<>();
+        if (unitType.isRefinery()) {
+            for (final Unit geyser : geysers) {
+                final int tx = geyser.getLeft() / 32;
+                final int ty = geyser.getTop() / 32;
+                if (isWithin(tx - centerX, ty - centerY, radius)) {
+                    placements.add(new Position(tx, ty, BUILD));
+                }
+            }
+            sortByDistance(placements, centerX, centerY);
+            return placements;
+        }
+
+        final int tileWidth = unitType.getTileWidth();
+        final int tileHeight = unitType.getTileHeight();
+        final int left = Math.max(centerX - radius, 0);
+        final int top = Math.max(centerY - radius, 0);
+        final int right = Math.min(centerX + radius + tileWidth, width);
+        final int bottom = Math.min(centerY + radius + tileHeight, height);
+        if ((right - left < tileWidth) || (bottom - top < tileHeight)) {
+            return placements;
+        }
+
+        // count the blocked tiles of the window with a summed-area table, so that each candidate
+        // placement is checked in constant time regardless of the size of the building
+        final int windowWidth = right - left;
+        final int stride = windowWidth + 1;
+        final int[] blocked = new int[stride * ((bottom - top) + 1)];
+        for (int ty = top; ty < bottom; ty++) {
+            int rowSum = 0;
+            for (int tx = left; tx < right; tx++) {
+                if (isBlocked(unitType, tx, ty, builder)) {
+                    rowSum++;
+                }
+                blocked[(tx - left + 1) + (stride * (ty - top + 1))] = rowSum
+                        + blocked[(tx - left + 1) + (stride * (ty - top))];
+            }
+        }
+
+        final int layer = unitType.isRequiresPsi() ? BuildTileBuffer.getPowerLayer(unitType) : -1;
+        final TileBitmap powered = (layer != -1) ? buildTiles.get(layer) : null;
+        for (int ty = top; ty <= (bottom - tileHeight); ty++) {
+            for (int tx = left; tx <= (right - tileWidth); tx++) {
+                if (!isWithin(tx - centerX, ty - centerY, radius)) {
+                    continue;
+                }
+                final int x0 = tx - left;
+                final int y0 = ty - top;
+                final int count = blocked[(x0 + tileWidth) + (stride * (y0 + tileHeight))]
+                        - blocked[x0 + (stride * (y0 + tileHeight))]
+                        - blocked[(x0 + tileWidth) + (stride * y0)] + blocked[x0 + (stride * y0)];
+                if ((count == 0) && (!unitType.isRequiresPsi() || ((powered != null)
+                        && powered.get(tx, ty)))) {
+                    placements.add(new Position(tx, ty, BUILD));
+                }
+            }
+        }
+        sortByDistance(placements, centerX, centerY);
+        return placements;
+    }
+
+    private boolean isBlocked(final UnitType unitType, final int tx, final int ty,
+            final Unit builder) {
+        final int index = tx + (width * ty);
+        if (!buildable[index]) {
+            return true;
+        }
+        int units = occupancy[index];
+        if ((builder != null) && covers(builder.getId(), tx, ty)) {
+            units--;
+        }
+        if (units > 0) {
+            return true;
+        }
+        if (isResourceDepot(unitType) && (resourceMargin[index] > 0)) {
+            return true;
+        }
+        final boolean creep = (buildTiles != null)
+                && buildTiles.get(BuildTileBuffer.CREEP).get(tx, ty);
+        if (unitType.isRequiresCreep()) {
+            return !creep;
+        }
+        return creep && (unitType.getRaceId() != Race.ZERG.getId());
+    }
+
+    private boolean covers(final int id, final int tx, final int ty) {
+        return (footprintStamp[id] != 0) && (tx >= footprintLeft[id]) && (tx < footprintRight[id])
+                && (ty >= footprintTop[id]) && (ty < footprintBottom[id]);
+    }
+
+    private static boolean isResourceDepot(final UnitType unitType) {
+        return (unitType == UnitType.Terran_Command_Center) || (unitType == UnitType.Zerg_Hatchery)
+                || (unitType == UnitType.Protoss_Nexus);
+    }
+
+    private static boolean isWithin(final int dx, final int dy, final int radius) {
+        return ((dx * dx) + (dy * dy)) <= (radius * radius);
+    }
+
+    private static void sortByDistance(final List<Position> positions, final int centerX,
+            final int centerY) {
+        Collections.sort(positions, (p1, p2) -> Integer.compare(getDistanceSquared(p1, centerX,
+                centerY), getDistanceSquared(p2, centerX, centerY)));
+    }
+
+    private static int getDistanceSquared(final Position position, final int centerX,
+            final int centerY) {
+        final int dx = position.getX(BUILD) - centerX;
+        final int dy = position.getY(BUILD) - centerY;
+        return (dx * dx) + (dy * dy);
+    }
+}
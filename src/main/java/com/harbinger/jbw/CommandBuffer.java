@@ -0,0 +1,166 @@
+package com.harbinger.jbw;
+
+import com.harbinger.jbw.Type.Command;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Long-lived block of direct memory that queues unit commands until they are flushed to the bridge.
+ *
+ * <p>
+ * Commands are appended to the buffer as they are issued and the bridge issues all of them in a
+ * single call, instead of making a separate JNI call for every command. The bridge then writes the
+ * result of each command back into the buffer. The layout of the buffer is:
+ *
+ * <pre>
+ * [command count][command 1]...[command n] ... [result 1]...[result n]
+ * </pre>
+ *
+ * <p>
+ * Each command occupies {@link #COMMAND_SIZE} integers: the {@link Command command type}, the ID of
+ * the unit, the ID of the target unit (-1 if there is none), the target x and y coordinates, and
+ * an extra value such as the ID of the type to build or train. The results follow the space
+ * reserved for the maximum number of commands, with one integer per command that is 1 if the
+ * command was successfully issued.
+ */
+class CommandBuffer {
+
+    /** The number of integers preceding the commands */
+    static final int HEADER_SIZE = 1;
+
+    /** The number of integers used by each command */
+    static final int COMMAND_SIZE = 6;
+
+    /** The maximum number of commands that can be queued before they must be flushed */
+    static final int MAX_COMMANDS = 2048;
+
+    private static final int RESULT_INDEX = HEADER_SIZE + (MAX_COMMANDS * COMMAND_SIZE);
+
+    private final ByteBuffer buffer;
+    private final IntBuffer data;
+
+    private int flushedCount;
+
+    /**
+     * Constructs a buffer large enough to hold the maximum number of commands and their results.
+     */
+    CommandBuffer() {
+        final int capacity = RESULT_INDEX + MAX_COMMANDS;
+        buffer = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder());
+        data = buffer.asIntBuffer();
+    }
+
+    /**
+     * @return the direct buffer that is passed to the bridge when flushing
+     */
+    ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the number of commands queued since the last flush
+     */
+    int getCommandCount() {
+        return data.get(0);
+    }
+
+    /**
+     * @return true if no more commands can be queued until the buffer is flushed; false otherwise
+     */
+    boolean isFull() {
+        return getCommandCount() == MAX_COMMANDS;
+    }
+
+    /**
+     * Appends a command to the buffer.
+     *
+     * @return the position of the command within the buffer
+     *
+     * @throws IllegalStateException
+     *             thrown if the buffer is already full
+     */
+    int put(final Command type, final int unitId, final int targetId, final int x, final int y,
+            final int extra) throws IllegalStateException {
+        final int count = getCommandCount();
+        if (count == MAX_COMMANDS) {
+            throw new IllegalStateException("command buffer is full");
+        }
+
+        int index = HEADER_SIZE + (count * COMMAND_SIZE);
+        data.put(index++, type.getId());
+        data.put(index++, unitId);
+        data.put(index++, targetId);
+        data.put(index++, x);
+        data.put(index++, y);
+        data.put(index, extra);
+        data.put(0, count + 1);
+        return count;
+    }
+
+    /**
+     * @param command
+     *            the position of the command within the buffer
+     *
+     * @return the ID of the type of the command
+     */
+    int getType(final int command) {
+        return data.get(HEADER_SIZE + (command * COMMAND_SIZE));
+    }
+
+    /**
+     * @param command
+     *            the position of the command within the buffer
+     *
+     * @return the ID of the unit the command was issued to
+     */
+    int getUnitId(final int command) {
+        return data.get(HEADER_SIZE + (command * COMMAND_SIZE) + 1);
+    }
+
+    /**
+     * Marks the queued commands as flushed and empties the queue. Must be invoked after the bridge
+     * has issued the commands and written their results.
+     */
+    void flushed() {
+        flushedCount = getCommandCount();
+        data.put(0, 0);
+    }
+
+    /**
+     * @return the number of commands issued by the last flush
+     */
+    int getFlushedCount() {
+        return flushedCount;
+    }
+
+    /**
+     * @param command
+     *            the position of the command within the last flush
+     *
+     * @return true if the command was successfully issued; false otherwise
+     *
+     * @throws IndexOutOfBoundsException
+     *             thrown if the command was not part of the last flush
+     */
+    boolean getResult(final int command) throws IndexOutOfBoundsException {
+        if ((command < 0) || (command >= flushedCount)) {
+            throw new IndexOutOfBoundsException("command " + command + " was not flushed");
+        }
+        return data.get(RESULT_INDEX + command) == 1;
+    }
+
+    /**
+     * Writes the result of a command, just as the bridge would.
+     *
+     * @param command
+     *            the position of the command within the buffer
+     *
+     * @param result
+     *            true if the command was successfully issued; false otherwise
+     */
+    void putResult(final int command, final boolean result) {
+        data.put(RESULT_INDEX + command, result ? 1 : 0);
+    }
+}
@@ -0,0 +1,734 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.PIXEL;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A list of shapes and text that is drawn by the bridge in a single call.
+ *
+ * <p>
+ * Each draw method of {@link Broodwar} makes a separate JNI call, and everything it draws only
+ * lasts for a single frame. A display list instead records the shapes into a block of direct
+ * memory, which the bridge draws in one call per frame. The {@link Broodwar#getDisplayList()
+ * frame display list} is cleared after it is drawn, so it is filled again every frame. Display
+ * lists that are {@link Broodwar#addDisplayList(DisplayList) added} to the game are retained: they
+ * are drawn every frame until they are removed, and only need to be recorded again when the
+ * overlay they represent changes.
+ *
+ * <p>
+ * The list holds a block of integers and a separate block of text:
+ *
+ * <pre>
+ * [shape count][text size][shape 1]...[shape n]    [text of all shapes]
+ * </pre>
+ *
+ * <p>
+ * Each shape occupies {@link #SHAPE_SIZE} integers: the shape type, the shape flags, two pairs of
+ * coordinates, the color, and the length of its text in bytes. Lines use the coordinates as their
+ * endpoints, rectangles as their top-left and bottom-right corners, ellipses as their center and
+ * radii, and text only uses the first pair. The text of the shapes is stored back to back in the
+ * order of the shapes. Both blocks grow as shapes are recorded.
+ */
+public final class DisplayList {
+
+    /** The number of integers preceding the shapes */
+    static final int HEADER_SIZE = 2;
+
+    /** The number of integers used by each shape */
+    static final int SHAPE_SIZE = 8;
+
+    /** The shape type of text */
+    static final int TEXT = 0;
+
+    /** The shape type of a line */
+    static final int LINE = 1;
+
+    /** The shape type of a rectangle */
+    static final int RECTANGLE = 2;
+
+    /** The shape type of an ellipse */
+    static final int ELLIPSE = 3;
+
+    /** The flag set for shapes drawn in screen coordinates rather than map coordinates */
+    static final int SCREEN = 1;
+
+    /** The flag set for shapes that are filled */
+    static final int FILL = 2;
+
+    private static final Charset CHARACTER_SET = StandardCharsets.UTF_8;
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int DEFAULT_TEXT_CAPACITY = 4096;
+
+    private ByteBuffer shapeBuffer;
+    private IntBuffer data;
+    private ByteBuffer textBuffer;
+
+    /**
+     * Constructs an empty display list.
+     */
+    public DisplayList() {
+        shapeBuffer = allocate((HEADER_SIZE + (DEFAULT_CAPACITY * SHAPE_SIZE)) * Integer.BYTES);
+        data = shapeBuffer.asIntBuffer();
+        textBuffer = allocate(DEFAULT_TEXT_CAPACITY);
+    }
+
+    private static ByteBuffer allocate(final int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return the direct buffer holding the shapes, which is passed to the bridge
+     */
+    ByteBuffer getShapeBuffer() {
+        return shapeBuffer;
+    }
+
+    /**
+     * @return the direct buffer holding the text of the shapes, which is passed to the bridge
+     */
+    ByteBuffer getTextBuffer() {
+        return textBuffer;
+    }
+
+    /**
+     * @return the number of shapes in the list
+     */
+    public int size() {
+        return data.get(0);
+    }
+
+    /**
+     * @return true if the list contains no shapes; false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all shapes from the list.
+     */
+    public void clear() {
+        data.put(0, 0);
+        data.put(1, 0);
+    }
+
+    /**
+     * @return the number of bytes of text in the list
+     */
+    int getTextSize() {
+        return data.get(1);
+    }
+
+    /**
+     * @param shape
+     *            the position of the shape within the list
+     *
+     * @return the type of the shape
+     */
+    int getType(final int shape) {
+        return data.get(getShapeIndex(shape));
+    }
+
+    /**
+     * @param shape
+     *            the position of the shape within the list
+     *
+     * @return the flags of the shape
+     */
+    int getFlags(final int shape) {
+        return data.get(getShapeIndex(shape) + 1);
+    }
+
+    /**
+     * @param shape
+     *            the position of the shape within the list
+     *
+     * @param coordinate
+     *            the position of the coordinate within the shape, from 0 (x1) to 3 (y2)
+     *
+     * @return the coordinate of the shape
+     */
+    int getCoordinate(final int shape, final int coordinate) {
+        return data.get(getShapeIndex(shape) + 2 + coordinate);
+    }
+
+    /**
+     * @param shape
+     *            the position of the shape within the list
+     *
+     * @return the ID of the color of the shape
+     */
+    int getColor(final int shape) {
+        return data.get(getShapeIndex(shape) + 6);
+    }
+
+    /**
+     * @param shape
+     *            the position of the shape within the list
+     *
+     * @return the length of the text of the shape in bytes; 0 if the shape is not text
+     */
+    int getTextLength(final int shape) {
+        return data.get(getShapeIndex(shape) + 7);
+    }
+
+    /**
+     * Decodes text stored in the list.
+     *
+     * @param offset
+     *            the offset of the text, in bytes, from the start of the text of all shapes
+     *
+     * @param length
+     *            the length of the text in bytes
+     *
+     * @return the decoded text
+     */
+    String getText(final int offset, final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = textBuffer.get(offset + i);
+        }
+        return new String(bytes, CHARACTER_SET);
+    }
+
+    private static int getShapeIndex(final int shape) {
+        return HEADER_SIZE + (shape * SHAPE_SIZE);
+    }
+
+    /**
+     * Records text on the map.
+     *
+     * @param position
+     *            the starting position of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     */
+    public void drawTextMap(final Position position, final String text) {
+        drawTextMap(position.getX(PIXEL), position.getY(PIXEL), text);
+    }
+
+    /**
+     * Records text on the map.
+     *
+     * @param x
+     *            the starting x-axis coordinate of the text, in pixels
+     *
+     * @param y
+     *            the starting y-axis coordinate of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     */
+    public void drawTextMap(final int x, final int y, final String text) {
+        putText(0, x, y, text);
+    }
+
+    /**
+     * Records colored text on the map.
+     *
+     * @param position
+     *            the starting position of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     *
+     * @param color
+     *            the color of the text
+     */
+    public void drawTextMap(final Position position, final String text, final BWColor color) {
+        drawTextMap(position.getX(PIXEL), position.getY(PIXEL), text, color);
+    }
+
+    /**
+     * Records colored text on the map.
+     *
+     * @param x
+     *            the starting x-axis coordinate of the text, in pixels
+     *
+     * @param y
+     *            the starting y-axis coordinate of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     *
+     * @param color
+     *            the color of the text
+     */
+    public void drawTextMap(final int x, final int y, final String text, final BWColor color) {
+        putText(0, x, y, color.getControlCharacters() + text);
+    }
+
+    /**
+     * Records text on the screen.
+     *
+     * @param position
+     *            the starting position of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     */
+    public void drawTextScreen(final Position position, final String text) {
+        drawTextScreen(position.getX(PIXEL), position.getY(PIXEL), text);
+    }
+
+    /**
+     * Records text on the screen.
+     *
+     * @param x
+     *            the starting x-axis coordinate of the text, in pixels
+     *
+     * @param y
+     *            the starting y-axis coordinate of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     */
+    public void drawTextScreen(final int x, final int y, final String text) {
+        putText(SCREEN, x, y, text);
+    }
+
+    /**
+     * Records colored text on the screen.
+     *
+     * @param position
+     *            the starting position of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     *
+     * @param color
+     *            the color of the text
+     */
+    public void drawTextScreen(final Position position, final String text, final BWColor color) {
+        drawTextScreen(position.getX(PIXEL), position.getY(PIXEL), text, color);
+    }
+
+    /**
+     * Records colored text on the screen.
+     *
+     * @param x
+     *            the starting x-axis coordinate of the text, in pixels
+     *
+     * @param y
+     *            the starting y-axis coordinate of the text, in pixels
+     *
+     * @param text
+     *            the text to be drawn
+     *
+     * @param color
+     *            the color of the text
+     */
+    public void drawTextScreen(final int x, final int y, final String text, final BWColor color) {
+        putText(SCREEN, x, y, color.getControlCharacters() + text);
+    }
+
+    /**
+     * Records a line on the map.
+     *
+     * @param p1
+     *            the starting position of the line, in pixels
+     *
+     * @param p2
+     *            the ending position of the line, in pixels
+     *
+     * @param color
+     *            the color of the line
+     */
+    public void drawLineMap(final Position p1, final Position p2, final BWColor color) {
+        drawLineMap(p1.getX(PIXEL), p1.getY(PIXEL), p2.getX(PIXEL), p2.getY(PIXEL), color);
+    }
+
+    /**
+     * Records a line on the map.
+     *
+     * @param x1
+     *            the starting x-axis coordinate of the line, in pixels
+     *
+     * @param y1
+     *            the starting y-axis coordinate of the line, in pixels
+     *
+     * @param x2
+     *            the ending x-axis coordinate of the line, in pixels
+     *
+     * @param y2
+     *            the ending y-axis coordinate of the line, in pixels
+     *
+     * @param color
+     *            the color of the line
+     */
+    public void drawLineMap(final int x1, final int y1, final int x2, final int y2,
+            final BWColor color) {
+        putShape(LINE, 0, x1, y1, x2, y2, color.getId(), 0);
+    }
+
+    /**
+     * Records a line on the screen.
+     *
+     * @param p1
+     *            the starting position of the line, in pixels
+     *
+     * @param p2
+     *            the ending position of the line, in pixels
+     *
+     * @param color
+     *            the color of the line
+     */
+    public void drawLineScreen(final Position p1, final Position p2, final BWColor color) {
+        drawLineScreen(p1.getX(PIXEL), p1.getY(PIXEL), p2.getX(PIXEL), p2.getY(PIXEL), color);
+    }
+
+    /**
+     * Records a line on the screen.
+     *
+     * @param x1
+     *            the starting x-axis coordinate of the line, in pixels
+     *
+     * @param y1
+     *            the starting y-axis coordinate of the line, in pixels
+     *
+     * @param x2
+     *            the ending x-axis coordinate of the line, in pixels
+     *
+     * @param y2
+     *            the ending y-axis coordinate of the line, in pixels
+     *
+     * @param color
+     *            the color of the line
+     */
+    public void drawLineScreen(final int x1, final int y1, final int x2, final int y2,
+            final BWColor color) {
+        putShape(LINE, SCREEN, x1, y1, x2, y2, color.getId(), 0);
+    }
+
+    /**
+     * Records a rectangle on the map.
+     *
+     * @param position
+     *            the top-left position of the rectangle, in pixels
+     *
+     * @param width
+     *            the width of the rectangle, in pixels
+     *
+     * @param height
+     *            the height of the rectangle, in pixels
+     *
+     * @param color
+     *            the color of the rectangle
+     *
+     * @param fill
+     *            true if the rectangle should be filled; false otherwise
+     */
+    public void drawRectangleMap(final Position position, final int width, final int height,
+            final BWColor color, final boolean fill) {
+        drawRectangleMap(position.getX(PIXEL), position.getY(PIXEL), width, height, color, fill);
+    }
+
+    /**
+     * Records a rectangle on the map.
+     *
+     * @param x
+     *            the top-left x-axis coordinate of the rectangle, in pixels
+     *
+     * @param y
+     *            the top-left y-axis coordinate of the rectangle, in pixels
+     *
+     * @param width
+     *            the width of the rectangle, in pixels
+     *
+     * @param height
+     *            the height of the rectangle, in pixels
+     *
+     * @param color
+     *            the color of the rectangle
+     *
+     * @param fill
+     *            true if the rectangle should be filled; false otherwise
+     */
+    public void drawRectangleMap(final int x, final int y, final int width, final int height,
+            final BWColor color, final boolean fill) {
+        putShape(RECTANGLE, fill ? FILL : 0, x, y, x + width, y + height, color.getId(), 0);
+    }
+
+    /**
+     * Records a rectangle on the screen.
+     *
+     * @param position
+     *            the top-left position of the rectangle, in pixels
+     *
+     * @param width
+     *            the width of the rectangle, in pixels
+     *
+     * @param height
+     *            the height of the rectangle, in pixels
+     *
+     * @param color
+     *            the color of the rectangle
+     *
+     * @param fill
+     *            true if the rectangle should be filled; false otherwise
+     */
+    public void drawRectangleScreen(final Position position, final int width, final int height,
+            final BWColor color, final boolean fill) {
+        drawRectangleScreen(position.getX(PIXEL), position.getY(PIXEL), width, height, color, fill);
+    }
+
+    /**
+     * Records a rectangle on the screen.
+     *
+     * @param x
+     *            the top-left x-axis coordinate of the rectangle, in pixels
+     *
+     * @param y
+     *            the top-left y-axis coordinate of the rectangle, in pixels
+     *
+     * @param width
+     *            the width of the rectangle, in pixels
+     *
+     * @param height
+     *            the height of the rectangle, in pixels
+     *
+     * @param color
+     *            the color of the rectangle
+     *
+     * @param fill
+     *            true if the rectangle should be filled; false otherwise
+     */
+    public void drawRectangleScreen(final int x, final int y, final int width, final int height,
+            final BWColor color, final boolean fill) {
+        putShape(RECTANGLE, SCREEN | (fill ? FILL : 0), x, y, x + width, y + height,
+                color.getId(), 0);
+    }
+
+    /**
+     * Records an ellipse on the map.
+     *
+     * @param position
+     *            the center position of the ellipse, in pixels
+     *
+     * @param xRadius
+     *            the x-radius of the ellipse, in pixels
+     *
+     * @param yRadius
+     *            the y-radius of the ellipse, in pixels
+     *
+     * @param color
+     *            the color of the ellipse
+     *
+     * @param fill
+     *            true if the ellipse should be filled; false otherwise
+     */
+    public void drawEllipseMap(final Position position, final int xRadius, final int yRadius,
+            final BWColor color, final boolean fill) {
+        drawEllipseMap(position.getX(PIXEL), position.getY(PIXEL), xRadius, yRadius, color, fill);
+    }
+
+    /**
+     * Records an ellipse on the map.
+     *
+     * @param x
+     *            the center x-axis coordinate of the ellipse, in pixels
+     *
+     * @param y
+     *            the center y-axis coordinate of the ellipse, in pixels
+     *
+     * @param xRadius
+     *            the x-radius of the ellipse, in pixels
+     *
+     * @param yRadius
+     *            the y-radius of the ellipse, in pixels
+     *
+     * @param color
+     *            the color of the ellipse
+     *
+     * @param fill
+     *            true if the ellipse should be filled; false otherwise
+     */
+    public void drawEllipseMap(final int x, final int y, final int xRadius, final int yRadius,
+            final BWColor color, final boolean fill) {
+        putShape(ELLIPSE, fill ? FILL : 0, x, y, xRadius, yRadius, color.getId(), 0);
+    }
+
+    /**
+     * Records an ellipse on the screen.
+     *
+     * @param position
+     *            the center position of the ellipse, in pixels
+     *
+     * @param xRadius
+     *            the x-radius of the ellipse, in pixels
+     *
+     * @param yRadius
+     *            the y-radius of the ellipse, in pixels
+     *
+     * @param color
+     *            the color of the ellipse
+     *
+     * @param fill
+     *            true if the ellipse should be filled; false otherwise
+     */
+    public void drawEllipseScreen(final Position position, final int xRadius, final int yRadius,
+            final BWColor color, final boolean fill) {
+        drawEllipseScreen(position.getX(PIXEL), position.getY(PIXEL), xRadius, yRadius, color,
+                fill);
+    }
+
+    /**
+     * Records an ellipse on the screen.
+     *
+     * @param x
+     *            the center x-axis coordinate of the ellipse, in pixels
+     *
+     * @param y
+     *            the center y-axis coordinate of the ellipse, in pixels
+     *
+     * @param xRadius
+     *            the x-radius of the ellipse, in pixels
+     *
+     * @param yRadius
+     *            the y-radius of the ellipse, in pixels
+     *
+     * @param color
+     *            the color of the ellipse
+     *
+     * @param fill
+     *            true if the ellipse should be filled; false otherwise
+     */
+    public void drawEllipseScreen(final int x, final int y, final int xRadius, final int yRadius,
+            final BWColor color, final boolean fill) {
+        putShape(ELLIPSE, SCREEN | (fill ? FILL : 0), x, y, xRadius, yRadius, color.getId(), 0);
+    }
+
+    /**
+     * Records a circle on the map.
+     *
+     * @param position
+     *            the center position of the circle, in pixels
+     *
+     * @param radius
+     *            the radius of the circle, in pixels
+     *
+     * @param color
+     *            the color of the circle
+     *
+     * @param fill
+     *            true if the circle should be filled; false otherwise
+     */
+    public void drawCircleMap(final Position position, final int radius, final BWColor color,
+            final boolean fill) {
+        drawEllipseMap(position.getX(PIXEL), position.getY(PIXEL), radius, radius, color, fill);
+    }
+
+    /**
+     * Records a circle on the map.
+     *
+     * @param x
+     *            the center x-axis coordinate of the circle, in pixels
+     *
+     * @param y
+     *            the center y-axis coordinate of the circle, in pixels
+     *
+     * @param radius
+     *            the radius of the circle, in pixels
+     *
+     * @param color
+     *            the color of the circle
+     *
+     * @param fill
+     *            true if the circle should be filled; false otherwise
+     */
+    public void drawCircleMap(final int x, final int y, final int radius, final BWColor color,
+            final boolean fill) {
+        drawEllipseMap(x, y, radius, radius, color, fill);
+    }
+
+    /**
+     * Records a circle on the screen.
+     *
+     * @param position
+     *            the center position of the circle, in pixels
+     *
+     * @param radius
+     *            the radius of the circle, in pixels
+     *
+     * @param color
+     *            the color of the circle
+     *
+     * @param fill
+     *            true if the circle should be filled; false otherwise
+     */
+    public void drawCircleScreen(final Position position, final int radius, final BWColor color,
+            final boolean fill) {
+        drawEllipseScreen(position.getX(PIXEL), position.getY(PIXEL), radius, radius, color, fill);
+    }
+
+    /**
+     * Records a circle on the screen.
+     *
+     * @param x
+     *            the center x-axis coordinate of the circle, in pixels
+     *
+     * @param y
+     *            the center y-axis coordinate of the circle, in pixels
+     *
+     * @param radius
+     *            the radius of the circle, in pixels
+     *
+     * @param color
+     *            the color of the circle
+     *
+     * @param fill
+     *            true if the circle should be filled; false otherwise
+     */
+    public void drawCircleScreen(final int x, final int y, final int radius, final BWColor color,
+            final boolean fill) {
+        drawEllipseScreen(x, y, radius, radius, color, fill);
+    }
+
+    private void putText(final int flags, final int x, final int y, final String text) {
+        final byte[] bytes = text.getBytes(CHARACTER_SET);
+        final int textSize = getTextSize();
+        if ((textSize + bytes.length) > textBuffer.capacity()) {
+            final ByteBuffer grown = allocate(Math.max(textBuffer.capacity() * 2, textSize
+                    + bytes.length));
+            for (int i = 0; i < textSize; i++) {
+                grown.put(i, textBuffer.get(i));
+            }
+            textBuffer = grown;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            textBuffer.put(textSize + i, bytes[i]);
+        }
+        putShape(TEXT, flags, x, y, 0, 0, 0, bytes.length);
+        data.put(1, textSize + bytes.length);
+    }
+
+    private void putShape(final int type, final int flags, final int x1, final int y1,
+            final int x2, final int y2, final int color, final int textLength) {
+        final int count = size();
+        int index = getShapeIndex(count);
+        if ((index + SHAPE_SIZE) > data.capacity()) {
+            final ByteBuffer grown = allocate(shapeBuffer.capacity() * 2);
+            final IntBuffer grownData = grown.asIntBuffer();
+            for (int i = 0; i < index; i++) {
+                grownData.put(i, data.get(i));
+            }
+            shapeBuffer = grown;
+            data = grownData;
+        }
+        data.put(index++, type);
+        data.put(index++, flags);
+        data.put(index++, x1);
+        data.put(index++, y1);
+        data.put(index++, x2);
+        data.put(index++, y2);
+        data.put(index++, color);
+        data.put(index, textLength);
+        data.put(0, count + 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.harbinger.jbw;
+
+import com.harbinger.jbw.Position.Resolution;
+
+/**
+ * The ground distance from every build tile of a map to a single target tile.
+ *
+ * <p>
+ * The distances are computed once, with a single flood outwards from the target, so finding the
+ * distance from any tile to the target is an array read instead of a search. Fields are obtained
+ * from {@link GameMap#getDistanceField(Position)}.
+ */
+public class DistanceField {
+
+    private final Position target;
+    private final int width;
+    private final int height;
+    private final int[] costs;
+
+    /**
+     * Constructs a field from the costs of the paths to the target.
+     *
+     * @param target
+     *            the target build tile
+     *
+     * @param width
+     *            the width of the map, in build tiles
+     *
+     * @param height
+     *            the height of the map, in build tiles
+     *
+     * @param costs
+     *            the cost of the path from each build tile to the target, as found by
+     *            {@link PathSearch#flood(int, int, int[])}
+     */
+    DistanceField(final Position target, final int width, final int height, final int[] costs) {
+        this.target = target;
+        this.width = width;
+        this.height = height;
+        this.costs = costs;
+    }
+
+    /**
+     * @return the target build tile
+     */
+    public Position getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the same distance as {@link GameMap#getGroundDistance(Position, Position)} from the
+     * position to the target.
+     *
+     * @param position
+     *            the position to measure from
+     *
+     * @return the shortest walkable distance, in pixels, from the build tile of the position to
+     *         the target; -1 if the target is not reachable
+     */
+    public double getDistance(final Position position) {
+        return getDistance(position.getX(Resolution.BUILD), position.getY(Resolution.BUILD));
+    }
+
+    /**
+     * @param tileX
+     *            the x-axis coordinate of the build tile to measure from
+     *
+     * @param tileY
+     *            the y-axis coordinate of the build tile to measure from
+     *
+     * @return the shortest walkable distance, in pixels, from the build tile to the target; -1 if
+     *         the target is not reachable
+     */
+    public double getDistance(final int tileX, final int tileY) {
+        if ((tileX < 0) || (tileY < 0) || (tileX >= width) || (tileY >= height)) {
+            return -1;
+        }
+        return PathSearch.getPixelDistance(costs[tileX + (width * tileY)]);
+    }
+}
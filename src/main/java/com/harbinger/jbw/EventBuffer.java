@@ -0,0 +1,192 @@
+package com.harbinger.jbw;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Long-lived block of direct memory that the bridge writes the events of a frame into.
+ *
+ * <p>
+ * The buffer is registered with the bridge once during {@link Broodwar#connect() connection}. The
+ * bridge encodes all of the events of a frame into it and then notifies Java once, instead of
+ * making a separate upcall (and creating a separate string) for every event. The buffer holds a
+ * block of integers followed by a block of text:
+ *
+ * <pre>
+ * [event count][text size][event 1]...[event n] ... [text of all events]
+ * </pre>
+ *
+ * <p>
+ * Each event occupies {@link #EVENT_SIZE} integers: the event type, the two parameters, and the
+ * length of its text in bytes, or -1 if the event has no text. The text of the events is stored
+ * back to back in the order of the events. If a frame has more events than fit in the buffer, the
+ * bridge delivers them in several batches.
+ *
+ * <p>
+ * The {@link #reset()} and {@link #put(int, int, int, byte[])} methods act as a stand-in for the
+ * bridge, which allows the buffer to be filled and decoded without the game.
+ */
+class EventBuffer {
+
+    /** The number of integers preceding the events */
+    static final int HEADER_SIZE = 2;
+
+    /** The number of integers used by each event */
+    static final int EVENT_SIZE = 4;
+
+    /** The maximum number of events in a single batch */
+    static final int MAX_EVENTS = 1024;
+
+    /** The maximum number of bytes of text in a single batch */
+    static final int MAX_TEXT_SIZE = 64 * 1024;
+
+    private static final int TEXT_OFFSET = (HEADER_SIZE + (MAX_EVENTS * EVENT_SIZE)) * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final IntBuffer data;
+
+    /**
+     * Constructs a buffer large enough to hold the maximum number of events and text.
+     */
+    EventBuffer() {
+        buffer = ByteBuffer.allocateDirect(TEXT_OFFSET + MAX_TEXT_SIZE).order(
+                ByteOrder.nativeOrder());
+        data = buffer.asIntBuffer();
+    }
+
+    /**
+     * @return the direct buffer that will be registered with the bridge
+     */
+    ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the number of events written into the buffer
+     */
+    int getEventCount() {
+        return data.get(0);
+    }
+
+    /**
+     * @return the number of bytes of text written into the buffer
+     */
+    int getTextSize() {
+        return data.get(1);
+    }
+
+    /**
+     * @param event
+     *            the position of the event within the buffer
+     *
+     * @return the ID of the type of the event
+     */
+    int getType(final int event) {
+        return data.get(getEventIndex(event));
+    }
+
+    /**
+     * @param event
+     *            the position of the event within the buffer
+     *
+     * @return the first parameter of the event
+     */
+    int getParam1(final int event) {
+        return data.get(getEventIndex(event) + 1);
+    }
+
+    /**
+     * @param event
+     *            the position of the event within the buffer
+     *
+     * @return the second parameter of the event
+     */
+    int getParam2(final int event) {
+        return data.get(getEventIndex(event) + 2);
+    }
+
+    /**
+     * @param event
+     *            the position of the event within the buffer
+     *
+     * @return the length of the text of the event in bytes; -1 if the event has no text
+     */
+    int getTextLength(final int event) {
+        return data.get(getEventIndex(event) + 3);
+    }
+
+    /**
+     * Decodes text written into the buffer.
+     *
+     * @param offset
+     *            the offset of the text, in bytes, from the start of the text of all events
+     *
+     * @param length
+     *            the length of the text in bytes
+     *
+     * @param charset
+     *            the character set used to encode the text
+     *
+     * @return the decoded text
+     */
+    String getText(final int offset, final int length, final Charset charset) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(TEXT_OFFSET + offset + i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private static int getEventIndex(final int event) {
+        return HEADER_SIZE + (event * EVENT_SIZE);
+    }
+
+    /**
+     * Removes all events from the buffer.
+     */
+    void reset() {
+        data.put(0, 0);
+        data.put(1, 0);
+    }
+
+    /**
+     * Appends an event to the buffer, just as the bridge would.
+     *
+     * @param type
+     *            the ID of the type of the event
+     *
+     * @param p1
+     *            the first parameter of the event
+     *
+     * @param p2
+     *            the second parameter of the event
+     *
+     * @param text
+     *            the encoded text of the event; null if the event has no text
+     *
+     * @throws IllegalStateException
+     *             thrown if the event does not fit in the buffer
+     */
+    void put(final int type, final int p1, final int p2, final byte[] text)
+            throws IllegalStateException {
+        final int count = getEventCount();
+        final int textSize = getTextSize();
+        final int textLength = (text != null) ? text.length : 0;
+        if ((count == MAX_EVENTS) || ((textSize + textLength) > MAX_TEXT_SIZE)) {
+            throw new IllegalStateException("event buffer is full");
+        }
+
+        final int index = getEventIndex(count);
+        data.put(index, type);
+        data.put(index + 1, p1);
+        data.put(index + 2, p2);
+        data.put(index + 3, (text != null) ? text.length : -1);
+        for (int i = 0; i < textLength; i++) {
+            buffer.put(TEXT_OFFSET + textSize + i, text[i]);
+        }
+        data.put(0, count + 1);
+        data.put(1, textSize + textLength);
+    }
+}
@@ -2,7 +2,6 @@ package com.harbinger.jbw;
 
 import com.harbinger.jbw.Position.Resolution;
 
-import java.awt.Point;
 import java.util.*;
 
 /**
@@ -10,8 +9,26 @@ import java.util.*;
  */
 public class GameMap {
 
+    /**
+     * The algorithms that can search for the shortest path between two build tiles. Both find
+     * paths of the same length.
+     */
+    public enum PathAlgorithm {
+        /** A* search, which adds every neighbor of a tile to the open list */
+        A_STAR,
+
+        /**
+         * Jump Point Search, which skips over the tiles in open ground; usually much faster on
+         * maps with large open areas
+         */
+        JUMP_POINT_SEARCH
+    }
+
     static final int TILE_SIZE = 31;
 
+    /** The number of distance fields to arbitrary targets that are kept */
+    static final int DISTANCE_FIELD_CACHE_SIZE = 32;
+
     private final Position size;
     private final String name;
     private final String fileName;
@@ -19,6 +36,23 @@ public class GameMap {
     private final boolean[] buildable;
     private final boolean[] walkable;
     private final boolean[] lowResWalkable;
+    private final int[] components;
+    private final int[] walkComponents;
+    private final ThreadLocal<PathSearch> pathSearches;
+    private volatile PathAlgorithm pathAlgorithm = PathAlgorithm.A_STAR;
+
+    // distance fields by target build tile index; those of the base locations are never evicted
+    private final Map<Integer, DistanceField> baseDistanceFields = new HashMap<>();
+    private final Map<Integer, DistanceField> distanceFields = new LinkedHashMap<Integer,
+            DistanceField>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, DistanceField> eldest) {
+            return size() > DISTANCE_FIELD_CACHE_SIZE;
+        }
+    };
 
     private List<BaseLocation> baseLocations = null;
 
@@ -48,6 +82,12 @@ public class GameMap {
                         isWalkable(new Position(wx, wy, Resolution.WALK));
             }
         }
+        // Label the connected components for reachability tests
+        components = PathSearch.labelComponents(width, height, lowResWalkable);
+        walkComponents = PathSearch.labelComponents(size.getX(Resolution.WALK), size.getY(
+                Resolution.WALK), this.walkable);
+        pathSearches = ThreadLocal.withInitial(() -> new PathSearch(width, height,
+                lowResWalkable));
     }
 
     void setBaseLocations(final int[] baseLocationData) {
@@ -59,6 +99,17 @@ public class GameMap {
                 baseLocations.add(baseLocation);
             }
         }
+
+        synchronized (distanceFields) {
+            baseDistanceFields.clear();
+            for (final BaseLocation baseLocation : baseLocations) {
+                final Position target = baseLocation.getPosition();
+                if (target.isValid(this)) {
+                    baseDistanceFields.put(getBuildTileArrayIndex(target), createDistanceField(
+                            target));
+                }
+            }
+        }
     }
 
     public Position getSize() {
@@ -84,6 +135,11 @@ public class GameMap {
         return p.getX(Resolution.BUILD) + (size.getX(Resolution.BUILD) * p.getY(Resolution.BUILD));
     }
 
+    // Converts a position to a 1-dimensional walk tile array index for this map.
+    private int getWalkTileArrayIndex(final Position p) {
+        return p.getX(Resolution.WALK) + (size.getX(Resolution.WALK) * p.getY(Resolution.WALK));
+    }
+
     /**
      * Returns the height of the ground at a given Position.
      *
@@ -135,8 +191,7 @@ public class GameMap {
      */
     public boolean isWalkable(final Position p) {
         if (p.isValid(this)) {
-            return walkable[p.getX(Resolution.WALK)
-                    + (size.getX(Resolution.WALK) * p.getY(Resolution.WALK))];
+            return walkable[getWalkTileArrayIndex(p)];
         } else {
             return false;
         }
@@ -151,6 +206,48 @@ public class GameMap {
         }
     }
 
+    /**
+     * Indicates if a ground unit can move between two build tiles, using the connected components
+     * of the {@link #isLowResWalkable(Position) walkable} build tiles that were labelled when the
+     * map was loaded. This does not search for a path.
+     *
+     * @param start
+     *            the Position to start from
+     *
+     * @param end
+     *            the Position to reach
+     *
+     * @return true if both build tiles are walkable and connected; false otherwise
+     */
+    public boolean isReachable(final Position start, final Position end) {
+        if (!start.isValid(this) || !end.isValid(this)) {
+            return false;
+        }
+        final int component = components[getBuildTileArrayIndex(start)];
+        return (component != 0) && (component == components[getBuildTileArrayIndex(end)]);
+    }
+
+    /**
+     * Indicates if a ground unit can move between two walk tiles, using the connected components
+     * of the {@link #isWalkable(Position) walkable} walk tiles that were labelled when the map was
+     * loaded. This does not search for a path.
+     *
+     * @param start
+     *            the Position to start from
+     *
+     * @param end
+     *            the Position to reach
+     *
+     * @return true if both walk tiles are walkable and connected; false otherwise
+     */
+    public boolean isWalkReachable(final Position start, final Position end) {
+        if (!start.isValid(this) || !end.isValid(this)) {
+            return false;
+        }
+        final int component = walkComponents[getWalkTileArrayIndex(start)];
+        return (component != 0) && (component == walkComponents[getWalkTileArrayIndex(end)]);
+    }
+
     /**
      * @return all of the BaseLocations on the current map
      */
@@ -176,96 +273,250 @@ public class GameMap {
     /**
      * Find the shortest walkable distance, in pixels, between two tile positions or -1 if not
      * reachable. Works only after initialize(). Ported from BWTA.
+     *
+     * <p>
+     * The search does not allocate; each thread reuses its own search buffers sized to the map.
      */
     public double getGroundDistance(final Position start, final Position end) {
-        return aStarSearchDistance(start.getX(Resolution.BUILD), start.getY(Resolution.BUILD),
-                end.getX(Resolution.BUILD), end.getY(Resolution.BUILD));
+        if (isDisconnected(start, end)) {
+            return -1;
+        }
+        final DistanceField field = end.isValid(this) ? findDistanceField(end) : null;
+        if (field != null) {
+            return field.getDistance(start);
+        }
+        return PathSearch.getPixelDistance(findCost(pathSearches.get(), start, end));
     }
 
     /**
-     * Performs an A* search. Intended to be called from
-     * {@link #getGroundDistance(int, int, int, int)}. Ported from BWTA.
+     * @return the algorithm used to search for paths; {@link PathAlgorithm#A_STAR} by default
      */
-    private double aStarSearchDistance(final int startTx, final int startTy, final int endTx,
-            final int endTy) {
-        // Distance of 10 per build tile, or sqrt(10^2 + 10^2) ~= 14 diagonally
-        final int mvmtCost = 10;
-        final int mvmtCostDiag = 14;
-        final PriorityQueue<AStarTile> openTiles = new PriorityQueue<>(); // min heap
-        // Map from tile to distance
-        final HashMap<Point, Integer> gmap = new HashMap<>();
-        final HashSet<Point> closedTiles = new HashSet<>();
-        final Point start = new Point(startTx, startTy);
-        final Point end = new Point(endTx, endTy);
-        openTiles.add(new AStarTile(start, 0));
-        gmap.put(start, 0);
-        while (!openTiles.isEmpty()) {
-            final Point p = openTiles.poll().tilePos;
-            if (p.equals(end)) {
-                return (gmap.get(p) * TILE_SIZE) / (double) mvmtCost;
-            }
-            final int gvalue = gmap.get(p);
-            closedTiles.add(p);
-            // Explore the neighbours of p
-            final int minx = Math.max(p.x - 1, 0);
-            final int maxx = Math.min(p.x + 1, size.getX(Resolution.BUILD) - 1);
-            final int miny = Math.max(p.y - 1, 0);
-            final int maxy = Math.min(p.y + 1, size.getY(Resolution.BUILD) - 1);
-            for (int x = minx; x <= maxx; x++) {
-                for (int y = miny; y <= maxy; y++) {
-                    if (!isLowResWalkable(new Position(x, y, Resolution.BUILD))) {
-                        continue;
-                    }
-                    if ((p.x != x) && (p.y != y)
-                            && !isLowResWalkable(new Position(p.x, y, Resolution.BUILD))
-                            && !isLowResWalkable(new Position(x, p.y, Resolution.BUILD))) {
-                        continue; // Not diagonally accessible
-                    }
-                    final Point t = new Point(x, y);
-                    if (closedTiles.contains(t)) {
-                        continue;
-                    }
-
-                    int g = gvalue + mvmtCost;
-                    if ((x != p.x) && (y != p.y)) {
-                        g = gvalue + mvmtCostDiag;
-                    }
-                    final int dx = Math.abs(x - end.x);
-                    final int dy = Math.abs(y - end.y);
-                    // Heuristic for remaining distance:
-                    // min(dx, dy) is the minimum diagonal distance, so costs mvmtCostDiag
-                    // abs(dx - dy) is the rest of the distance, so costs mvmtCost
-                    final int h =
-                            (Math.abs(dx - dy) * mvmtCost) + (Math.min(dx, dy) * mvmtCostDiag);
-                    final int f = g + h;
-                    if (!gmap.containsKey(t) || (gmap.get(t) > g)) {
-                        gmap.put(t, g);
-                        for (final Iterator<AStarTile> it = openTiles.iterator(); it.hasNext();) {
-                            if (it.next().tilePos.equals(t)) {
-                                it.remove();
-                            }
-                        }
-                        openTiles.add(new AStarTile(t, f));
-                    }
-                }
+    public PathAlgorithm getPathAlgorithm() {
+        return pathAlgorithm;
+    }
+
+    /**
+     * Selects the algorithm used by {@link #getGroundDistance(Position, Position)} and
+     * {@link #findPath(Position, Position, boolean)} to search for paths.
+     *
+     * @param pathAlgorithm
+     *            the algorithm to use
+     */
+    public void setPathAlgorithm(final PathAlgorithm pathAlgorithm) {
+        this.pathAlgorithm = pathAlgorithm;
+    }
+
+    // Searches with the selected algorithm, returning the cost of the path or -1.
+    private int findCost(final PathSearch search, final Position start, final Position end) {
+        final int startX = start.getX(Resolution.BUILD);
+        final int startY = start.getY(Resolution.BUILD);
+        final int endX = end.getX(Resolution.BUILD);
+        final int endY = end.getY(Resolution.BUILD);
+        if (pathAlgorithm == PathAlgorithm.JUMP_POINT_SEARCH) {
+            return search.jumpPointSearch(startX, startY, endX, endY);
+        }
+        return search.search(startX, startY, endX, endY);
+    }
+
+    /**
+     * Provides the ground distance from every build tile to a target tile. The fields of the
+     * {@link #getBaseLocations() base locations} are created when the map is loaded, and the
+     * fields of the {@link #DISTANCE_FIELD_CACHE_SIZE} most recently used other targets are kept.
+     * While a field for a tile is kept, {@link #getGroundDistance(Position, Position)} to the tile
+     * reads the distance from the field instead of searching.
+     *
+     * @param target
+     *            the target Position
+     *
+     * @return the distance field of the build tile of the target
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the target is not on the map
+     */
+    public DistanceField getDistanceField(final Position target) throws IllegalArgumentException {
+        if (!target.isValid(this)) {
+            throw new IllegalArgumentException("target is not on the map: " + target);
+        }
+        synchronized (distanceFields) {
+            DistanceField field = findDistanceField(target);
+            if (field == null) {
+                field = createDistanceField(target);
+                distanceFields.put(getBuildTileArrayIndex(target), field);
             }
+            return field;
         }
-        // Not found
-        return -1;
     }
 
-    private static class AStarTile implements Comparable<AStarTile> {
-        Point tilePos;
-        int distPlusCost;
+    // Checks whether the components show that there is no path between two build tiles. A path can
+    // only end on a walkable tile, but it can start from an unwalkable tile next to a component.
+    private boolean isDisconnected(final Position start, final Position end) {
+        if (!start.isValid(this) || !end.isValid(this)) {
+            return false;
+        }
+        final int startTile = getBuildTileArrayIndex(start);
+        final int endTile = getBuildTileArrayIndex(end);
+        if (startTile == endTile) {
+            return false;
+        }
+        if (components[endTile] == 0) {
+            return true;
+        }
+        return (components[startTile] != 0) && (components[startTile] != components[endTile]);
+    }
 
-        public AStarTile(final Point tile, final int distance) {
-            tilePos = tile;
-            distPlusCost = distance;
+    // Finds a kept field for the build tile of the target, without creating one.
+    private DistanceField findDistanceField(final Position target) {
+        final Integer tile = getBuildTileArrayIndex(target);
+        synchronized (distanceFields) {
+            final DistanceField field = baseDistanceFields.get(tile);
+            return (field != null) ? field : distanceFields.get(tile);
         }
+    }
 
-        @Override
-        public int compareTo(final AStarTile o) {
-            return Integer.compare(distPlusCost, o.distPlusCost);
+    private DistanceField createDistanceField(final Position target) {
+        final int width = size.getX(Resolution.BUILD);
+        final int height = size.getY(Resolution.BUILD);
+        final int[] costs = new int[width * height];
+        pathSearches.get().flood(target.getX(Resolution.BUILD), target.getY(Resolution.BUILD),
+                costs);
+        return new DistanceField(new Position(target.getX(Resolution.BUILD), target.getY(
+                Resolution.BUILD), Resolution.BUILD), width, height, costs);
+    }
+
+    /**
+     * Finds the shortest walkable path between two tile positions, using the same search as
+     * {@link #getGroundDistance(Position, Position)}. Equivalent to
+     * {@link #findPath(Position, Position, boolean) findPath(start, end, false)}.
+     *
+     * @param start
+     *            the Position to start from
+     *
+     * @param end
+     *            the Position to reach
+     *
+     * @return the build tiles at which the path changes direction, including the start and end
+     *         tiles; empty if the end is not reachable
+     */
+    public List<Position> findPath(final Position start, final Position end) {
+        return findPath(start, end, false);
+    }
+
+    /**
+     * Finds the shortest walkable path between two tile positions, using the same search as
+     * {@link #getGroundDistance(Position, Position)}.
+     *
+     * <p>
+     * The path only lists the build tiles at which it changes direction. If smoothing is enabled,
+     * waypoints are also skipped while the straight line from the previous waypoint only crosses
+     * {@link #isLowResWalkable(Position) walkable} build tiles, so the path may cut across open
+     * ground at any angle.
+     *
+     * @param start
+     *            the Position to start from
+     *
+     * @param end
+     *            the Position to reach
+     *
+     * @param smooth
+     *            true to skip the waypoints that are in line of sight of the previous waypoint
+     *
+     * @return the waypoints of the path, in build tiles, including the start and end tiles; empty
+     *         if the end is not reachable
+     */
+    public List<Position> findPath(final Position start, final Position end, final boolean smooth) {
+        if (isDisconnected(start, end)) {
+            return Collections.emptyList();
+        }
+        final int width = size.getX(Resolution.BUILD);
+        final int endX = end.getX(Resolution.BUILD);
+        final int endY = end.getY(Resolution.BUILD);
+        final PathSearch search = pathSearches.get();
+        if (findCost(search, start, end) < 0) {
+            return Collections.emptyList();
+        }
+
+        // follow the parents back from the end to list the tiles in order, filling in the tiles
+        // on the straight or diagonal line between each tile and its parent
+        final int endTile = endX + (width * endY);
+        int length = 1;
+        for (int tile = endTile; search.getParent(tile) != -1; tile = search.getParent(tile)) {
+            final int parent = search.getParent(tile);
+            length += Math.max(Math.abs((parent % width) - (tile % width)), Math.abs((parent
+                    / width) - (tile / width)));
+        }
+        final int[] tiles = new int[length];
+        tiles[length - 1] = endTile;
+        for (int i = length - 1, tile = endTile; i > 0; tile = search.getParent(tile)) {
+            final int parent = search.getParent(tile);
+            final int step = Integer.signum((parent % width) - (tile % width)) + (width * Integer
+                    .signum((parent / width) - (tile / width)));
+            for (int between = tile; between != parent;) {
+                between += step;
+                tiles[--i] = between;
+            }
+        }
+
+        final List<Position> waypoints = new ArrayList<>();
+        waypoints.add(new Position(tiles[0] % width, tiles[0] / width, Resolution.BUILD));
+        int anchor = 0;
+        for (int i = 1; i < (length - 1); i++) {
+            final boolean keep;
+            if (smooth) {
+                keep = !hasLineOfSight(tiles[anchor], tiles[i + 1]);
+            } else {
+                keep = isTurn(tiles[i - 1], tiles[i], tiles[i + 1]);
+            }
+            if (keep) {
+                waypoints.add(new Position(tiles[i] % width, tiles[i] / width, Resolution.BUILD));
+                anchor = i;
+            }
+        }
+        if (length > 1) {
+            waypoints.add(new Position(endX, endY, Resolution.BUILD));
+        }
+        return waypoints;
+    }
+
+    // Checks whether a path changes direction at the middle of three consecutive build tiles.
+    private boolean isTurn(final int previous, final int tile, final int next) {
+        final int width = size.getX(Resolution.BUILD);
+        return (((tile % width) - (previous % width)) != ((next % width) - (tile % width)))
+                || (((tile / width) - (previous / width)) != ((next / width) - (tile / width)));
+    }
+
+    // Checks whether every build tile crossed by the line between the centers of two build tiles
+    // is walkable. Where the line passes exactly through a corner, both tiles beside the corner
+    // must be walkable.
+    private boolean hasLineOfSight(final int from, final int to) {
+        final int width = size.getX(Resolution.BUILD);
+        int x = from % width;
+        int y = from / width;
+        final int dx = Math.abs((to % width) - x);
+        final int dy = Math.abs((to / width) - y);
+        final int stepX = ((to % width) > x) ? 1 : -1;
+        final int stepY = ((to / width) > y) ? 1 : -1;
+        for (int ix = 0, iy = 0; (ix < dx) || (iy < dy);) {
+            final int decision = (((1 + (2 * ix)) * dy) - ((1 + (2 * iy)) * dx));
+            if (decision == 0) {
+                if (!lowResWalkable[(x + stepX) + (width * y)]
+                        || !lowResWalkable[x + (width * (y + stepY))]) {
+                    return false;
+                }
+                x += stepX;
+                y += stepY;
+                ix++;
+                iy++;
+            } else if (decision < 0) {
+                x += stepX;
+                ix++;
+            } else {
+                y += stepY;
+                iy++;
+            }
+            if (!lowResWalkable[x + (width * y)]) {
+                return false;
+            }
         }
+        return true;
     }
 }
@@ -0,0 +1,125 @@
+package com.harbinger.jbw;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Long-lived block of direct memory that the bridge writes the state of the keyboard into.
+ *
+ * <p>
+ * The buffer is registered with the bridge once during {@link Broodwar#connect() connection}. Every
+ * frame the bridge writes a snapshot of all {@link #KEY_COUNT} keys into it, packed into a bit
+ * field with one bit per key code, instead of notifying Java separately for every key that was
+ * pressed. The snapshot is {@link #update() compared} to the snapshot of the previous frame to
+ * determine which keys were pressed since then.
+ *
+ * <p>
+ * The {@link #put(int, boolean)} method acts as a stand-in for the bridge, which allows the buffer
+ * to be used without the game.
+ */
+class KeyStateBuffer {
+
+    /** The number of key codes */
+    static final int KEY_COUNT = 256;
+
+    private static final int WORD_COUNT = KEY_COUNT / Long.SIZE;
+
+    private final ByteBuffer buffer;
+    private final LongBuffer data;
+
+    private final long[] down = new long[WORD_COUNT];
+    private final long[] pressed = new long[WORD_COUNT];
+
+    /**
+     * Constructs a buffer with all keys released.
+     */
+    KeyStateBuffer() {
+        buffer = ByteBuffer.allocateDirect(WORD_COUNT * Long.BYTES).order(ByteOrder.nativeOrder());
+        data = buffer.asLongBuffer();
+    }
+
+    /**
+     * @return the direct buffer that will be registered with the bridge
+     */
+    ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Takes the snapshot written by the bridge and determines which keys have been pressed since
+     * the previous snapshot.
+     */
+    void update() {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            final long word = data.get(i);
+            pressed[i] = word & ~down[i];
+            down[i] = word;
+        }
+    }
+
+    /**
+     * @param keyCode
+     *            the key code of the key
+     *
+     * @return true if the key was down in the latest snapshot; false otherwise
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the key code is not between 0 and {@link #KEY_COUNT} - 1
+     */
+    boolean isDown(final int keyCode) throws IllegalArgumentException {
+        checkKeyCode(keyCode);
+        return (down[keyCode >>> 6] & (1L << keyCode)) != 0;
+    }
+
+    /**
+     * Finds the next key that was pressed between the two latest snapshots.
+     *
+     * @param fromKeyCode
+     *            the key code to start searching from, inclusive
+     *
+     * @return the key code of the next pressed key; -1 if there are no more pressed keys
+     */
+    int nextPressedKey(final int fromKeyCode) {
+        if (fromKeyCode >= KEY_COUNT) {
+            return -1;
+        }
+        int i = fromKeyCode >>> 6;
+        long word = pressed[i] & (-1L << fromKeyCode);
+        while (word == 0) {
+            if (++i == WORD_COUNT) {
+                return -1;
+            }
+            word = pressed[i];
+        }
+        return (i * Long.SIZE) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Sets the state of a key in the snapshot, just as the bridge would.
+     *
+     * @param keyCode
+     *            the key code of the key
+     *
+     * @param keyDown
+     *            true if the key is down; false otherwise
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the key code is not between 0 and {@link #KEY_COUNT} - 1
+     */
+    void put(final int keyCode, final boolean keyDown) throws IllegalArgumentException {
+        checkKeyCode(keyCode);
+        final int i = keyCode >>> 6;
+        if (keyDown) {
+            data.put(i, data.get(i) | (1L << keyCode));
+        } else {
+            data.put(i, data.get(i) & ~(1L << keyCode));
+        }
+    }
+
+    private static void checkKeyCode(final int keyCode) throws IllegalArgumentException {
+        if ((keyCode < 0) || (keyCode >= KEY_COUNT)) {
+            throw new IllegalArgumentException("key code out of range: " + keyCode);
+        }
+    }
+}
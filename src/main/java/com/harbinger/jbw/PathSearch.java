@@ -0,0 +1,524 @@
+package com.harbinger.jbw;
+
+import java.util.Arrays;
+
+/**
+ * A* search over the build tiles of a map, with 8-connectivity. Ported from BWTA.
+ *
+ * <p>
+ * A search does not allocate: the scores, the parent of every tile and the open list are kept in
+ * flat arrays sized to the map, which are reused by every search. Instead of clearing the arrays,
+ * every search is given a new stamp, and the scores of a tile are only valid if the tile was
+ * reached during the search with the current stamp. The open list is an indexed binary min-heap,
+ * which knows the position of every tile in the heap, so the score of an open tile can be lowered
+ * in logarithmic time.
+ *
+ * <p>
+ * The search can also run as a Jump Point Search, which finds the same costs on this uniform-cost
+ * grid. Instead of adding every neighbor of a tile to the open list, it moves along straight and
+ * diagonal lines until it reaches a tile where the shortest paths may turn because of an obstacle,
+ * so open ground is crossed without touching the heap. The parent of each tile is then the previous
+ * jump point, which is on a straight or diagonal line from the tile.
+ *
+ * <p>
+ * A search is not thread-safe; {@link GameMap} keeps one search per thread.
+ */
+class PathSearch {
+
+    /** The cost of moving to a horizontally or vertically adjacent build tile */
+    static final int STRAIGHT_COST = 10;
+
+    /** The cost of moving to a diagonally adjacent build tile, approximately 10 * sqrt(2) */
+    static final int DIAGONAL_COST = 14;
+
+    // the heap index of a tile that has been expanded during the current search
+    private static final int CLOSED = -1;
+
+    private final int width;
+    private final int height;
+    private final boolean[] walkable;
+
+    private final int[] gScores;
+    private final int[] fScores;
+    private final int[] parents;
+    private final int[] heapIndices;
+    private final int[] stamps;
+    private int stamp;
+
+    private final int[] heap;
+    private int heapSize;
+
+    /**
+     * Constructs a search over a grid of tiles.
+     *
+     * @param width
+     *            the width of the grid, in build tiles
+     *
+     * @param height
+     *            the height of the grid, in build tiles
+     *
+     * @param walkable
+     *            whether each tile can be walked on, row by row
+     */
+    PathSearch(final int width, final int height, final boolean[] walkable) {
+        this.width = width;
+        this.height = height;
+        this.walkable = walkable;
+        gScores = new int[width * height];
+        fScores = new int[width * height];
+        parents = new int[width * height];
+        heapIndices = new int[width * height];
+        stamps = new int[width * height];
+        heap = new int[width * height];
+    }
+
+    /**
+     * Finds the cost of the shortest path between two build tiles.
+     *
+     * @param startX
+     *            the x-axis coordinate of the start tile
+     *
+     * @param startY
+     *            the y-axis coordinate of the start tile
+     *
+     * @param endX
+     *            the x-axis coordinate of the end tile
+     *
+     * @param endY
+     *            the y-axis coordinate of the end tile
+     *
+     * @return the cost of the path, in multiples of {@link #STRAIGHT_COST} per tile; -1 if there is
+     *         no path
+     */
+    int search(final int startX, final int startY, final int endX, final int endY) {
+        if (!isOnGrid(startX, startY) || !isOnGrid(endX, endY)) {
+            return -1;
+        }
+
+        nextStamp();
+        heapSize = 0;
+        final int start = startX + (width * startY);
+        final int end = endX + (width * endY);
+        reach(start, -1, 0, getHeuristic(startX, startY, endX, endY));
+
+        while (heapSize > 0) {
+            final int current = poll();
+            if (current == end) {
+                return gScores[current];
+            }
+            expand(current, endX, endY, true);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the cost of the shortest path between two build tiles with a Jump Point Search. The
+     * cost is the same as that found by {@link #search(int, int, int, int)}.
+     *
+     * @param startX
+     *            the x-axis coordinate of the start tile
+     *
+     * @param startY
+     *            the y-axis coordinate of the start tile
+     *
+     * @param endX
+     *            the x-axis coordinate of the end tile
+     *
+     * @param endY
+     *            the y-axis coordinate of the end tile
+     *
+     * @return the cost of the path, in multiples of {@link #STRAIGHT_COST} per tile; -1 if there is
+     *         no path
+     */
+    int jumpPointSearch(final int startX, final int startY, final int endX, final int endY) {
+        if (!isOnGrid(startX, startY) || !isOnGrid(endX, endY)) {
+            return -1;
+        }
+
+        nextStamp();
+        heapSize = 0;
+        final int start = startX + (width * startY);
+        final int end = endX + (width * endY);
+        reach(start, -1, 0, getHeuristic(startX, startY, endX, endY));
+
+        while (heapSize > 0) {
+            final int current = poll();
+            if (current == end) {
+                return gScores[current];
+            }
+            expandJumpPoints(current, endX, endY);
+        }
+        return -1;
+    }
+
+    // Jumps in the directions that the shortest paths through a tile can continue in.
+    private void expandJumpPoints(final int current, final int endX, final int endY) {
+        final int x = current % width;
+        final int y = current / width;
+        final int parent = parents[current];
+        if (parent == -1) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if ((dx != 0) || (dy != 0)) {
+                        reachJumpPoint(current, x, y, dx, dy, endX, endY);
+                    }
+                }
+            }
+            return;
+        }
+
+        final int dx = Integer.signum(x - (parent % width));
+        final int dy = Integer.signum(y - (parent / width));
+        if ((dx != 0) && (dy != 0)) {
+            reachJumpPoint(current, x, y, dx, dy, endX, endY);
+            reachJumpPoint(current, x, y, dx, 0, endX, endY);
+            reachJumpPoint(current, x, y, 0, dy, endX, endY);
+            // forced neighbors, around an obstacle beside the tile
+            if (!isWalkable(x - dx, y) && isWalkable(x, y + dy)) {
+                reachJumpPoint(current, x, y, -dx, dy, endX, endY);
+            }
+            if (!isWalkable(x, y - dy) && isWalkable(x + dx, y)) {
+                reachJumpPoint(current, x, y, dx, -dy, endX, endY);
+            }
+        } else if (dx != 0) {
+            if (isWalkable(x + dx, y)) {
+                reachJumpPoint(current, x, y, dx, 0, endX, endY);
+                if (!isWalkable(x, y + 1)) {
+                    reachJumpPoint(current, x, y, dx, 1, endX, endY);
+                }
+                if (!isWalkable(x, y - 1)) {
+                    reachJumpPoint(current, x, y, dx, -1, endX, endY);
+                }
+            }
+        } else if (isWalkable(x, y + dy)) {
+            reachJumpPoint(current, x, y, 0, dy, endX, endY);
+            if (!isWalkable(x + 1, y)) {
+                reachJumpPoint(current, x, y, 1, dy, endX, endY);
+            }
+            if (!isWalkable(x - 1, y)) {
+                reachJumpPoint(current, x, y, -1, dy, endX, endY);
+            }
+        }
+    }
+
+    private void reachJumpPoint(final int current, final int x, final int y, final int dx,
+            final int dy, final int endX, final int endY) {
+        final int jumpPoint = jump(x, y, dx, dy, endX, endY);
+        if ((jumpPoint == -1)
+                || ((stamps[jumpPoint] == stamp) && (heapIndices[jumpPoint] == CLOSED))) {
+            return;
+        }
+        final int jumpX = jumpPoint % width;
+        final int jumpY = jumpPoint / width;
+        final int g = gScores[current] + getHeuristic(x, y, jumpX, jumpY);
+        if ((stamps[jumpPoint] != stamp) || (g < gScores[jumpPoint])) {
+            reach(jumpPoint, current, g, g + getHeuristic(jumpX, jumpY, endX, endY));
+        }
+    }
+
+    // Moves from a tile in a direction until reaching the end, a tile with a forced neighbor, or,
+    // when moving diagonally, a tile from which a straight jump finds a jump point.
+    private int jump(int x, int y, final int dx, final int dy, final int endX, final int endY) {
+        final boolean diagonal = (dx != 0) && (dy != 0);
+        while (true) {
+            if (!isWalkable(x + dx, y + dy)) {
+                return -1;
+            }
+            if (diagonal && !isWalkable(x + dx, y) && !isWalkable(x, y + dy)) {
+                return -1; // not diagonally accessible
+            }
+            x += dx;
+            y += dy;
+            final int tile = x + (width * y);
+            if ((x == endX) && (y == endY)) {
+                return tile;
+            }
+            if (diagonal) {
+                if ((isWalkable(x - dx, y + dy) && !isWalkable(x - dx, y))
+                        || (isWalkable(x + dx, y - dy) && !isWalkable(x, y - dy))) {
+                    return tile;
+                }
+                if ((jump(x, y, dx, 0, endX, endY) != -1)
+                        || (jump(x, y, 0, dy, endX, endY) != -1)) {
+                    return tile;
+                }
+            } else if (dx != 0) {
+                if ((isWalkable(x + dx, y + 1) && !isWalkable(x, y + 1))
+                        || (isWalkable(x + dx, y - 1) && !isWalkable(x, y - 1))) {
+                    return tile;
+                }
+            } else if ((isWalkable(x + 1, y + dy) && !isWalkable(x + 1, y))
+                    || (isWalkable(x - 1, y + dy) && !isWalkable(x - 1, y))) {
+                return tile;
+            }
+        }
+    }
+
+    private boolean isWalkable(final int x, final int y) {
+        return isOnGrid(x, y) && walkable[x + (width * y)];
+    }
+
+    /**
+     * Finds the cost of the shortest path from every build tile to a build tile, using Dijkstra's
+     * algorithm. The cost for each tile is the same as that found by {@link #search(int, int, int,
+     * int)} from the tile to the target: a path cannot end on an unwalkable tile, but it can start
+     * on one.
+     *
+     * @param targetX
+     *            the x-axis coordinate of the target tile
+     *
+     * @param targetY
+     *            the y-axis coordinate of the target tile
+     *
+     * @param costs
+     *            receives the cost of the path from each tile, row by row, in multiples of
+     *            {@link #STRAIGHT_COST} per tile; -1 if there is no path
+     */
+    void flood(final int targetX, final int targetY, final int[] costs) {
+        Arrays.fill(costs, -1);
+        if (!isOnGrid(targetX, targetY)) {
+            return;
+        }
+
+        final int target = targetX + (width * targetY);
+        costs[target] = 0;
+        if (!walkable[target]) {
+            return;
+        }
+
+        // paths are symmetric between walkable tiles, so flood outwards from the target
+        nextStamp();
+        heapSize = 0;
+        reach(target, -1, 0, 0);
+        while (heapSize > 0) {
+            final int current = poll();
+            costs[current] = gScores[current];
+            expand(current, targetX, targetY, false);
+        }
+
+        // a path from an unwalkable tile takes its first step onto a walkable neighbor
+        for (int tile = 0; tile < costs.length; tile++) {
+            if (!walkable[tile] && (tile != target)) {
+                costs[tile] = getFirstStepCost(tile, costs);
+            }
+        }
+    }
+
+    private int getFirstStepCost(final int tile, final int[] costs) {
+        final int x = tile % width;
+        final int y = tile / width;
+        int best = -1;
+        for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, height - 1); ny++) {
+            for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, width - 1); nx++) {
+                final int neighbor = nx + (width * ny);
+                final boolean diagonal = (nx != x) && (ny != y);
+                if (!walkable[neighbor] || (costs[neighbor] < 0) || (diagonal
+                        && !walkable[x + (width * ny)] && !walkable[nx + (width * y)])) {
+                    continue;
+                }
+                final int cost = costs[neighbor] + (diagonal ? DIAGONAL_COST : STRAIGHT_COST);
+                if ((best < 0) || (cost < best)) {
+                    best = cost;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Reaches the neighbors of a tile that are not closed, if this search found a shorter path.
+    private void expand(final int current, final int endX, final int endY,
+            final boolean heuristic) {
+        final int x = current % width;
+        final int y = current / width;
+        final int g = gScores[current];
+        final int minX = Math.max(x - 1, 0);
+        final int maxX = Math.min(x + 1, width - 1);
+        final int minY = Math.max(y - 1, 0);
+        final int maxY = Math.min(y + 1, height - 1);
+        for (int ny = minY; ny <= maxY; ny++) {
+            for (int nx = minX; nx <= maxX; nx++) {
+                final int neighbor = nx + (width * ny);
+                if (!walkable[neighbor]) {
+                    continue;
+                }
+                final boolean diagonal = (nx != x) && (ny != y);
+                if (diagonal && !walkable[x + (width * ny)] && !walkable[nx + (width * y)]) {
+                    continue; // not diagonally accessible
+                }
+                if ((stamps[neighbor] == stamp) && (heapIndices[neighbor] == CLOSED)) {
+                    continue;
+                }
+                final int neighborG = g + (diagonal ? DIAGONAL_COST : STRAIGHT_COST);
+                if ((stamps[neighbor] != stamp) || (neighborG < gScores[neighbor])) {
+                    reach(neighbor, current, neighborG, neighborG + (heuristic ? getHeuristic(nx,
+                            ny, endX, endY) : 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param tile
+     *            the index of a tile reached by the latest search
+     *
+     * @return the index of the tile the tile was reached from, which is the previous jump point
+     *         after a Jump Point Search; -1 for the start tile
+     */
+    int getParent(final int tile) {
+        return parents[tile];
+    }
+
+    /**
+     * Labels the connected components of a grid of tiles, using the same moves as the search: a
+     * tile is connected to its 8 neighbors, but only to a diagonal neighbor if one of the two tiles
+     * beside the diagonal is walkable.
+     *
+     * @param width
+     *            the width of the grid
+     *
+     * @param height
+     *            the height of the grid
+     *
+     * @param walkable
+     *            whether each tile can be walked on, row by row
+     *
+     * @return the component of each tile, row by row, numbered from 1; 0 for unwalkable tiles
+     */
+    static int[] labelComponents(final int width, final int height, final boolean[] walkable) {
+        final int[] labels = new int[width * height];
+        final int[] queue = new int[width * height];
+        int label = 0;
+        for (int seed = 0; seed < labels.length; seed++) {
+            if (!walkable[seed] || (labels[seed] != 0)) {
+                continue;
+            }
+            label++;
+            labels[seed] = label;
+            queue[0] = seed;
+            for (int head = 0, tail = 1; head < tail; head++) {
+                final int x = queue[head] % width;
+                final int y = queue[head] / width;
+                for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, height - 1); ny++) {
+                    for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, width - 1); nx++) {
+                        final int neighbor = nx + (width * ny);
+                        if (!walkable[neighbor] || (labels[neighbor] != 0)) {
+                            continue;
+                        }
+                        if ((nx != x) && (ny != y) && !walkable[x + (width * ny)]
+                                && !walkable[nx + (width * y)]) {
+                            continue; // not diagonally accessible
+                        }
+                        labels[neighbor] = label;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * @param cost
+     *            the cost of a path, in multiples of {@link #STRAIGHT_COST} per tile; negative if
+     *            there is no path
+     *
+     * @return the length of the path in pixels, as used by
+     *         {@link GameMap#getGroundDistance(Position, Position)}; -1 if there is no path
+     */
+    static double getPixelDistance(final int cost) {
+        if (cost < 0) {
+            return -1;
+        }
+        return (cost * GameMap.TILE_SIZE) / (double) STRAIGHT_COST;
+    }
+
+    private boolean isOnGrid(final int x, final int y) {
+        return (x >= 0) && (y >= 0) && (x < width) && (y < height);
+    }
+
+    private void nextStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 0;
+        }
+        stamp++;
+    }
+
+    // Octile distance: min(dx, dy) diagonal moves, and |dx - dy| straight moves.
+    private static int getHeuristic(final int x, final int y, final int endX, final int endY) {
+        final int dx = Math.abs(x - endX);
+        final int dy = Math.abs(y - endY);
+        return (Math.abs(dx - dy) * STRAIGHT_COST) + (Math.min(dx, dy) * DIAGONAL_COST);
+    }
+
+    // Records a new or shorter path to a tile, adding it to the heap or moving it up.
+    private void reach(final int tile, final int parent, final int g, final int f) {
+        gScores[tile] = g;
+        fScores[tile] = f;
+        parents[tile] = parent;
+        if (stamps[tile] != stamp) {
+            stamps[tile] = stamp;
+            heap[heapSize] = tile;
+            heapIndices[tile] = heapSize;
+            heapSize++;
+        }
+        siftUp(heapIndices[tile]);
+    }
+
+    private int poll() {
+        final int top = heap[0];
+        heapIndices[top] = CLOSED;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndices[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // Orders by f-score, preferring the tile with the higher g-score (closer to the end) on ties.
+    private boolean isBefore(final int tile, final int other) {
+        if (fScores[tile] != fScores[other]) {
+            return fScores[tile] < fScores[other];
+        }
+        return gScores[tile] > gScores[other];
+    }
+
+    private void siftUp(int index) {
+        final int tile = heap[index];
+        while (index > 0) {
+            final int parentIndex = (index - 1) >>> 1;
+            final int parent = heap[parentIndex];
+            if (!isBefore(tile, parent)) {
+                break;
+            }
+            heap[index] = parent;
+            heapIndices[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = tile;
+        heapIndices[tile] = index;
+    }
+
+    private void siftDown(int index) {
+        final int tile = heap[index];
+        while (true) {
+            int child = (2 * index) + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (((child + 1) < heapSize) && isBefore(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!isBefore(heap[child], tile)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapIndices[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = tile;
+        heapIndices[tile] = index;
+    }
+}
@@ -161,9 +161,21 @@ public class Position {
      * @return the approximate distance between to the target position at the specified resolution
      */
     public int getApproxDistance(final Position target, final Resolution resolution) {
-        final int dx = Math.abs(x - target.x);
-        final int dy = Math.abs(y - target.y);
+        return getApproxDistance(Math.abs(x - target.x), Math.abs(y - target.y)) / resolution.scale;
+    }
 
+    /**
+     * Starcraft's approximated distance function.
+     *
+     * @param dx
+     *            the distance along the x-axis, in pixels; must not be negative
+     *
+     * @param dy
+     *            the distance along the y-axis, in pixels; must not be negative
+     *
+     * @return the approximate distance, in pixels
+     */
+    static int getApproxDistance(final int dx, final int dy) {
         final int min = Math.min(dx, dy);
         final int max = Math.max(dx, dy);
 
@@ -172,7 +184,7 @@ public class Position {
         }
 
         final int minCalc = (3 * min) >> 3;
-        return (((minCalc >> 5) + minCalc + max) - (max >> 4) - (max >> 6)) / resolution.scale;
+        return ((minCalc >> 5) + minCalc + max) - (max >> 4) - (max >> 6);
     }
 
     /**
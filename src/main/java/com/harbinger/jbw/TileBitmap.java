@@ -0,0 +1,203 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.BUILD;
+
+import java.nio.LongBuffer;
+
+/**
+ * A per-frame snapshot of a boolean property of every build tile on the map, such as whether the
+ * tile is visible, packed into a bit field.
+ *
+ * <p>
+ * The bits are stored row by row, so the bit of a tile is at index {@code tileX + (width * tileY)}
+ * and bit {@code i} is held by bit {@code i % 64} of word {@code i / 64}. The bridge writes the
+ * whole bit field into a direct buffer once per frame, so querying tiles does not require any JNI
+ * calls.
+ */
+public final class TileBitmap {
+
+    private final int width;
+    private final int height;
+    private final long[] words;
+
+    /**
+     * Constructs a bit field with all tiles cleared.
+     *
+     * @param width
+     *            the width of the map, in build tiles
+     *
+     * @param height
+     *            the height of the map, in build tiles
+     */
+    TileBitmap(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        words = new long[getWordCount(width, height)];
+    }
+
+    /**
+     * @param width
+     *            the width of the map, in build tiles
+     *
+     * @param height
+     *            the height of the map, in build tiles
+     *
+     * @return the number of 64-bit words used by the bit field of a map of the size
+     */
+    static int getWordCount(final int width, final int height) {
+        return ((width * height) + (Long.SIZE - 1)) / Long.SIZE;
+    }
+
+    /**
+     * @return the width of the map, in build tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of the map, in build tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param position
+     *            the position to check
+     *
+     * @return true if the property is set for the build tile at the position; false otherwise, or
+     *         if the position is not on the map
+     */
+    public boolean get(final Position position) {
+        return get(position.getX(BUILD), position.getY(BUILD));
+    }
+
+    /**
+     * @param tileX
+     *            the x-axis coordinate of the build tile
+     *
+     * @param tileY
+     *            the y-axis coordinate of the build tile
+     *
+     * @return true if the property is set for the build tile; false otherwise, or if the tile is
+     *         not on the map
+     */
+    public boolean get(final int tileX, final int tileY) {
+        if ((tileX < 0) || (tileY < 0) || (tileX >= width) || (tileY >= height)) {
+            return false;
+        }
+        final int bit = tileX + (width * tileY);
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * @return the number of build tiles on the map for which the property is set
+     */
+    public int count() {
+        int count = 0;
+        for (final long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the build tiles within a rectangle for which the property is set. The parts of the
+     * rectangle that are not on the map are ignored.
+     *
+     * @param tileX
+     *            the top-left x-axis coordinate of the rectangle, in build tiles
+     *
+     * @param tileY
+     *            the top-left y-axis coordinate of the rectangle, in build tiles
+     *
+     * @param tileWidth
+     *            the width of the rectangle, in build tiles
+     *
+     * @param tileHeight
+     *            the height of the rectangle, in build tiles
+     *
+     * @return the number of build tiles within the rectangle for which the property is set
+     */
+    public int count(final int tileX, final int tileY, final int tileWidth, final int tileHeight) {
+        final int left = Math.max(tileX, 0);
+        final int right = Math.min(tileX + tileWidth, width);
+        final int top = Math.max(tileY, 0);
+        final int bottom = Math.min(tileY + tileHeight, height);
+        if ((left >= right) || (top >= bottom)) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int y = top; y < bottom; y++) {
+            count += countBits((width * y) + left, (width * y) + right);
+        }
+        return count;
+    }
+
+    // Counts the set bits from start (inclusive) to end (exclusive).
+    private int countBits(final int start, final int end) {
+        final int first = start >>> 6;
+        final int last = (end - 1) >>> 6;
+        final long firstMask = -1L << start;
+        final long lastMask = -1L >>> (-end);
+        if (first == last) {
+            return Long.bitCount(words[first] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(words[first] & firstMask);
+        for (int i = first + 1; i < last; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count + Long.bitCount(words[last] & lastMask);
+    }
+
+    /**
+     * Takes a snapshot of the bit field written by the bridge.
+     *
+     * @param data
+     *            the buffer written by the bridge
+     *
+     * @param offset
+     *            the index of the first word of the bit field within the buffer
+     */
+    void read(final LongBuffer data, final int offset) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = data.get(offset + i);
+        }
+    }
+
+    /**
+     * Replaces a single word of the bit field with the word written by the bridge.
+     *
+     * @param index
+     *            the index of the word within the bit field
+     *
+     * @param word
+     *            the new value of the word
+     */
+    void setWord(final int index, final long word) {
+        words[index] = word;
+    }
+
+    /**
+     * Sets the property of a build tile, just as the bridge would.
+     *
+     * @param tileX
+     *            the x-axis coordinate of the build tile
+     *
+     * @param tileY
+     *            the y-axis coordinate of the build tile
+     *
+     * @param value
+     *            true to set the property; false to clear it
+     */
+    void set(final int tileX, final int tileY, final boolean value) {
+        final int bit = tileX + (width * tileY);
+        if (value) {
+            words[bit >>> 6] |= 1L << bit;
+        } else {
+            words[bit >>> 6] &= ~(1L << bit);
+        }
+    }
+}
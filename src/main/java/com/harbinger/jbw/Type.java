@@ -1,8 +1,10 @@
 package com.harbinger.jbw;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.ToIntFunction;
 
 /**
  *
@@ -22,6 +24,7 @@ public class Type {
         UNKNOWN(5);
 
         static final int NUM_ATTRIBUTES = 1;
+        private static final UnitSize[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
@@ -31,12 +34,7 @@ public class Type {
         }
 
         static UnitSize getUnitSizeType(final int id) {
-            for (final UnitSize type : UnitSize.values()) {
-                if (type.id == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         void initialize(final int[] data, int index, final String name) {
@@ -68,17 +66,13 @@ public class Type {
         UNKNOWN(6);
 
         static final int NUM_ATTRIBUTES = 1;
+        private static final Damage[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
 
         public static Damage getDamageType(final int id) {
-            for (final Damage type : Damage.values()) {
-                if (type.id == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Damage(final int id) {
@@ -133,17 +127,13 @@ public class Type {
         UNKNOWN(25);
 
         static final int NUM_ATTRIBUTES = 1;
+        private static final Explosion[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
 
         public static Explosion getExplosionType(final int id) {
-            for (final Explosion type : Explosion.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Explosion(final int id) {
@@ -186,6 +176,7 @@ public class Type {
         UNKNOWN(6);
 
         static final int NUM_ATTRIBUTES = 6;
+        private static final Race[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
@@ -196,12 +187,7 @@ public class Type {
         private int supplyProviderId;
 
         public static Race getRaceType(final int id) {
-            for (final Race type : Race.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Race(final int id) {
@@ -300,17 +286,13 @@ public class Type {
         UNKNOWN(210);
 
         static final int NUM_ATTRIBUTES = 1;
+        private static final Bullet[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
 
         public static Bullet getBulletType(final int id) {
-            for (final Bullet type : Bullet.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Bullet(final int id) {
@@ -392,17 +374,13 @@ public class Type {
         UNKNOWN(45);
 
         static final int NUM_ATTRIBUTES = 1;
+        private static final Command[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
 
         public static Command getCommandType(final int id) {
-            for (final Command type : Command.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Command(final int id) {
@@ -487,6 +465,7 @@ public class Type {
         NUCLEAR_STRIKE(46);
 
         static final int NUM_ATTRIBUTES = 10;
+        private static final Tech[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
@@ -501,12 +480,7 @@ public class Type {
         private boolean targetsPosition;
 
         public static Tech getTechType(final int id) {
-            for (final Tech type : Tech.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Tech(final int id) {
@@ -652,6 +626,7 @@ public class Type {
         UNKNOWN(62);
 
         static final int NUM_ATTRIBUTES = 10;
+        private static final Upgrade[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
@@ -666,12 +641,7 @@ public class Type {
         private int whatUpgradesTypeId;
 
         public static Upgrade getUpgradeType(final int id) {
-            for (final Upgrade type : Upgrade.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Upgrade(final int id) {
@@ -925,17 +895,13 @@ public class Type {
         UNKNOWN(190);
 
         static final int NUM_ATTRIBUTES = 1;
+        private static final Order[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
 
         public static Order getOrderType(final int id) {
-            for (final Order type : Order.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Order(final int id) {
@@ -1207,6 +1173,7 @@ public class Type {
         Unknown(233);
 
         static final int NUM_ATTRIBUTES = 57;
+        private static final UnitType[] TYPES_BY_ID = indexById(values(), type -> type.id);
         private static final double fixedScale = 100.0;
 
         private final int id;
@@ -1271,12 +1238,7 @@ public class Type {
         private final Map<Integer, Integer> requiredUnits = new HashMap<>();
 
         public static UnitType getUnitType(final int id) {
-            for (final UnitType type : UnitType.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private UnitType(final int id) {
@@ -1424,7 +1386,7 @@ public class Type {
         }
 
         public UnitSize getSize() {
-            return UnitSize.values()[sizeID];
+            return UnitSize.getUnitSizeType(sizeID);
         }
 
         public int getTileWidth() {
@@ -1733,6 +1695,7 @@ public class Type {
         UNKNOWN(131);
 
         static final int NUM_ATTRIBUTES = 24;
+        private static final Weapon[] TYPES_BY_ID = indexById(values(), type -> type.id);
 
         private String name;
         private final int id;
@@ -1761,12 +1724,7 @@ public class Type {
         private boolean targetsOwn;
 
         static Weapon getWeaponType(final int id) {
-            for (final Weapon type : Weapon.values()) {
-                if (type.getId() == id) {
-                    return type;
-                }
-            }
-            return null;
+            return lookup(TYPES_BY_ID, id);
         }
 
         private Weapon(final int id) {
@@ -1910,4 +1868,46 @@ public class Type {
             return targetsOwn;
         }
     }
+
+    /**
+     * Creates an array of the types indexed by their ID, so that the type with a given ID can be
+     * found without searching (or cloning) the values of the enum.
+     *
+     * @param values
+     *            all of the types
+     *
+     * @param id
+     *            provides the ID of a type
+     *
+     * @return the types indexed by their ID; IDs without a type are null
+     */
+    static <T> T[] indexById(final T[] values, final ToIntFunction<T> id) {
+        int maxId = -1;
+        for (final T value : values) {
+            maxId = Math.max(maxId, id.applyAsInt(value));
+        }
+
+        final T[] typesById = Arrays.copyOf(values, maxId + 1);
+        Arrays.fill(typesById, null);
+        for (final T value : values) {
+            typesById[id.applyAsInt(value)] = value;
+        }
+        return typesById;
+    }
+
+    /**
+     * @param typesById
+     *            the types indexed by their ID
+     *
+     * @param id
+     *            the ID of the type
+     *
+     * @return the type with the ID; null if there is no such type
+     */
+    static <T> T lookup(final T[] typesById, final int id) {
+        if ((id < 0) || (id >= typesById.length)) {
+            return null;
+        }
+        return typesById[id];
+    }
 }
@@ -0,0 +1,326 @@
+package com.harbinger.jbw;
+
+import com.harbinger.jbw.Type.Bullet;
+import com.harbinger.jbw.Type.Command;
+import com.harbinger.jbw.Type.Damage;
+import com.harbinger.jbw.Type.Explosion;
+import com.harbinger.jbw.Type.Order;
+import com.harbinger.jbw.Type.Race;
+import com.harbinger.jbw.Type.Tech;
+import com.harbinger.jbw.Type.UnitSize;
+import com.harbinger.jbw.Type.UnitType;
+import com.harbinger.jbw.Type.Upgrade;
+import com.harbinger.jbw.Type.Weapon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The decoded type tables provided by BWAPI, used to initialize the {@link Type} enums.
+ *
+ * <p>
+ * Retrieving the type tables from the bridge requires a JNI call for the name of every type, so
+ * the tables are cached on disk. The cache is keyed by the BWAPI revision that provided the tables;
+ * a cache written by a different revision (or a different version of the cache format) is ignored
+ * so that the tables are retrieved from the bridge again.
+ */
+class TypeData {
+
+    /**
+     * The categories of types, in the order they are stored.
+     */
+    enum Category {
+        RACE(Race.NUM_ATTRIBUTES),
+        UNIT(UnitType.NUM_ATTRIBUTES),
+        TECH(Tech.NUM_ATTRIBUTES),
+        UPGRADE(Upgrade.NUM_ATTRIBUTES),
+        WEAPON(Weapon.NUM_ATTRIBUTES),
+        UNIT_SIZE(UnitSize.NUM_ATTRIBUTES),
+        BULLET(Bullet.NUM_ATTRIBUTES),
+        DAMAGE(Damage.NUM_ATTRIBUTES),
+        EXPLOSION(Explosion.NUM_ATTRIBUTES),
+        COMMAND(Command.NUM_ATTRIBUTES),
+        ORDER(Order.NUM_ATTRIBUTES);
+
+        private final int numAttributes;
+
+        private Category(final int numAttributes) {
+            this.numAttributes = numAttributes;
+        }
+
+        /**
+         * @return the number of integers used by each type within the data of this category
+         */
+        int getNumAttributes() {
+            return numAttributes;
+        }
+    }
+
+    /** Identifies a type data cache file */
+    private static final int MAGIC = 0x4A425754;
+
+    /** The version of the cache format; increment whenever the format or type layouts change */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int NUM_CATEGORIES = Category.values().length;
+
+    private final int revision;
+    private final int[][] data = new int[NUM_CATEGORIES][];
+    private final String[][] names = new String[NUM_CATEGORIES][];
+    private int[][] requiredUnits;
+
+    /**
+     * @param revision
+     *            the BWAPI revision that provided the type tables
+     */
+    TypeData(final int revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * @return the BWAPI revision that provided the type tables
+     */
+    int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Sets the table of a category.
+     *
+     * @param category
+     *            the category of the types
+     *
+     * @param categoryData
+     *            the attributes of all types in the category, as provided by the bridge
+     *
+     * @param categoryNames
+     *            the name of each type, in the same order as the data
+     *
+     * @throws IllegalArgumentException
+     *             thrown if there is not exactly one name per type
+     */
+    void put(final Category category, final int[] categoryData, final String[] categoryNames)
+            throws IllegalArgumentException {
+        if ((categoryData.length % category.getNumAttributes()) != 0) {
+            throw new IllegalArgumentException("incomplete type data for " + category);
+        }
+        if ((categoryData.length / category.getNumAttributes()) != categoryNames.length) {
+            throw new IllegalArgumentException("one name is required per type for " + category);
+        }
+        data[category.ordinal()] = categoryData;
+        names[category.ordinal()] = categoryNames;
+    }
+
+    /**
+     * Sets the units required by each unit type.
+     *
+     * @param unitRequirements
+     *            the required units of each unit type, in the same order as the unit type data;
+     *            each is a list of unit type ID and count pairs
+     */
+    void putRequiredUnits(final int[][] unitRequirements) {
+        requiredUnits = unitRequirements;
+    }
+
+    /**
+     * @param category
+     *            the category of the types
+     *
+     * @return the attributes of all types in the category
+     */
+    int[] getData(final Category category) {
+        return data[category.ordinal()];
+    }
+
+    /**
+     * @param category
+     *            the category of the types
+     *
+     * @return the name of each type in the category
+     */
+    String[] getNames(final Category category) {
+        return names[category.ordinal()];
+    }
+
+    /**
+     * @return the required units of each unit type
+     */
+    int[][] getRequiredUnits() {
+        return requiredUnits;
+    }
+
+    /**
+     * @return true if the tables of all categories have been set; false otherwise
+     */
+    boolean isComplete() {
+        for (int i = 0; i < NUM_CATEGORIES; i++) {
+            if (data[i] == null) {
+                return false;
+            }
+        }
+        return (requiredUnits != null)
+                && (requiredUnits.length == (getNames(Category.UNIT).length));
+    }
+
+    /**
+     * Initializes the {@link Type} enums from the tables.
+     *
+     * @throws IllegalStateException
+     *             thrown if the tables of some categories have not been set
+     */
+    void initializeTypes() throws IllegalStateException {
+        if (!isComplete()) {
+            throw new IllegalStateException("type data is incomplete");
+        }
+
+        for (final Category category : Category.values()) {
+            final int[] categoryData = getData(category);
+            final String[] categoryNames = getNames(category);
+            for (int type = 0; type < categoryNames.length; type++) {
+                final int index = type * category.getNumAttributes();
+                final int id = categoryData[index];
+                final String name = categoryNames[type];
+                switch (category) {
+                    case RACE:
+                        Race.getRaceType(id).initialize(categoryData, index, name);
+                        break;
+                    case UNIT:
+                        UnitType.getUnitType(id).initialize(categoryData, index, name,
+                                requiredUnits[type]);
+                        break;
+                    case TECH:
+                        Tech.getTechType(id).initialize(categoryData, index, name);
+                        break;
+                    case UPGRADE:
+                        Upgrade.getUpgradeType(id).initialize(categoryData, index, name);
+                        break;
+                    case WEAPON:
+                        Weapon.getWeaponType(id).initialize(categoryData, index, name);
+                        break;
+                    case UNIT_SIZE:
+                        UnitSize.getUnitSizeType(id).initialize(categoryData, index, name);
+                        break;
+                    case BULLET:
+                        Bullet.getBulletType(id).initialize(categoryData, index, name);
+                        break;
+                    case DAMAGE:
+                        Damage.getDamageType(id).initialize(categoryData, index, name);
+                        break;
+                    case EXPLOSION:
+                        Explosion.getExplosionType(id).initialize(categoryData, index, name);
+                        break;
+                    case COMMAND:
+                        Command.getCommandType(id).initialize(categoryData, index, name);
+                        break;
+                    case ORDER:
+                        Order.getOrderType(id).initialize(categoryData, index, name);
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the tables in the cache format.
+     *
+     * @param out
+     *            the stream to write to
+     *
+     * @throws IOException
+     *             thrown if the tables could not be written
+     *
+     * @throws IllegalStateException
+     *             thrown if the tables of some categories have not been set
+     */
+    void write(final DataOutputStream out) throws IOException, IllegalStateException {
+        if (!isComplete()) {
+            throw new IllegalStateException("type data is incomplete");
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(revision);
+        for (int i = 0; i < NUM_CATEGORIES; i++) {
+            writeInts(out, data[i]);
+            out.writeInt(names[i].length);
+            for (final String name : names[i]) {
+                out.writeUTF(name);
+            }
+        }
+        for (final int[] unitRequirements : requiredUnits) {
+            writeInts(out, unitRequirements);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads tables that were written in the cache format.
+     *
+     * @param in
+     *            the stream to read from
+     *
+     * @param expectedRevision
+     *            the revision of BWAPI that is currently running
+     *
+     * @return the tables; null if they were written by a different revision of BWAPI or with a
+     *         different version of the cache format
+     *
+     * @throws IOException
+     *             thrown if the tables could not be read or are corrupt
+     */
+    static TypeData read(final DataInputStream in, final int expectedRevision)
+            throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a type data cache");
+        }
+        if ((in.readInt() != FORMAT_VERSION) || (in.readInt() != expectedRevision)) {
+            return null;
+        }
+
+        final TypeData typeData = new TypeData(expectedRevision);
+        for (final Category category : Category.values()) {
+            final int[] categoryData = readInts(in);
+            final String[] categoryNames = new String[readLength(in)];
+            for (int i = 0; i < categoryNames.length; i++) {
+                categoryNames[i] = in.readUTF();
+            }
+            try {
+                typeData.put(category, categoryData, categoryNames);
+            } catch (final IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage());
+            }
+        }
+
+        final int[][] unitRequirements = new int[typeData.getNames(Category.UNIT).length][];
+        for (int i = 0; i < unitRequirements.length; i++) {
+            unitRequirements[i] = readInts(in);
+        }
+        typeData.putRequiredUnits(unitRequirements);
+        return typeData;
+    }
+
+    private static void writeInts(final DataOutputStream out, final int[] values)
+            throws IOException {
+        out.writeInt(values.length);
+        for (final int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(final DataInputStream in) throws IOException {
+        final int[] values = new int[readLength(in)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static int readLength(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("corrupt type data cache");
+        }
+        return length;
+    }
+}
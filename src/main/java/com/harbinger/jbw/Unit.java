@@ -7,6 +7,10 @@ import com.harbinger.jbw.Type.Tech;
 import com.harbinger.jbw.Type.UnitType;
 import com.harbinger.jbw.Type.Upgrade;
 
+import java.nio.IntBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * This class is used to get information about individual units as well as issue order to units.
  * Each unit in the game has a unique Unit object, and Unit objects are not deleted until the end of
@@ -36,293 +40,115 @@ import com.harbinger.jbw.Type.Upgrade;
  * However for units that were owned by the player, getPlayer and getType will continue to work for
  * units that have been destroyed.
  *
+ * <p>
+ * While {@link Broodwar#setCommandBatching(boolean) command batching} is enabled, the command
+ * methods queue their command and return true; the command is issued at the end of the frame.
+ * While {@link Broodwar#setCommandFiltering(boolean) command filtering} is enabled, a command
+ * identical to the previous command sent to the unit within the latency window is dropped and the
+ * command method returns true.
+ *
  * For a description of fields see: http://code.google.com/p/bwapi/wiki/Unit
  */
 public class Unit {
 
     // TODO: Create a null unit
 
-    static final int NUM_ATTRIBUTES = 123;
+    static final int NUM_ATTRIBUTES = 73;
 
-    private static final double FIXED_SCALE = 100.0;
-    private static final double TO_DEGREES = 180.0 / Math.PI;
+    /**
+     * The commands that are {@link Broodwar#setCommandFiltering(boolean) filtered}. These only
+     * change what the unit is doing, so issuing one again has no effect; commands that queue work
+     * or spend resources, such as training, are never filtered.
+     */
+    private static final Set<Command> FILTERED_COMMANDS = EnumSet.of(Command.ATTACK_MOVE,
+            Command.ATTACK_UNIT, Command.SET_RALLY_POSITION, Command.SET_RALLY_UNIT, Command.MOVE,
+            Command.PATROL, Command.HOLD_POSITION, Command.STOP, Command.FOLLOW, Command.GATHER,
+            Command.RETURN_CARGO, Command.REPIAR, Command.RIGHT_CLICK_POSITION,
+            Command.RIGHT_CLICK_UNIT);
 
     private final Broodwar broodwar;
 
     private final int id;
-    private int replayId;
-    private int playerId;
-    private int typeId;
-    private int x;
-    private int y;
-    private int tileX;
-    private int tileY;
-    private double angle;
-    private double velocityX;
-    private double velocityY;
-    private int hitPoints;
-    private int shield;
-    private int energy;
-    private int resources;
-    private int resourceGroup;
-    private int lastCommandFrame;
-    private int lastCommandId;
-    private int lastAttackingPlayerId;
-    private int initialTypeId;
-    private int initialX;
-    private int initialY;
-    private int initialTileX;
-    private int initialTileY;
-    private int initialHitPoints;
-    private int initialResources;
-    private int killCount;
-    private int acidSporeCount;
-    private int interceptorCount;
-    private int scarabCount;
-    private int spiderMineCount;
-    private int groundWeaponCooldown;
-    private int airWeaponCooldown;
-    private int spellCooldown;
-    private int defenseMatrixPoints;
-    private int defenseMatrixTimer;
-    private int ensnareTimer;
-    private int irradiateTimer;
-    private int lockdownTimer;
-    private int maelstromTimer;
-    private int orderTimer;
-    private int plagueTimer;
-    private int removeTimer;
-    private int stasisTimer;
-    private int stimTimer;
-    private int buildTypeId;
-    private int trainingQueueSize;
-    private int researchingTechId;
-    private int upgradingUpgradeId;
-    private int remainingBuildTimer;
-    private int remainingTrainTime;
-    private int remainingResearchTime;
-    private int remainingUpgradeTime;
-    private int buildUnitId;
-    private int targetUnitId;
-    private int targetX;
-    private int targetY;
-    private int orderId;
-    private int orderTargetId;
-    private int secondaryOrderId;
-    private int rallyX;
-    private int rallyY;
-    private int rallyUnitId;
-    private int addOnId;
-    private int nydusExitUnitId;
-    private int transportId;
-    private int loadedUnitsCount;
-    private int carrierUnitId;
-    private int hatcheryUnitId;
-    private int larvaCount;
-    private int powerUpUnitId;
-    private boolean exists;
-    private boolean nukeReady;
-    private boolean accelerating;
-    private boolean attacking;
-    private boolean attackFrame;
-    private boolean beingConstructed;
-    private boolean beingGathered;
-    private boolean beingHealed;
-    private boolean blind;
-    private boolean braking;
-    private boolean burrowed;
-    private boolean carryingGas;
-    private boolean carryingMinerals;
-    private boolean cloaked;
-    private boolean completed;
-    private boolean constructing;
-    private boolean defenseMatrixed;
-    private boolean detected;
-    private boolean ensnared;
-    private boolean following;
-    private boolean gatheringGas;
-    private boolean gatheringMinerals;
-    private boolean hallucination;
-    private boolean holdingPosition;
-    private boolean idle;
-    private boolean interruptable;
-    private boolean invincible;
-    private boolean irradiated;
-    private boolean lifted;
-    private boolean loaded;
-    private boolean lockedDown;
-    private boolean maelstrommed;
-    private boolean morphing;
-    private boolean moving;
-    private boolean parasited;
-    private boolean patrolling;
-    private boolean plagued;
-    private boolean repairing;
-    private boolean selected;
-    private boolean sieged;
-    private boolean startingAttack;
-    private boolean stasised;
-    private boolean stimmed;
-    private boolean stuck;
-    private boolean training;
-    private boolean underAttack;
-    private boolean underDarkSwarm;
-    private boolean underDisruptionWeb;
-    private boolean underStorm;
-    private boolean unpowered;
-    private boolean upgrading;
-    private boolean visible;
+    private UnitTable table;
+    private int slot;
+    private int frameStamp;
+
+    // the last command sent by this object, used to filter redundant commands
+    private int lastIssuedCommand = -1;
+    private int lastIssuedTargetId;
+    private int lastIssuedX;
+    private int lastIssuedY;
+    private int lastIssuedExtra;
+    private int lastIssuedFrame;
+    private int pendingCommand = -1;
+    private int pendingTargetId;
+    private int pendingX;
+    private int pendingY;
+    private int pendingExtra;
 
     public Unit(final int id, final Broodwar broodwar) {
+        this(id, broodwar, new UnitTable(1));
+    }
+
+    Unit(final int id, final Broodwar broodwar, final UnitTable table) {
         this.id = id;
         this.broodwar = broodwar;
+        this.table = table;
+        slot = table.allocate(this);
     }
 
     public void setDestroyed() {
-        exists = false;
-    }
-
-    public void update(final int[] data, int index) {
-        index++; // ID = data[index++];
-        replayId = data[index++];
-        playerId = data[index++];
-        typeId = data[index++];
-        x = data[index++];
-        y = data[index++];
-        tileX = data[index++];
-        tileY = data[index++];
-        angle = data[index++] / TO_DEGREES;
-        velocityX = data[index++] / FIXED_SCALE;
-        velocityY = data[index++] / FIXED_SCALE;
-        hitPoints = data[index++];
-        shield = data[index++];
-        energy = data[index++];
-        resources = data[index++];
-        resourceGroup = data[index++];
-        lastCommandFrame = data[index++];
-        lastCommandId = data[index++];
-        lastAttackingPlayerId = data[index++];
-        initialTypeId = data[index++];
-        initialX = data[index++];
-        initialY = data[index++];
-        initialTileX = data[index++];
-        initialTileY = data[index++];
-        initialHitPoints = data[index++];
-        initialResources = data[index++];
-        killCount = data[index++];
-        acidSporeCount = data[index++];
-        interceptorCount = data[index++];
-        scarabCount = data[index++];
-        spiderMineCount = data[index++];
-        groundWeaponCooldown = data[index++];
-        airWeaponCooldown = data[index++];
-        spellCooldown = data[index++];
-        defenseMatrixPoints = data[index++];
-        defenseMatrixTimer = data[index++];
-        ensnareTimer = data[index++];
-        irradiateTimer = data[index++];
-        lockdownTimer = data[index++];
-        maelstromTimer = data[index++];
-        orderTimer = data[index++];
-        plagueTimer = data[index++];
-        removeTimer = data[index++];
-        stasisTimer = data[index++];
-        stimTimer = data[index++];
-        buildTypeId = data[index++];
-        trainingQueueSize = data[index++];
-        researchingTechId = data[index++];
-        upgradingUpgradeId = data[index++];
-        remainingBuildTimer = data[index++];
-        remainingTrainTime = data[index++];
-        remainingResearchTime = data[index++];
-        remainingUpgradeTime = data[index++];
-        buildUnitId = data[index++];
-        targetUnitId = data[index++];
-        targetX = data[index++];
-        targetY = data[index++];
-        orderId = data[index++];
-        orderTargetId = data[index++];
-        secondaryOrderId = data[index++];
-        rallyX = data[index++];
-        rallyY = data[index++];
-        rallyUnitId = data[index++];
-        addOnId = data[index++];
-        nydusExitUnitId = data[index++];
-        transportId = data[index++];
-        loadedUnitsCount = data[index++];
-        carrierUnitId = data[index++];
-        hatcheryUnitId = data[index++];
-        larvaCount = data[index++];
-        powerUpUnitId = data[index++];
-        exists = data[index++] == 1;
-        nukeReady = data[index++] == 1;
-        accelerating = data[index++] == 1;
-        attacking = data[index++] == 1;
-        attackFrame = data[index++] == 1;
-        beingConstructed = data[index++] == 1;
-        beingGathered = data[index++] == 1;
-        beingHealed = data[index++] == 1;
-        blind = data[index++] == 1;
-        braking = data[index++] == 1;
-        burrowed = data[index++] == 1;
-        carryingGas = data[index++] == 1;
-        carryingMinerals = data[index++] == 1;
-        cloaked = data[index++] == 1;
-        completed = data[index++] == 1;
-        constructing = data[index++] == 1;
-        defenseMatrixed = data[index++] == 1;
-        detected = data[index++] == 1;
-        ensnared = data[index++] == 1;
-        following = data[index++] == 1;
-        gatheringGas = data[index++] == 1;
-        gatheringMinerals = data[index++] == 1;
-        hallucination = data[index++] == 1;
-        holdingPosition = data[index++] == 1;
-        idle = data[index++] == 1;
-        interruptable = data[index++] == 1;
-        invincible = data[index++] == 1;
-        irradiated = data[index++] == 1;
-        lifted = data[index++] == 1;
-        loaded = data[index++] == 1;
-        lockedDown = data[index++] == 1;
-        maelstrommed = data[index++] == 1;
-        morphing = data[index++] == 1;
-        moving = data[index++] == 1;
-        parasited = data[index++] == 1;
-        patrolling = data[index++] == 1;
-        plagued = data[index++] == 1;
-        repairing = data[index++] == 1;
-        selected = data[index++] == 1;
-        sieged = data[index++] == 1;
-        startingAttack = data[index++] == 1;
-        stasised = data[index++] == 1;
-        stimmed = data[index++] == 1;
-        stuck = data[index++] == 1;
-        training = data[index++] == 1;
-        underAttack = data[index++] == 1;
-        underDarkSwarm = data[index++] == 1;
-        underDisruptionWeb = data[index++] == 1;
-        underStorm = data[index++] == 1;
-        unpowered = data[index++] == 1;
-        upgrading = data[index++] == 1;
-        visible = data[index++] == 1;
+        detach();
+        table.flags[slot] &= ~UnitFlag.EXISTS.getMask();
+    }
+
+    /**
+     * Moves the data of this unit into a table of its own, releasing its slot in the shared table.
+     */
+    private void detach() {
+        final UnitTable snapshot = new UnitTable(1);
+        final int snapshotSlot = snapshot.allocate(this);
+        table.copy(slot, snapshot, snapshotSlot);
+        table.release(slot);
+        table = snapshot;
+        slot = snapshotSlot;
+    }
+
+    public void update(final int[] data, final int index) {
+        update(IntBuffer.wrap(data), index);
+    }
+
+    public void update(final IntBuffer data, final int index) {
+        table.update(slot, data, index);
+    }
+
+    /**
+     * Records the update in which this unit was last accessible.
+     *
+     * @param stamp
+     *            the stamp of the current update
+     */
+    void setFrameStamp(final int stamp) {
+        frameStamp = stamp;
+    }
+
+    /**
+     * @return the stamp of the update in which this unit was last accessible
+     */
+    int getFrameStamp() {
+        return frameStamp;
     }
 
     @Override
     public Unit clone() {
         /*
-         * Safe to use clone for this class because it has only primitive fields and a reference to
-         * BWAPI, which should be shallow-copied. Beware when using equals or == with cloned Units
-         * as they will be considered equal (and not ==) regardless of any changes in their
-         * properties over time.
+         * The clone is backed by its own copy of the data, so it does not change along with this
+         * unit. Beware when using equals or == with cloned Units as they will be considered equal
+         * (and not ==) regardless of any changes in their properties over time.
          */
-        try {
-            return (Unit) super.clone();
-        } catch (final CloneNotSupportedException e) {
-            // Should never happen, as this implements Cloneable and extends Object
-            e.printStackTrace();
-            return null;
-        }
+        final Unit clone = new Unit(id, broodwar);
+        table.copy(slot, clone.table, clone.slot);
+        return clone;
     }
 
     /** Returns the edge-to-edge distance between the current unit and the target unit. */
@@ -335,45 +161,141 @@ public class Unit {
             return 0;
         }
 
-        int xDist = getLeft() - (target.getRight() + 1);
-        if (xDist < 0) {
-            xDist = target.getLeft() - (getRight() + 1);
-            if (xDist < 0) {
-                xDist = 0;
-            }
-        }
-        int yDist = getTop() - (target.getBottom() + 1);
-        if (yDist < 0) {
-            yDist = target.getTop() - (getBottom() + 1);
-            if (yDist < 0) {
-                yDist = 0;
-            }
-        }
-        return new Position(0, 0, Resolution.PIXEL).getDistance(new Position(xDist, yDist,
-                Resolution.PIXEL), Resolution.PIXEL);
+        return Math.sqrt(getDistanceSquared(target));
     }
 
     /** Returns the distance from the edge of the current unit to the target position. */
     public double getDistance(final Position target) {
+        return getDistance(target.getX(Resolution.PIXEL), target.getY(Resolution.PIXEL));
+    }
+
+    /** Returns the distance from the edge of the current unit to the target pixel coordinates. */
+    public double getDistance(final int x, final int y) {
         if (!isExists()) {
             return Integer.MAX_VALUE;
         }
-        int xDist = getLeft() - (target.getX(Resolution.PIXEL) + 1);
-        if (xDist < 0) {
-            xDist = target.getX(Resolution.PIXEL) - (getRight() + 1);
-            if (xDist < 0) {
-                xDist = 0;
-            }
+        return Math.sqrt(getDistanceSquared(x, y));
+    }
+
+    /**
+     * Returns the square of the edge-to-edge distance between the current unit and the target
+     * unit, which is cheaper when distances are only compared. Unlike
+     * {@link #getDistance(Unit)}, this does not check whether the units exist.
+     */
+    public int getDistanceSquared(final Unit target) {
+        final UnitTable targetTable = target.table;
+        final int targetSlot = target.slot;
+        final int xDist = getGap(table.left[slot], table.right[slot], targetTable.left[targetSlot],
+                targetTable.right[targetSlot]);
+        final int yDist = getGap(table.top[slot], table.bottom[slot], targetTable.top[targetSlot],
+                targetTable.bottom[targetSlot]);
+        return (xDist * xDist) + (yDist * yDist);
+    }
+
+    /**
+     * Returns the square of the distance from the edge of the current unit to the target pixel
+     * coordinates. Unlike {@link #getDistance(int, int)}, this does not check whether the unit
+     * exists.
+     */
+    public int getDistanceSquared(final int x, final int y) {
+        final int xDist = getGap(table.left[slot], table.right[slot], x, x);
+        final int yDist = getGap(table.top[slot], table.bottom[slot], y, y);
+        return (xDist * xDist) + (yDist * yDist);
+    }
+
+    /**
+     * Returns the edge-to-edge distance between the current unit and the target unit, using
+     * Starcraft's approximated distance function. Unlike {@link #getDistance(Unit)}, this does not
+     * check whether the units exist.
+     */
+    public int getApproxDistance(final Unit target) {
+        final UnitTable targetTable = target.table;
+        final int targetSlot = target.slot;
+        return Position.getApproxDistance(getGap(table.left[slot], table.right[slot],
+                targetTable.left[targetSlot], targetTable.right[targetSlot]), getGap(
+                table.top[slot], table.bottom[slot], targetTable.top[targetSlot],
+                targetTable.bottom[targetSlot]));
+    }
+
+    /**
+     * Returns the distance from the edge of the current unit to the target pixel coordinates,
+     * using Starcraft's approximated distance function. Unlike {@link #getDistance(int, int)},
+     * this does not check whether the unit exists.
+     */
+    public int getApproxDistance(final int x, final int y) {
+        return Position.getApproxDistance(getGap(table.left[slot], table.right[slot], x, x), getGap(
+                table.top[slot], table.bottom[slot], y, y));
+    }
+
+    /**
+     * Computes the edge-to-edge distance to each of the target units, as
+     * {@link #getDistance(Unit)} would.
+     *
+     * @param targets
+     *            the target units
+     *
+     * @param count
+     *            the number of target units to use, starting from the first
+     *
+     * @param distances
+     *            receives the distance to each target unit, at the same index as the unit
+     */
+    public void getDistances(final Unit[] targets, final int count, final double[] distances) {
+        for (int i = 0; i < count; i++) {
+            distances[i] = getDistance(targets[i]);
         }
-        int yDist = getTop() - (target.getY(Resolution.PIXEL) + 1);
-        if (yDist < 0) {
-            yDist = target.getY(Resolution.PIXEL) - (getBottom() + 1);
-            if (yDist < 0) {
-                yDist = 0;
+    }
+
+    /**
+     * Computes the square of the edge-to-edge distance to each of the target units, as
+     * {@link #getDistanceSquared(Unit)} would.
+     *
+     * @param targets
+     *            the target units
+     *
+     * @param count
+     *            the number of target units to use, starting from the first
+     *
+     * @param distances
+     *            receives the squared distance to each target unit, at the same index as the unit
+     */
+    public void getDistancesSquared(final Unit[] targets, final int count, final int[] distances) {
+        for (int i = 0; i < count; i++) {
+            distances[i] = getDistanceSquared(targets[i]);
+        }
+    }
+
+    /**
+     * Computes the approximate edge-to-edge distance to each of the target units, as
+     * {@link #getApproxDistance(Unit)} would.
+     *
+     * @param targets
+     *            the target units
+     *
+     * @param count
+     *            the number of target units to use, starting from the first
+     *
+     * @param distances
+     *            receives the approximate distance to each target unit, at the same index as the
+     *            unit
+     */
+    public void getApproxDistances(final Unit[] targets, final int count, final int[] distances) {
+        for (int i = 0; i < count; i++) {
+            distances[i] = getApproxDistance(targets[i]);
+        }
+    }
+
+    // Returns the gap between two spans along one axis, or 0 if they overlap.
+    private static int getGap(final int left, final int right, final int targetLeft,
+            final int targetRight) {
+        int gap = left - (targetRight + 1);
+        if (gap < 0) {
+            gap = targetLeft - (right + 1);
+            if (gap < 0) {
+                gap = 0;
             }
         }
-        return new Position(0, 0, Resolution.PIXEL).getDistance(new Position(xDist, yDist,
-                Resolution.PIXEL), Resolution.PIXEL);
+        return gap;
     }
 
     public Position getTopLeft() {
@@ -385,19 +307,33 @@ public class Unit {
     }
 
     public int getLeft() {
-        return x - getType().getDimensionLeft();
+        return table.left[slot];
     }
 
     public int getTop() {
-        return y - getType().getDimensionUp();
+        return table.top[slot];
     }
 
     public int getRight() {
-        return x + getType().getDimensionRight();
+        return table.right[slot];
     }
 
     public int getBottom() {
-        return y + getType().getDimensionDown();
+        return table.bottom[slot];
+    }
+
+    /**
+     * Returns the slot of this unit within the {@link Broodwar#getUnitTable() unit table}, which
+     * can be used to read the unit's attributes directly from the table's columns.
+     *
+     * <p>
+     * The slot is only valid while the unit is accessible; it may be reused after the unit has been
+     * destroyed.
+     *
+     * @return the slot of this unit within the unit table
+     */
+    public int getSlot() {
+        return slot;
     }
 
     /**
@@ -410,458 +346,519 @@ public class Unit {
     }
 
     public int getReplayId() {
-        return replayId;
+        return table.replayId[slot];
     }
 
     public Player getPlayer() {
-        return broodwar.getPlayer(playerId);
+        return broodwar.getPlayer(table.playerId[slot]);
+    }
+
+    int getPlayerId() {
+        return table.playerId[slot];
     }
 
     public UnitType getType() {
-        return UnitType.getUnitType(typeId);
+        return UnitType.getUnitType(table.typeId[slot]);
     }
 
     public double getAngle() {
-        return angle;
+        return table.angle[slot];
     }
 
     public double getVelocityX() {
-        return velocityX;
+        return table.velocityX[slot];
     }
 
     public double getVelocityY() {
-        return velocityY;
+        return table.velocityY[slot];
     }
 
     public int getHitPoints() {
-        return hitPoints;
+        return table.hitPoints[slot];
     }
 
     public int getShields() {
-        return shield;
+        return table.shield[slot];
     }
 
     public int getEnergy() {
-        return energy;
+        return table.energy[slot];
     }
 
     public int getResources() {
-        return resources;
+        return table.resources[slot];
     }
 
     public int getResourceGroup() {
-        return resourceGroup;
+        return table.resourceGroup[slot];
     }
 
     public int getLastCommandFrame() {
-        return lastCommandFrame;
+        return table.lastCommandFrame[slot];
     }
 
     public Command getLastCommand() {
-        return Command.getCommandType(lastCommandId);
+        return Command.getCommandType(table.lastCommandId[slot]);
     }
 
     public Player getLastAttackingPlayer() {
-        return broodwar.getPlayer(lastAttackingPlayerId);
+        return broodwar.getPlayer(table.lastAttackingPlayerId[slot]);
     }
 
     public UnitType getInitialType() {
-        return UnitType.getUnitType(initialTypeId);
+        return UnitType.getUnitType(table.initialTypeId[slot]);
     }
 
     public Position getInitialPosition() {
-        return new Position(initialX, initialY, Resolution.PIXEL);
+        return new Position(table.initialX[slot], table.initialY[slot], Resolution.PIXEL);
     }
 
     public int getInitialHitPoints() {
-        return initialHitPoints;
+        return table.initialHitPoints[slot];
     }
 
     public int getInitialResources() {
-        return initialResources;
+        return table.initialResources[slot];
     }
 
     public int getKillCount() {
-        return killCount;
+        return table.killCount[slot];
     }
 
     public int getAcidSporeCount() {
-        return acidSporeCount;
+        return table.acidSporeCount[slot];
     }
 
     /** @see #getInterceptors() TODO */
     public int getInterceptorCount() {
-        return interceptorCount;
+        return table.interceptorCount[slot];
     }
 
     public int getScarabCount() {
-        return scarabCount;
+        return table.scarabCount[slot];
     }
 
     public int getSpiderMineCount() {
-        return spiderMineCount;
+        return table.spiderMineCount[slot];
     }
 
     public int getGroundWeaponCooldown() {
-        return groundWeaponCooldown;
+        return table.groundWeaponCooldown[slot];
     }
 
     public int getAirWeaponCooldown() {
-        return airWeaponCooldown;
+        return table.airWeaponCooldown[slot];
     }
 
     public int getSpellCooldown() {
-        return spellCooldown;
+        return table.spellCooldown[slot];
     }
 
     public int getDefenseMatrixPoints() {
-        return defenseMatrixPoints;
+        return table.defenseMatrixPoints[slot];
     }
 
     public int getDefenseMatrixTimer() {
-        return defenseMatrixTimer;
+        return table.defenseMatrixTimer[slot];
     }
 
     public int getEnsnareTimer() {
-        return ensnareTimer;
+        return table.ensnareTimer[slot];
     }
 
     public int getIrradiateTimer() {
-        return irradiateTimer;
+        return table.irradiateTimer[slot];
     }
 
     public int getLockdownTimer() {
-        return lockdownTimer;
+        return table.lockdownTimer[slot];
     }
 
     public int getMaelstromTimer() {
-        return maelstromTimer;
+        return table.maelstromTimer[slot];
     }
 
     public int getOrderTimer() {
-        return orderTimer;
+        return table.orderTimer[slot];
     }
 
     public int getPlagueTimer() {
-        return plagueTimer;
+        return table.plagueTimer[slot];
     }
 
     public int getRemoveTimer() {
-        return removeTimer;
+        return table.removeTimer[slot];
     }
 
     public int getStasisTimer() {
-        return stasisTimer;
+        return table.stasisTimer[slot];
     }
 
     public int getStimTimer() {
-        return stimTimer;
+        return table.stimTimer[slot];
     }
 
     public UnitType getBuildType() {
-        return UnitType.getUnitType(buildTypeId);
+        return UnitType.getUnitType(table.buildTypeId[slot]);
     }
 
     public int getTrainingQueueSize() {
-        return trainingQueueSize;
+        return table.trainingQueueSize[slot];
     }
 
     public Tech getTech() {
-        return Tech.getTechType(researchingTechId);
+        return Tech.getTechType(table.researchingTechId[slot]);
     }
 
     public Upgrade getUpgrade() {
-        return Upgrade.getUpgradeType(upgradingUpgradeId);
+        return Upgrade.getUpgradeType(table.upgradingUpgradeId[slot]);
     }
 
     public int getRemainingBuildTimer() {
-        return remainingBuildTimer;
+        return table.remainingBuildTimer[slot];
     }
 
     public int getRemainingTrainTime() {
-        return remainingTrainTime;
+        return table.remainingTrainTime[slot];
     }
 
     public int getRemainingResearchTime() {
-        return remainingResearchTime;
+        return table.remainingResearchTime[slot];
     }
 
     public int getRemainingUpgradeTime() {
-        return remainingUpgradeTime;
+        return table.remainingUpgradeTime[slot];
     }
 
     public Unit getBuildUnit() {
-        return broodwar.getUnit(buildUnitId);
+        return broodwar.getUnitById(table.buildUnitId[slot]);
     }
 
     public Unit getTarget() {
-        return broodwar.getUnit(targetUnitId);
+        return broodwar.getUnitById(table.targetUnitId[slot]);
     }
 
     public Position getTargetPosition() {
-        return new Position(targetX, targetY, Resolution.PIXEL);
+        return new Position(table.targetX[slot], table.targetY[slot], Resolution.PIXEL);
     }
 
     public Order getOrder() {
-        return Order.getOrderType(orderId);
+        return Order.getOrderType(table.orderId[slot]);
     }
 
     public Unit getOrderTarget() {
-        return broodwar.getUnit(orderTargetId);
+        return broodwar.getUnitById(table.orderTargetId[slot]);
     }
 
     public Order getSecondaryOrder() {
-        return Order.getOrderType(secondaryOrderId);
+        return Order.getOrderType(table.secondaryOrderId[slot]);
     }
 
     public Position getRallyPosition() {
-        return new Position(rallyX, rallyY, Resolution.PIXEL);
+        return new Position(table.rallyX[slot], table.rallyY[slot], Resolution.PIXEL);
     }
 
     public Unit getRallyUnit() {
-        return broodwar.getUnit(rallyUnitId);
+        return broodwar.getUnitById(table.rallyUnitId[slot]);
     }
 
     public Unit getAddon() {
-        return broodwar.getUnit(addOnId);
+        return broodwar.getUnitById(table.addOnId[slot]);
     }
 
     public Unit getNydusExit() {
-        return broodwar.getUnit(nydusExitUnitId);
+        return broodwar.getUnitById(table.nydusExitUnitId[slot]);
     }
 
     public Unit getTransport() {
-        return broodwar.getUnit(transportId);
+        return broodwar.getUnitById(table.transportId[slot]);
     }
 
     /** TODO @see #getLoadedUnits() */
     public int getLoadedUnitsCount() {
-        return loadedUnitsCount;
+        return table.loadedUnitsCount[slot];
     }
 
     public Unit getCarrier() {
-        return broodwar.getUnit(carrierUnitId);
+        return broodwar.getUnitById(table.carrierUnitId[slot]);
     }
 
     public Unit getHatchery() {
-        return broodwar.getUnit(hatcheryUnitId);
+        return broodwar.getUnitById(table.hatcheryUnitId[slot]);
     }
 
     /** TODO @see #getLarva() */
     public int getLarvaCount() {
-        return larvaCount;
+        return table.larvaCount[slot];
     }
 
     public Unit getPowerUp() {
-        return broodwar.getUnit(powerUpUnitId);
+        return broodwar.getUnitById(table.powerUpUnitId[slot]);
+    }
+
+    /**
+     * @return the status flags of this unit, one bit per {@link UnitFlag}
+     */
+    public long getFlags() {
+        return table.flags[slot];
+    }
+
+    /**
+     * @param flag
+     *            the flag to test
+     *
+     * @return true if this unit has the flag set; false otherwise
+     */
+    public boolean has(final UnitFlag flag) {
+        return (table.flags[slot] & flag.getMask()) != 0;
+    }
+
+    /**
+     * @param mask
+     *            the {@link UnitFlag#mask(UnitFlag...) mask} of the flags to test
+     *
+     * @return true if this unit has all of the flags set; false otherwise
+     */
+    public boolean hasAll(final long mask) {
+        return (table.flags[slot] & mask) == mask;
+    }
+
+    /**
+     * @param mask
+     *            the {@link UnitFlag#mask(UnitFlag...) mask} of the flags to test
+     *
+     * @return true if this unit has at least one of the flags set; false otherwise
+     */
+    public boolean hasAny(final long mask) {
+        return (table.flags[slot] & mask) != 0;
+    }
+
+    /**
+     * @param flags
+     *            the flags to test
+     *
+     * @return true if this unit has all of the flags set; false otherwise
+     */
+    public boolean hasAll(final UnitFlag... flags) {
+        return hasAll(UnitFlag.mask(flags));
+    }
+
+    /**
+     * @param flags
+     *            the flags to test
+     *
+     * @return true if this unit has at least one of the flags set; false otherwise
+     */
+    public boolean hasAny(final UnitFlag... flags) {
+        return hasAny(UnitFlag.mask(flags));
     }
 
     public boolean isExists() {
-        return exists;
+        return has(UnitFlag.EXISTS);
     }
 
     public boolean isNukeReady() {
-        return nukeReady;
+        return has(UnitFlag.NUKE_READY);
     }
 
     public boolean isAccelerating() {
-        return accelerating;
+        return has(UnitFlag.ACCELERATING);
     }
 
     public boolean isAttacking() {
-        return attacking;
+        return has(UnitFlag.ATTACKING);
     }
 
     public boolean isAttackFrame() {
-        return attackFrame;
+        return has(UnitFlag.ATTACK_FRAME);
     }
 
     public boolean isBeingConstructed() {
-        return beingConstructed;
+        return has(UnitFlag.BEING_CONSTRUCTED);
     }
 
     public boolean isBeingGathered() {
-        return beingGathered;
+        return has(UnitFlag.BEING_GATHERED);
     }
 
     public boolean isBeingHealed() {
-        return beingHealed;
+        return has(UnitFlag.BEING_HEALED);
     }
 
     public boolean isBlind() {
-        return blind;
+        return has(UnitFlag.BLIND);
     }
 
     public boolean isBraking() {
-        return braking;
+        return has(UnitFlag.BRAKING);
     }
 
     public boolean isBurrowed() {
-        return burrowed;
+        return has(UnitFlag.BURROWED);
     }
 
     public boolean isCarryingGas() {
-        return carryingGas;
+        return has(UnitFlag.CARRYING_GAS);
     }
 
     public boolean isCarryingMinerals() {
-        return carryingMinerals;
+        return has(UnitFlag.CARRYING_MINERALS);
     }
 
     public boolean isCloaked() {
-        return cloaked;
+        return has(UnitFlag.CLOAKED);
     }
 
     public boolean isCompleted() {
-        return completed;
+        return has(UnitFlag.COMPLETED);
     }
 
     public boolean isConstructing() {
-        return constructing;
+        return has(UnitFlag.CONSTRUCTING);
     }
 
     public boolean isDefenseMatrixed() {
-        return defenseMatrixed;
+        return has(UnitFlag.DEFENSE_MATRIXED);
     }
 
     public boolean isDetected() {
-        return detected;
+        return has(UnitFlag.DETECTED);
     }
 
     public boolean isEnsnared() {
-        return ensnared;
+        return has(UnitFlag.ENSNARED);
     }
 
     public boolean isFollowing() {
-        return following;
+        return has(UnitFlag.FOLLOWING);
     }
 
     public boolean isGatheringGas() {
-        return gatheringGas;
+        return has(UnitFlag.GATHERING_GAS);
     }
 
     public boolean isGatheringMinerals() {
-        return gatheringMinerals;
+        return has(UnitFlag.GATHERING_MINERALS);
     }
 
     public boolean isHallucination() {
-        return hallucination;
+        return has(UnitFlag.HALLUCINATION);
     }
 
     public boolean isHoldingPosition() {
-        return holdingPosition;
+        return has(UnitFlag.HOLDING_POSITION);
     }
 
     public boolean isIdle() {
-        return idle;
+        return has(UnitFlag.IDLE);
     }
 
     public boolean isInterruptable() {
-        return interruptable;
+        return has(UnitFlag.INTERRUPTABLE);
     }
 
     public boolean isInvincible() {
-        return invincible;
+        return has(UnitFlag.INVINCIBLE);
     }
 
     public boolean isIrradiated() {
-        return irradiated;
+        return has(UnitFlag.IRRADIATED);
     }
 
     public boolean isLifted() {
-        return lifted;
+        return has(UnitFlag.LIFTED);
     }
 
     public boolean isLoaded() {
-        return loaded;
+        return has(UnitFlag.LOADED);
     }
 
     public boolean isLockedDown() {
-        return lockedDown;
+        return has(UnitFlag.LOCKED_DOWN);
     }
 
     public boolean isMaelstrommed() {
-        return maelstrommed;
+        return has(UnitFlag.MAELSTROMMED);
     }
 
     public boolean isMorphing() {
-        return morphing;
+        return has(UnitFlag.MORPHING);
     }
 
     public boolean isMoving() {
-        return moving;
+        return has(UnitFlag.MOVING);
     }
 
     public boolean isParasited() {
-        return parasited;
+        return has(UnitFlag.PARASITED);
     }
 
     public boolean isPatrolling() {
-        return patrolling;
+        return has(UnitFlag.PATROLLING);
     }
 
     public boolean isPlagued() {
-        return plagued;
+        return has(UnitFlag.PLAGUED);
     }
 
     public boolean isRepairing() {
-        return repairing;
+        return has(UnitFlag.REPAIRING);
     }
 
     public boolean isSelected() {
-        return selected;
+        return has(UnitFlag.SELECTED);
     }
 
     public boolean isSieged() {
-        return sieged;
+        return has(UnitFlag.SIEGED);
     }
 
     public boolean isStartingAttack() {
-        return startingAttack;
+        return has(UnitFlag.STARTING_ATTACK);
     }
 
     public boolean isStasised() {
-        return stasised;
+        return has(UnitFlag.STASISED);
     }
 
     public boolean isStimmed() {
-        return stimmed;
+        return has(UnitFlag.STIMMED);
     }
 
     public boolean isStuck() {
-        return stuck;
+        return has(UnitFlag.STUCK);
     }
 
     public boolean isTraining() {
-        return training;
+        return has(UnitFlag.TRAINING);
     }
 
     public boolean isUnderAttack() {
-        return underAttack;
+        return has(UnitFlag.UNDER_ATTACK);
     }
 
     public boolean isUnderDarkSwarm() {
-        return underDarkSwarm;
+        return has(UnitFlag.UNDER_DARK_SWARM);
     }
 
     public boolean isUnderDisruptionWeb() {
-        return underDisruptionWeb;
+        return has(UnitFlag.UNDER_DISRUPTION_WEB);
     }
 
     public boolean isUnderStorm() {
-        return underStorm;
+        return has(UnitFlag.UNDER_STORM);
     }
 
     public boolean isUnpowered() {
-        return unpowered;
+        return has(UnitFlag.UNPOWERED);
     }
 
     public boolean isUpgrading() {
-        return upgrading;
+        return has(UnitFlag.UPGRADING);
     }
 
     public boolean isVisible() {
-        return visible;
+        return has(UnitFlag.VISIBLE);
     }
 
     /**
@@ -874,7 +871,12 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean attack(final Position position) {
-        return attack(getId(), position.getX(Resolution.PIXEL), position.getY(Resolution.PIXEL));
+        if (isCommandHandled(Command.ATTACK_MOVE, -1, position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL), 0)) {
+            return true;
+        }
+        return recordCommand(attack(getId(), position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL)));
     }
 
     private native boolean attack(final int unitId, final int x, final int y);
@@ -889,7 +891,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean attack(final Unit target) {
-        return attack(getId(), target.getId());
+        if (isCommandHandled(Command.ATTACK_UNIT, target.getId(), 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(attack(getId(), target.getId()));
     }
 
     private native boolean attack(final int unitId, final int targetId);
@@ -906,6 +911,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean build(final UnitType building, final Position position) {
+        if (isCommandHandled(Command.BUILD, -1, position.getX(Resolution.BUILD),
+                position.getY(Resolution.BUILD), building.getId())) {
+            return true;
+        }
         return build(getId(), building.getId(), position.getX(Resolution.BUILD),
                 position.getY(Resolution.BUILD));
     }
@@ -926,6 +935,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean buildAddon(final Unit addon) {
+        if (isCommandHandled(Command.BUILD_ADDON, -1, 0, 0, addon.getId())) {
+            return true;
+        }
         return buildAddon(getId(), addon.getId());
     }
 
@@ -941,6 +953,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean train(final UnitType unit) {
+        if (isCommandHandled(Command.TRAIN, -1, 0, 0, unit.getId())) {
+            return true;
+        }
         return train(getId(), unit.getId());
     }
 
@@ -955,6 +970,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean morph(final UnitType target) {
+        if (isCommandHandled(Command.MORPH, -1, 0, 0, target.getId())) {
+            return true;
+        }
         return morph(getId(), target.getId());
     }
 
@@ -969,6 +987,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean research(final Tech tech) {
+        if (isCommandHandled(Command.RESEARCH, -1, 0, 0, tech.getId())) {
+            return true;
+        }
         return research(getId(), tech.getId());
     }
 
@@ -983,6 +1004,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean upgrade(final Upgrade upgrade) {
+        if (isCommandHandled(Command.UPGRADE, -1, 0, 0, upgrade.getId())) {
+            return true;
+        }
         return upgrade(getId(), upgrade.getId());
     }
 
@@ -997,8 +1021,12 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean setRallyPoint(final Position position) {
-        return setRallyPoint(getId(), position.getX(Resolution.PIXEL),
-                position.getY(Resolution.PIXEL));
+        if (isCommandHandled(Command.SET_RALLY_POSITION, -1, position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL), 0)) {
+            return true;
+        }
+        return recordCommand(setRallyPoint(getId(), position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL)));
     }
 
     private native boolean setRallyPoint(final int unitId, final int x, final int y);
@@ -1012,7 +1040,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean setRallyPoint(final Unit target) {
-        return setRallyPoint(getId(), target.getId());
+        if (isCommandHandled(Command.SET_RALLY_UNIT, target.getId(), 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(setRallyPoint(getId(), target.getId()));
     }
 
     private native boolean setRallyPoint(final int unitId, final int targetId);
@@ -1027,7 +1058,12 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean move(final Position position) {
-        return move(getId(), position.getX(Resolution.PIXEL), position.getY(Resolution.PIXEL));
+        if (isCommandHandled(Command.MOVE, -1, position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL), 0)) {
+            return true;
+        }
+        return recordCommand(move(getId(), position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL)));
     }
 
     private native boolean move(final int unitId, final int x, final int y);
@@ -1042,7 +1078,12 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean patrol(final Position position) {
-        return patrol(getId(), position.getX(Resolution.PIXEL), position.getY(Resolution.PIXEL));
+        if (isCommandHandled(Command.PATROL, -1, position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL), 0)) {
+            return true;
+        }
+        return recordCommand(patrol(getId(), position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL)));
     }
 
     private native boolean patrol(final int unitId, final int x, final int y);
@@ -1057,7 +1098,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean holdPosition() {
-        return holdPosition(getId());
+        if (isCommandHandled(Command.HOLD_POSITION, -1, 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(holdPosition(getId()));
     }
 
     private native boolean holdPosition(final int unitId);
@@ -1068,7 +1112,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean stop() {
-        return stop(getId());
+        if (isCommandHandled(Command.STOP, -1, 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(stop(getId()));
     }
 
     private native boolean stop(final int unitId);
@@ -1083,7 +1130,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean follow(final Unit target) {
-        return follow(getId(), target.getId());
+        if (isCommandHandled(Command.FOLLOW, target.getId(), 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(follow(getId(), target.getId()));
     }
 
     public native boolean follow(final int unitId, final int targetId);
@@ -1101,7 +1151,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean gather(final Unit target) {
-        return gather(getId(), target.getId());
+        if (isCommandHandled(Command.GATHER, target.getId(), 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(gather(getId(), target.getId()));
     }
 
     private native boolean gather(final int unitId, final int targetId);
@@ -1113,7 +1166,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean returnCargo() {
-        return returnCargo(getId());
+        if (isCommandHandled(Command.RETURN_CARGO, -1, 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(returnCargo(getId()));
     }
 
     private native boolean returnCargo(final int unitId);
@@ -1131,7 +1187,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean repair(final Unit target) {
-        return repair(getId(), target.getId());
+        if (isCommandHandled(Command.REPIAR, target.getId(), 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(repair(getId(), target.getId()));
     }
 
     private native boolean repair(final int unitId, final int targetId);
@@ -1143,6 +1202,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean burrow() {
+        if (isCommandHandled(Command.BURROW, -1, 0, 0, 0)) {
+            return true;
+        }
         return burrow(getId());
     }
 
@@ -1158,6 +1220,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean unburrow() {
+        if (isCommandHandled(Command.UNBURROW, -1, 0, 0, 0)) {
+            return true;
+        }
         return unburrow(getId());
     }
 
@@ -1169,6 +1234,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean cloak() {
+        if (isCommandHandled(Command.CLOAK, -1, 0, 0, 0)) {
+            return true;
+        }
         return cloak(getId());
     }
 
@@ -1180,6 +1248,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean decloak() {
+        if (isCommandHandled(Command.DECLOAK, -1, 0, 0, 0)) {
+            return true;
+        }
         return decloak(getId());
     }
 
@@ -1195,6 +1266,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean siege() {
+        if (isCommandHandled(Command.SIEGE, -1, 0, 0, 0)) {
+            return true;
+        }
         return siege(getId());
     }
 
@@ -1210,6 +1284,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean unsiege() {
+        if (isCommandHandled(Command.UNSIEGE, -1, 0, 0, 0)) {
+            return true;
+        }
         return unsiege(getId());
     }
 
@@ -1224,6 +1301,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean lift() {
+        if (isCommandHandled(Command.LIFE, -1, 0, 0, 0)) {
+            return true;
+        }
         return lift(getId());
     }
 
@@ -1241,6 +1321,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean land(final Position position) {
+        if (isCommandHandled(Command.LAND, -1, position.getX(Resolution.BUILD),
+                position.getY(Resolution.BUILD), 0)) {
+            return true;
+        }
         return land(getId(), position.getX(Resolution.BUILD), position.getY(Resolution.BUILD));
     }
 
@@ -1255,6 +1339,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean load(final Unit target) {
+        if (isCommandHandled(Command.LOAD, target.getId(), 0, 0, 0)) {
+            return true;
+        }
         return load(getId(), target.getId());
     }
 
@@ -1269,6 +1356,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean unload(final Unit target) {
+        if (isCommandHandled(Command.UNLOAD, target.getId(), 0, 0, 0)) {
+            return true;
+        }
         return unload(getId(), target.getId());
     }
 
@@ -1280,6 +1370,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean unloadAll() {
+        if (isCommandHandled(Command.UNLOAD_ALL, -1, 0, 0, 0)) {
+            return true;
+        }
         return unloadAll(getId());
     }
 
@@ -1298,6 +1391,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean unloadAll(final Position position) {
+        if (isCommandHandled(Command.UNLOAD_ALL_POSITION, -1, position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL), 0)) {
+            return true;
+        }
         return unloadAll(getId(), position.getX(Resolution.PIXEL), position.getY(Resolution.PIXEL));
     }
 
@@ -1313,7 +1410,12 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean rightClick(final Position position) {
-        return rightClick(getId(), position.getX(Resolution.PIXEL), position.getY(Resolution.PIXEL));
+        if (isCommandHandled(Command.RIGHT_CLICK_POSITION, -1, position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL), 0)) {
+            return true;
+        }
+        return recordCommand(rightClick(getId(), position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL)));
     }
 
     private native boolean rightClick(final int unitId, final int x, final int y);
@@ -1328,7 +1430,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean rightClick(final Unit target) {
-        return rightClick(getId(), target.getId());
+        if (isCommandHandled(Command.RIGHT_CLICK_UNIT, target.getId(), 0, 0, 0)) {
+            return true;
+        }
+        return recordCommand(rightClick(getId(), target.getId()));
     }
 
     private native boolean rightClick(final int unitId, final int targetId);
@@ -1339,6 +1444,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean haltConstruction() {
+        if (isCommandHandled(Command.HALT_CONSTRUCTION, -1, 0, 0, 0)) {
+            return true;
+        }
         return haltConstruction(getId());
     }
 
@@ -1350,6 +1458,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean cancelConstruction() {
+        if (isCommandHandled(Command.CANCEL_CONSTRUCTION, -1, 0, 0, 0)) {
+            return true;
+        }
         return cancelConstruction(getId());
     }
 
@@ -1361,6 +1472,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean cancelAddon() {
+        if (isCommandHandled(Command.CANCEL_ADDON, -1, 0, 0, 0)) {
+            return true;
+        }
         return cancelAddon(getId());
     }
 
@@ -1375,6 +1489,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean cancelTrain(final int slot) {
+        if (isCommandHandled(Command.CANCEL_TRAIN_SLOT, -1, 0, 0, slot)) {
+            return true;
+        }
         return cancelTrain(getId(), slot);
     }
 
@@ -1386,6 +1503,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean cancelMorph() {
+        if (isCommandHandled(Command.CANCEL_MORPH, -1, 0, 0, 0)) {
+            return true;
+        }
         return cancelMorph(getId());
     }
 
@@ -1397,6 +1517,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean cancelResearch() {
+        if (isCommandHandled(Command.CANCEL_RESEARCH, -1, 0, 0, 0)) {
+            return true;
+        }
         return cancelResearch(getId());
     }
 
@@ -1408,6 +1531,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean cancelUpgrade() {
+        if (isCommandHandled(Command.CANCEL_UPGRADE, -1, 0, 0, 0)) {
+            return true;
+        }
         return cancelUpgrade(getId());
     }
 
@@ -1422,6 +1548,9 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean useTech(final Tech tech) {
+        if (isCommandHandled(Command.USE_TECH, -1, 0, 0, tech.getId())) {
+            return true;
+        }
         return useTech(getId(), tech.getId());
     }
 
@@ -1439,6 +1568,10 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean useTech(final Tech tech, final Position position) {
+        if (isCommandHandled(Command.USE_TECH_POSITION, -1, position.getX(Resolution.PIXEL),
+                position.getY(Resolution.PIXEL), tech.getId())) {
+            return true;
+        }
         return useTech(getId(), tech.getId(), position.getX(Resolution.PIXEL),
                 position.getY(Resolution.PIXEL));
     }
@@ -1457,17 +1590,106 @@ public class Unit {
      * @return {@code true} if the command can be completed; {@code false} otherwise
      */
     public boolean useTech(final Tech tech, final Unit target) {
+        if (isCommandHandled(Command.USE_TECH_UNIT, target.getId(), 0, 0, tech.getId())) {
+            return true;
+        }
         return useTech(getId(), tech.getId(), target.getId());
     }
 
     private native boolean useTech(final int unitId, final int typeId, final int targetId);
 
     public boolean placeCop(final Position position) {
+        if (isCommandHandled(Command.PLACE_COP, -1, position.getX(Resolution.BUILD),
+                position.getY(Resolution.BUILD), 0)) {
+            return true;
+        }
         return placeCop(getId(), position.getX(Resolution.BUILD), position.getY(Resolution.BUILD));
     }
 
     private native boolean placeCop(final int unitId, final int x, final int y);
 
+    /**
+     * Determines whether a command must not be sent to the bridge immediately, because it is
+     * {@link Broodwar#setCommandFiltering(boolean) redundant} or because it has been
+     * {@link Broodwar#setCommandBatching(boolean) queued}.
+     *
+     * <p>
+     * Only the commands in {@link #FILTERED_COMMANDS} are filtered. A filtered command that must be
+     * issued immediately is only remembered once {@link #recordCommand(boolean)} reports that it
+     * was successfully issued, so a command that failed can be retried.
+     *
+     * @return true if the command has been suppressed or queued; false if the command must be
+     *         issued immediately
+     */
+    private boolean isCommandHandled(final Command type, final int targetId, final int x,
+            final int y, final int extra) {
+        if (broodwar == null) {
+            return false;
+        }
+
+        pendingCommand = -1;
+        final boolean filtered = broodwar.isCommandFiltering() && FILTERED_COMMANDS.contains(type);
+        if (filtered) {
+            if ((lastIssuedCommand == type.getId()) && (lastIssuedTargetId == targetId)
+                    && (lastIssuedX == x) && (lastIssuedY == y) && (lastIssuedExtra == extra)
+                    && ((broodwar.getCommandFrame() - lastIssuedFrame) <= broodwar
+                            .getCommandLatencyFrames())) {
+                broodwar.commandSuppressed();
+                return true;
+            }
+            pendingCommand = type.getId();
+            pendingTargetId = targetId;
+            pendingX = x;
+            pendingY = y;
+            pendingExtra = extra;
+        } else {
+            // any other command changes what the unit is doing, so the next command is not a repeat
+            lastIssuedCommand = -1;
+        }
+
+        if (broodwar.isCommandBatching()) {
+            broodwar.queueCommand(type, id, targetId, x, y, extra);
+            recordCommand(true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers the filtered command most recently passed to
+     * {@link #isCommandHandled(Command, int, int, int, int)} if it was successfully issued.
+     *
+     * @param issued
+     *            the result of issuing the command
+     *
+     * @return the result of issuing the command
+     */
+    private boolean recordCommand(final boolean issued) {
+        if (issued && (pendingCommand != -1)) {
+            lastIssuedCommand = pendingCommand;
+            lastIssuedTargetId = pendingTargetId;
+            lastIssuedX = pendingX;
+            lastIssuedY = pendingY;
+            lastIssuedExtra = pendingExtra;
+            lastIssuedFrame = broodwar.getCommandFrame();
+            pendingCommand = -1;
+        }
+        return issued;
+    }
+
+    /**
+     * Forgets the last command issued to this unit if it is of the specified type, because a
+     * batched command of that type failed when it was flushed.
+     *
+     * @param commandTypeId
+     *            the ID of the type of the failed command
+     */
+    void commandFailed(final int commandTypeId) {
+        if (lastIssuedCommand == commandTypeId) {
+            lastIssuedCommand = -1;
+        }
+    }
+
     @Override
     public int hashCode() {
         return id;
@@ -0,0 +1,158 @@
+package com.harbinger.jbw;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Long-lived block of direct memory that the bridge writes the unit data into every frame.
+ *
+ * <p>
+ * The buffer is registered with the bridge once during {@link Broodwar#connect() connection}. The
+ * bridge then writes the data for all accessible units directly into it, which avoids allocating
+ * and copying a new array every frame. The layout of the buffer is:
+ *
+ * <pre>
+ * [unit count][unit 1 attributes][unit 2 attributes]...[unit n attributes][id count][ids]
+ * </pre>
+ *
+ * <p>
+ * Each unit occupies {@link Unit#NUM_ATTRIBUTES} integers, in the same order used by
+ * {@link Unit#update(IntBuffer, int)}.
+ *
+ * <p>
+ * The trailing list of IDs is only written for {@link Broodwar.UnitTransport#DELTA delta} frames.
+ * In that case the unit data only contains the units that changed since the previous frame, while
+ * the IDs list every accessible unit.
+ *
+ * <p>
+ * The {@link #reset()}, {@link #put(int[], int)}, and {@link #putIds(int[])} methods act as a
+ * stand-in for the bridge, which allows the buffer to be filled and decoded without the game.
+ */
+class UnitDataBuffer {
+
+    /** The number of integers preceding the unit data */
+    static final int HEADER_SIZE = 1;
+
+    /** The maximum number of units the bridge can report; matches the BWAPI unit array size */
+    static final int MAX_UNITS = 10000;
+
+    private final ByteBuffer buffer;
+    private final IntBuffer data;
+
+    /**
+     * Constructs a buffer large enough to hold the maximum number of units.
+     */
+    UnitDataBuffer() {
+        this(MAX_UNITS);
+    }
+
+    /**
+     * Constructs a buffer large enough to hold the specified number of units.
+     *
+     * @param maxUnits
+     *            the maximum number of units the buffer can hold
+     */
+    UnitDataBuffer(final int maxUnits) {
+        final int capacity = HEADER_SIZE + (maxUnits * Unit.NUM_ATTRIBUTES) + 1 + maxUnits;
+        buffer = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder());
+        data = buffer.asIntBuffer();
+    }
+
+    /**
+     * @return the direct buffer that will be registered with the bridge
+     */
+    ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the integer view of the buffer used for decoding
+     */
+    IntBuffer getData() {
+        return data;
+    }
+
+    /**
+     * @return the number of units written into the buffer
+     */
+    int getUnitCount() {
+        return data.get(0);
+    }
+
+    /**
+     * @return the index of the number of IDs that follow the unit data
+     */
+    int getIdIndex() {
+        return getUnitIndex(getUnitCount());
+    }
+
+    /**
+     * @return the number of IDs that follow the unit data
+     */
+    int getIdCount() {
+        return data.get(getIdIndex());
+    }
+
+    /**
+     * @param unit
+     *            the position of the unit within the buffer
+     *
+     * @return the index of the first attribute of the unit
+     */
+    static int getUnitIndex(final int unit) {
+        return HEADER_SIZE + (unit * Unit.NUM_ATTRIBUTES);
+    }
+
+    /**
+     * Removes all units from the buffer.
+     */
+    void reset() {
+        data.put(0, 0);
+    }
+
+    /**
+     * Appends the attributes of a single unit to the buffer, just as the bridge would.
+     *
+     * @param unitData
+     *            the array containing the unit attributes
+     *
+     * @param index
+     *            the index of the first attribute of the unit within the array
+     *
+     * @throws IllegalStateException
+     *             thrown if the buffer is already full
+     */
+    void put(final int[] unitData, final int index) throws IllegalStateException {
+        final int count = getUnitCount();
+        final int offset = getUnitIndex(count);
+        if ((offset + Unit.NUM_ATTRIBUTES + 1) > data.capacity()) {
+            throw new IllegalStateException("unit buffer is full");
+        }
+        for (int i = 0; i < Unit.NUM_ATTRIBUTES; i++) {
+            data.put(offset + i, unitData[index + i]);
+        }
+        data.put(0, count + 1);
+    }
+
+    /**
+     * Writes the IDs of all accessible units after the unit data, just as the bridge would for a
+     * delta frame. All of the unit data must already have been {@link #put(int[], int) written}.
+     *
+     * @param ids
+     *            the IDs of all accessible units
+     *
+     * @throws IllegalStateException
+     *             thrown if the IDs do not fit in the buffer
+     */
+    void putIds(final int[] ids) throws IllegalStateException {
+        final int index = getIdIndex();
+        if ((index + 1 + ids.length) > data.capacity()) {
+            throw new IllegalStateException("unit buffer is full");
+        }
+        data.put(index, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            data.put(index + 1 + i, ids[i]);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.harbinger.jbw;
+
+/**
+ * The status flags of a unit, such as {@link #IDLE} or {@link #BURROWED}.
+ *
+ * <p>
+ * The bridge packs the flags of each unit into a bit field, with the bit of each flag given by its
+ * ordinal. Each flag corresponds to the {@code is} method of {@link Unit} with the same name, e.g.
+ * {@link #IDLE} and {@link Unit#isIdle()}. Masks of several flags allow units to be tested or
+ * filtered by their state with a single bitwise operation:
+ *
+ * <pre>
+ * final long mask = UnitFlag.mask(UnitFlag.IDLE, UnitFlag.COMPLETED);
+ * for (final Unit unit : broodwar.getUnits(mask)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @see Unit#hasAll(long)
+ * @see Unit#hasAny(long)
+ * @see Broodwar#getUnits(long)
+ */
+public enum UnitFlag {
+
+    EXISTS,
+    NUKE_READY,
+    ACCELERATING,
+    ATTACKING,
+    ATTACK_FRAME,
+    BEING_CONSTRUCTED,
+    BEING_GATHERED,
+    BEING_HEALED,
+    BLIND,
+    BRAKING,
+    BURROWED,
+    CARRYING_GAS,
+    CARRYING_MINERALS,
+    CLOAKED,
+    COMPLETED,
+    CONSTRUCTING,
+    DEFENSE_MATRIXED,
+    DETECTED,
+    ENSNARED,
+    FOLLOWING,
+    GATHERING_GAS,
+    GATHERING_MINERALS,
+    HALLUCINATION,
+    HOLDING_POSITION,
+    IDLE,
+    INTERRUPTABLE,
+    INVINCIBLE,
+    IRRADIATED,
+    LIFTED,
+    LOADED,
+    LOCKED_DOWN,
+    MAELSTROMMED,
+    MORPHING,
+    MOVING,
+    PARASITED,
+    PATROLLING,
+    PLAGUED,
+    REPAIRING,
+    SELECTED,
+    SIEGED,
+    STARTING_ATTACK,
+    STASISED,
+    STIMMED,
+    STUCK,
+    TRAINING,
+    UNDER_ATTACK,
+    UNDER_DARK_SWARM,
+    UNDER_DISRUPTION_WEB,
+    UNDER_STORM,
+    UNPOWERED,
+    UPGRADING,
+    VISIBLE;
+
+    private final long mask = 1L << ordinal();
+
+    /**
+     * @return the bit of this flag within the bit field of a unit
+     */
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * Combines the flags into a single mask.
+     *
+     * @param flags
+     *            the flags to combine
+     *
+     * @return the mask containing the bits of all the flags
+     */
+    public static long mask(final UnitFlag... flags) {
+        long mask = 0;
+        for (final UnitFlag flag : flags) {
+            mask |= flag.mask;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,304 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.PIXEL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Spatial index of the accessible units, used to find the units near a position without visiting
+ * every unit.
+ *
+ * <p>
+ * The map is divided into square cells of {@link #CELL_SIZE} pixels, and each unit is listed in
+ * every cell that its bounding box overlaps. A query only visits the units listed in the cells that
+ * overlap the queried area. The index is updated every frame; a unit is only moved between cells
+ * when the range of cells covered by its bounding box changes.
+ *
+ * <p>
+ * Distances are measured from the edge of the bounding box of a unit, just as
+ * {@link Unit#getDistance(Position)} does.
+ */
+public class UnitGrid {
+
+    /** The width and height of a cell, in pixels */
+    static final int CELL_SIZE = 128;
+
+    private static final int DEFAULT_CELL_CAPACITY = 4;
+
+    private final int columns;
+    private final int rows;
+    private final Unit[][] cells;
+    private final int[] cellSizes;
+
+    // the range of cells each unit ID is listed in (inclusive), and the update it was last seen in
+    private final int[] cellLeft = new int[UnitDataBuffer.MAX_UNITS];
+    private final int[] cellTop = new int[UnitDataBuffer.MAX_UNITS];
+    private final int[] cellRight = new int[UnitDataBuffer.MAX_UNITS];
+    private final int[] cellBottom = new int[UnitDataBuffer.MAX_UNITS];
+    private final Unit[] indexedUnits = new Unit[UnitDataBuffer.MAX_UNITS];
+    private final int[] updateStamps = new int[UnitDataBuffer.MAX_UNITS];
+    private int[] indexedIds = new int[256];
+    private int indexedCount;
+    private int updateStamp;
+
+    // the query each unit ID was last visited by, so units spanning several cells are visited once
+    private final int[] queryStamps = new int[UnitDataBuffer.MAX_UNITS];
+    private int queryStamp;
+
+    /**
+     * Constructs an empty index for a map.
+     *
+     * @param width
+     *            the width of the map, in pixels
+     *
+     * @param height
+     *            the height of the map, in pixels
+     */
+    UnitGrid(final int width, final int height) {
+        columns = Math.max((width + CELL_SIZE - 1) / CELL_SIZE, 1);
+        rows = Math.max((height + CELL_SIZE - 1) / CELL_SIZE, 1);
+        cells = new Unit[columns * rows][];
+        cellSizes = new int[columns * rows];
+    }
+
+    /**
+     * Moves the units whose bounding boxes changed cells, adds the units that became accessible,
+     * and removes the units that are no longer accessible.
+     *
+     * @param units
+     *            all accessible units
+     */
+    void update(final List<Unit> units) {
+        updateStamp++;
+        for (final Unit unit : units) {
+            final int id = unit.getId();
+            final int left = getColumn(unit.getLeft());
+            final int top = getRow(unit.getTop());
+            final int right = getColumn(unit.getRight());
+            final int bottom = getRow(unit.getBottom());
+            if (indexedUnits[id] == null) {
+                if (indexedCount == indexedIds.length) {
+                    indexedIds = Arrays.copyOf(indexedIds, indexedCount * 2);
+                }
+                indexedIds[indexedCount++] = id;
+            } else if ((indexedUnits[id] != unit) || (cellLeft[id] != left)
+                    || (cellTop[id] != top) || (cellRight[id] != right)
+                    || (cellBottom[id] != bottom)) {
+                removeFromCells(id);
+            } else {
+                updateStamps[id] = updateStamp;
+                continue;
+            }
+            indexedUnits[id] = unit;
+            cellLeft[id] = left;
+            cellTop[id] = top;
+            cellRight[id] = right;
+            cellBottom[id] = bottom;
+            updateStamps[id] = updateStamp;
+            addToCells(id);
+        }
+
+        for (int i = 0; i < indexedCount;) {
+            final int id = indexedIds[i];
+            if (updateStamps[id] != updateStamp) {
+                removeFromCells(id);
+                indexedUnits[id] = null;
+                indexedIds[i] = indexedIds[--indexedCount];
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void addToCells(final int id) {
+        final Unit unit = indexedUnits[id];
+        for (int row = cellTop[id]; row <= cellBottom[id]; row++) {
+            for (int column = cellLeft[id]; column <= cellRight[id]; column++) {
+                final int cell = column + (columns * row);
+                final int size = cellSizes[cell];
+                if (cells[cell] == null) {
+                    cells[cell] = new Unit[DEFAULT_CELL_CAPACITY];
+                } else if (size == cells[cell].length) {
+                    cells[cell] = Arrays.copyOf(cells[cell], size * 2);
+                }
+                cells[cell][size] = unit;
+                cellSizes[cell] = size + 1;
+            }
+        }
+    }
+
+    private void removeFromCells(final int id) {
+        final Unit unit = indexedUnits[id];
+        for (int row = cellTop[id]; row <= cellBottom[id]; row++) {
+            for (int column = cellLeft[id]; column <= cellRight[id]; column++) {
+                final int cell = column + (columns * row);
+                final Unit[] cellUnits = cells[cell];
+                final int last = cellSizes[cell] - 1;
+                for (int i = 0; i <= last; i++) {
+                    if (cellUnits[i] == unit) {
+                        cellUnits[i] = cellUnits[last];
+                        cellUnits[last] = null;
+                        cellSizes[cell] = last;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int getColumn(final int x) {
+        return Math.min(Math.max(x / CELL_SIZE, 0), columns - 1);
+    }
+
+    private int getRow(final int y) {
+        return Math.min(Math.max(y / CELL_SIZE, 0), rows - 1);
+    }
+
+    /**
+     * @return the number of units in the index
+     */
+    public int size() {
+        return indexedCount;
+    }
+
+    /**
+     * Finds the units within a distance of a position.
+     *
+     * @param center
+     *            the position to measure from
+     *
+     * @param radius
+     *            the maximum distance from the position, in pixels
+     *
+     * @return the units whose bounding box is within the distance of the position
+     */
+    public List<Unit> getUnitsInRadius(final Position center, final int radius) {
+        final int x = center.getX(PIXEL);
+        final int y = center.getY(PIXEL);
+        final long radiusSquared = (long) radius * radius;
+        final List<Unit> found = new ArrayList<>();
+        queryStamp++;
+        for (int row = getRow(y - radius); row <= getRow(y + radius); row++) {
+            for (int column = getColumn(x - radius); column <= getColumn(x + radius); column++) {
+                final int cell = column + (columns * row);
+                for (int i = 0; i < cellSizes[cell]; i++) {
+                    final Unit unit = cells[cell][i];
+                    if (visit(unit) && (unit.getDistanceSquared(x, y) <= radiusSquared)) {
+                        found.add(unit);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the units within a rectangle.
+     *
+     * @param topLeft
+     *            the top-left corner of the rectangle
+     *
+     * @param bottomRight
+     *            the bottom-right corner of the rectangle, inclusive
+     *
+     * @return the units whose bounding box overlaps the rectangle
+     */
+    public List<Unit> getUnitsInRectangle(final Position topLeft, final Position bottomRight) {
+        final int left = topLeft.getX(PIXEL);
+        final int top = topLeft.getY(PIXEL);
+        final int right = bottomRight.getX(PIXEL);
+        final int bottom = bottomRight.getY(PIXEL);
+        final List<Unit> found = new ArrayList<>();
+        queryStamp++;
+        for (int row = getRow(top); row <= getRow(bottom); row++) {
+            for (int column = getColumn(left); column <= getColumn(right); column++) {
+                final int cell = column + (columns * row);
+                for (int i = 0; i < cellSizes[cell]; i++) {
+                    final Unit unit = cells[cell][i];
+                    if (visit(unit) && (unit.getLeft() <= right) && (unit.getRight() >= left)
+                            && (unit.getTop() <= bottom) && (unit.getBottom() >= top)) {
+                        found.add(unit);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest unit to a position that satisfies a condition. The cells are searched in
+     * rings of increasing distance from the position, so the search stops as soon as no closer
+     * unit can exist.
+     *
+     * @param center
+     *            the position to measure from
+     *
+     * @param maxDistance
+     *            the maximum distance from the position, in pixels
+     *
+     * @param condition
+     *            the condition the unit must satisfy
+     *
+     * @return the closest unit that satisfies the condition; null if there is no such unit within
+     *         the distance
+     */
+    public Unit getClosestUnit(final Position center, final int maxDistance,
+            final Predicate<Unit> condition) {
+        final int x = center.getX(PIXEL);
+        final int y = center.getY(PIXEL);
+        final int centerColumn = getColumn(x);
+        final int centerRow = getRow(y);
+        final int maxRing = Math.max(Math.max(centerColumn, columns - 1 - centerColumn), Math.max(
+                centerRow, rows - 1 - centerRow));
+
+        Unit closest = null;
+        long closestDistance = ((long) maxDistance * maxDistance) + 1;
+        queryStamp++;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // every unit in this ring or beyond is at least this far from the position
+            final long ringDistance = (long) Math.max(ring - 1, 0) * CELL_SIZE;
+            if ((ringDistance * ringDistance) >= closestDistance) {
+                break;
+            }
+            for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                if ((row < 0) || (row >= rows)) {
+                    continue;
+                }
+                final boolean edgeRow = (row == centerRow - ring) || (row == centerRow + ring);
+                final int step = edgeRow ? 1 : Math.max(2 * ring, 1);
+                for (int column = centerColumn - ring; column <= centerColumn + ring; column +=
+                        step) {
+                    if ((column < 0) || (column >= columns)) {
+                        continue;
+                    }
+                    final int cell = column + (columns * row);
+                    for (int i = 0; i < cellSizes[cell]; i++) {
+                        final Unit unit = cells[cell][i];
+                        if (!visit(unit)) {
+                            continue;
+                        }
+                        final long distance = unit.getDistanceSquared(x, y);
+                        if ((distance < closestDistance) && condition.test(unit)) {
+                            closest = unit;
+                            closestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    // Marks the unit as visited by the current query, returning false if it already was.
+    private boolean visit(final Unit unit) {
+        final int id = unit.getId();
+        if (queryStamps[id] == queryStamp) {
+            return false;
+        }
+        queryStamps[id] = queryStamp;
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+package com.harbinger.jbw;
+
+import java.util.Arrays;
+
+/**
+ * Maps unit IDs to units without boxing the IDs.
+ *
+ * <p>
+ * BWAPI assigns unit IDs below {@link UnitDataBuffer#MAX_UNITS}, so the units are looked up
+ * directly by their ID. The registered units are also kept in a dense array, which allows them to
+ * be iterated without visiting every possible ID. Removing a unit moves the last unit into its
+ * place, so the iteration order is not preserved.
+ */
+class UnitRegistry {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private final Unit[] unitsById = new Unit[UnitDataBuffer.MAX_UNITS];
+    private final int[] indexById = new int[UnitDataBuffer.MAX_UNITS];
+
+    private Unit[] units = new Unit[DEFAULT_CAPACITY];
+    private int size;
+
+    /**
+     * @param id
+     *            the ID of the unit
+     *
+     * @return the unit with the ID; null if no such unit is registered
+     */
+    Unit get(final int id) {
+        if ((id < 0) || (id >= unitsById.length)) {
+            return null;
+        }
+        return unitsById[id];
+    }
+
+    /**
+     * Registers the unit, replacing any unit that was registered with the same ID.
+     *
+     * @param unit
+     *            the unit to register
+     *
+     * @throws IllegalArgumentException
+     *             thrown if the ID of the unit is outside of the range used by BWAPI
+     */
+    void put(final Unit unit) throws IllegalArgumentException {
+        final int id = unit.getId();
+        if ((id < 0) || (id >= unitsById.length)) {
+            throw new IllegalArgumentException("unit id out of range: " + id);
+        }
+        remove(id);
+        if (size == units.length) {
+            units = Arrays.copyOf(units, size * 2);
+        }
+        unitsById[id] = unit;
+        indexById[id] = size;
+        units[size++] = unit;
+    }
+
+    /**
+     * Removes the unit with the ID.
+     *
+     * @param id
+     *            the ID of the unit to remove
+     *
+     * @return the unit that was removed; null if no such unit is registered
+     */
+    Unit remove(final int id) {
+        final Unit unit = get(id);
+        if (unit == null) {
+            return null;
+        }
+        final int index = indexById[id];
+        final Unit last = units[--size];
+        units[index] = last;
+        indexById[last.getId()] = index;
+        units[size] = null;
+        unitsById[id] = null;
+        return unit;
+    }
+
+    /**
+     * Removes all of the units.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            unitsById[units[i].getId()] = null;
+            units[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the number of registered units
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index
+     *            the position of the unit, less than {@link #size()}
+     *
+     * @return the unit at the position
+     */
+    Unit getAt(final int index) {
+        return units[index];
+    }
+}
@@ -0,0 +1,862 @@
+package com.harbinger.jbw;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Stores the data of units in columns, with one primitive array per attribute.
+ *
+ * <p>
+ * Each {@link Unit} is a view onto a single slot of a table. Scanning a few attributes across all
+ * units (e.g. the hit points of every enemy unit) only touches the arrays of those attributes, which
+ * keeps the data contiguous in memory instead of spread across every Unit object.
+ *
+ * <p>
+ * Slots are released when a unit is destroyed and may be reused by units created afterwards. Slots
+ * that are not occupied can be identified by {@link #getUnit(int)} returning null.
+ *
+ * @see Broodwar#getUnitTable()
+ * @see Unit#getSlot()
+ */
+public class UnitTable {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private static final double FIXED_SCALE = 100.0;
+    private static final double TO_DEGREES = 180.0 / Math.PI;
+
+    private Unit[] units;
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int slotCount;
+
+    int[] id;
+    int[] replayId;
+    int[] playerId;
+    int[] typeId;
+    int[] x;
+    int[] y;
+    int[] tileX;
+    int[] tileY;
+    double[] angle;
+    double[] velocityX;
+    double[] velocityY;
+    int[] hitPoints;
+    int[] shield;
+    int[] energy;
+    int[] resources;
+    int[] resourceGroup;
+    int[] lastCommandFrame;
+    int[] lastCommandId;
+    int[] lastAttackingPlayerId;
+    int[] initialTypeId;
+    int[] initialX;
+    int[] initialY;
+    int[] initialTileX;
+    int[] initialTileY;
+    int[] initialHitPoints;
+    int[] initialResources;
+    int[] killCount;
+    int[] acidSporeCount;
+    int[] interceptorCount;
+    int[] scarabCount;
+    int[] spiderMineCount;
+    int[] groundWeaponCooldown;
+    int[] airWeaponCooldown;
+    int[] spellCooldown;
+    int[] defenseMatrixPoints;
+    int[] defenseMatrixTimer;
+    int[] ensnareTimer;
+    int[] irradiateTimer;
+    int[] lockdownTimer;
+    int[] maelstromTimer;
+    int[] orderTimer;
+    int[] plagueTimer;
+    int[] removeTimer;
+    int[] stasisTimer;
+    int[] stimTimer;
+    int[] buildTypeId;
+    int[] trainingQueueSize;
+    int[] researchingTechId;
+    int[] upgradingUpgradeId;
+    int[] remainingBuildTimer;
+    int[] remainingTrainTime;
+    int[] remainingResearchTime;
+    int[] remainingUpgradeTime;
+    int[] buildUnitId;
+    int[] targetUnitId;
+    int[] targetX;
+    int[] targetY;
+    int[] orderId;
+    int[] orderTargetId;
+    int[] secondaryOrderId;
+    int[] rallyX;
+    int[] rallyY;
+    int[] rallyUnitId;
+    int[] addOnId;
+    int[] nydusExitUnitId;
+    int[] transportId;
+    int[] loadedUnitsCount;
+    int[] carrierUnitId;
+    int[] hatcheryUnitId;
+    int[] larvaCount;
+    int[] powerUpUnitId;
+    long[] flags;
+
+    // the bounding box of each unit in pixels, derived from its position and type when updated
+    int[] left;
+    int[] top;
+    int[] right;
+    int[] bottom;
+
+    /**
+     * Constructs an empty table.
+     */
+    UnitTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param capacity
+     *            the initial number of slots
+     */
+    UnitTable(final int capacity) {
+        units = new Unit[capacity];
+        freeSlots = new int[capacity];
+        id = new int[capacity];
+        replayId = new int[capacity];
+        playerId = new int[capacity];
+        typeId = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        tileX = new int[capacity];
+        tileY = new int[capacity];
+        angle = new double[capacity];
+        velocityX = new double[capacity];
+        velocityY = new double[capacity];
+        hitPoints = new int[capacity];
+        shield = new int[capacity];
+        energy = new int[capacity];
+        resources = new int[capacity];
+        resourceGroup = new int[capacity];
+        lastCommandFrame = new int[capacity];
+        lastCommandId = new int[capacity];
+        lastAttackingPlayerId = new int[capacity];
+        initialTypeId = new int[capacity];
+        initialX = new int[capacity];
+        initialY = new int[capacity];
+        initialTileX = new int[capacity];
+        initialTileY = new int[capacity];
+        initialHitPoints = new int[capacity];
+        initialResources = new int[capacity];
+        killCount = new int[capacity];
+        acidSporeCount = new int[capacity];
+        interceptorCount = new int[capacity];
+        scarabCount = new int[capacity];
+        spiderMineCount = new int[capacity];
+        groundWeaponCooldown = new int[capacity];
+        airWeaponCooldown = new int[capacity];
+        spellCooldown = new int[capacity];
+        defenseMatrixPoints = new int[capacity];
+        defenseMatrixTimer = new int[capacity];
+        ensnareTimer = new int[capacity];
+        irradiateTimer = new int[capacity];
+        lockdownTimer = new int[capacity];
+        maelstromTimer = new int[capacity];
+        orderTimer = new int[capacity];
+        plagueTimer = new int[capacity];
+        removeTimer = new int[capacity];
+        stasisTimer = new int[capacity];
+        stimTimer = new int[capacity];
+        buildTypeId = new int[capacity];
+        trainingQueueSize = new int[capacity];
+        researchingTechId = new int[capacity];
+        upgradingUpgradeId = new int[capacity];
+        remainingBuildTimer = new int[capacity];
+        remainingTrainTime = new int[capacity];
+        remainingResearchTime = new int[capacity];
+        remainingUpgradeTime = new int[capacity];
+        buildUnitId = new int[capacity];
+        targetUnitId = new int[capacity];
+        targetX = new int[capacity];
+        targetY = new int[capacity];
+        orderId = new int[capacity];
+        orderTargetId = new int[capacity];
+        secondaryOrderId = new int[capacity];
+        rallyX = new int[capacity];
+        rallyY = new int[capacity];
+        rallyUnitId = new int[capacity];
+        addOnId = new int[capacity];
+        nydusExitUnitId = new int[capacity];
+        transportId = new int[capacity];
+        loadedUnitsCount = new int[capacity];
+        carrierUnitId = new int[capacity];
+        hatcheryUnitId = new int[capacity];
+        larvaCount = new int[capacity];
+        powerUpUnitId = new int[capacity];
+        flags = new long[capacity];
+        left = new int[capacity];
+        top = new int[capacity];
+        right = new int[capacity];
+        bottom = new int[capacity];
+    }
+
+    /**
+     * @return the number of slots that have been used; all occupied slots are less than this value
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * @param slot
+     *            the slot to check
+     *
+     * @return the unit occupying the slot; null if the slot is not occupied
+     */
+    public Unit getUnit(final int slot) {
+        return units[slot];
+    }
+
+    /**
+     * Assigns a slot to the unit, growing the table if needed.
+     *
+     * @param unit
+     *            the unit that will occupy the slot
+     *
+     * @return the slot assigned to the unit
+     */
+    int allocate(final Unit unit) {
+        final int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if (slotCount == units.length) {
+                grow(Math.max(1, units.length * 2));
+            }
+            slot = slotCount++;
+        }
+        units[slot] = unit;
+        id[slot] = unit.getId();
+        return slot;
+    }
+
+    /**
+     * Makes the slot available to other units.
+     *
+     * @param slot
+     *            the slot to release
+     */
+    void release(final int slot) {
+        units[slot] = null;
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Decodes the unit data into the slot.
+     *
+     * @param slot
+     *            the slot to update
+     *
+     * @param data
+     *            the unit data in the layout written by the bridge
+     *
+     * @param index
+     *            the index of the first attribute of the unit within the data
+     */
+    void update(final int slot, final IntBuffer data, int index) {
+        index++; // ID = data.get(index++);
+        replayId[slot] = data.get(index++);
+        playerId[slot] = data.get(index++);
+        typeId[slot] = data.get(index++);
+        x[slot] = data.get(index++);
+        y[slot] = data.get(index++);
+        tileX[slot] = data.get(index++);
+        tileY[slot] = data.get(index++);
+        angle[slot] = data.get(index++) / TO_DEGREES;
+        velocityX[slot] = data.get(index++) / FIXED_SCALE;
+        velocityY[slot] = data.get(index++) / FIXED_SCALE;
+        hitPoints[slot] = data.get(index++);
+        shield[slot] = data.get(index++);
+        energy[slot] = data.get(index++);
+        resources[slot] = data.get(index++);
+        resourceGroup[slot] = data.get(index++);
+        lastCommandFrame[slot] = data.get(index++);
+        lastCommandId[slot] = data.get(index++);
+        lastAttackingPlayerId[slot] = data.get(index++);
+        initialTypeId[slot] = data.get(index++);
+        initialX[slot] = data.get(index++);
+        initialY[slot] = data.get(index++);
+        initialTileX[slot] = data.get(index++);
+        initialTileY[slot] = data.get(index++);
+        initialHitPoints[slot] = data.get(index++);
+        initialResources[slot] = data.get(index++);
+        killCount[slot] = data.get(index++);
+        acidSporeCount[slot] = data.get(index++);
+        interceptorCount[slot] = data.get(index++);
+        scarabCount[slot] = data.get(index++);
+        spiderMineCount[slot] = data.get(index++);
+        groundWeaponCooldown[slot] = data.get(index++);
+        airWeaponCooldown[slot] = data.get(index++);
+        spellCooldown[slot] = data.get(index++);
+        defenseMatrixPoints[slot] = data.get(index++);
+        defenseMatrixTimer[slot] = data.get(index++);
+        ensnareTimer[slot] = data.get(index++);
+        irradiateTimer[slot] = data.get(index++);
+        lockdownTimer[slot] = data.get(index++);
+        maelstromTimer[slot] = data.get(index++);
+        orderTimer[slot] = data.get(index++);
+        plagueTimer[slot] = data.get(index++);
+        removeTimer[slot] = data.get(index++);
+        stasisTimer[slot] = data.get(index++);
+        stimTimer[slot] = data.get(index++);
+        buildTypeId[slot] = data.get(index++);
+        trainingQueueSize[slot] = data.get(index++);
+        researchingTechId[slot] = data.get(index++);
+        upgradingUpgradeId[slot] = data.get(index++);
+        remainingBuildTimer[slot] = data.get(index++);
+        remainingTrainTime[slot] = data.get(index++);
+        remainingResearchTime[slot] = data.get(index++);
+        remainingUpgradeTime[slot] = data.get(index++);
+        buildUnitId[slot] = data.get(index++);
+        targetUnitId[slot] = data.get(index++);
+        targetX[slot] = data.get(index++);
+        targetY[slot] = data.get(index++);
+        orderId[slot] = data.get(index++);
+        orderTargetId[slot] = data.get(index++);
+        secondaryOrderId[slot] = data.get(index++);
+        rallyX[slot] = data.get(index++);
+        rallyY[slot] = data.get(index++);
+        rallyUnitId[slot] = data.get(index++);
+        addOnId[slot] = data.get(index++);
+        nydusExitUnitId[slot] = data.get(index++);
+        transportId[slot] = data.get(index++);
+        loadedUnitsCount[slot] = data.get(index++);
+        carrierUnitId[slot] = data.get(index++);
+        hatcheryUnitId[slot] = data.get(index++);
+        larvaCount[slot] = data.get(index++);
+        powerUpUnitId[slot] = data.get(index++);
+        flags[slot] = (data.get(index++) & 0xFFFFFFFFL) | ((long) data.get(index++) << 32);
+        updateBounds(slot);
+    }
+
+    /**
+     * Caches the bounding box of the unit in the slot, so that distance calculations do not have
+     * to look up the dimensions of its type.
+     *
+     * @param slot
+     *            the slot to update
+     */
+    void updateBounds(final int slot) {
+        final UnitType type = UnitType.getUnitType(typeId[slot]);
+        if (type != null) {
+            left[slot] = x[slot] - type.getDimensionLeft();
+            top[slot] = y[slot] - type.getDimensionUp();
+            right[slot] = x[slot] + type.getDimensionRight();
+            bottom[slot] = y[slot] + type.getDimensionDown();
+        } else {
+            left[slot] = x[slot];
+            top[slot] = y[slot];
+            right[slot] = x[slot];
+            bottom[slot] = y[slot];
+        }
+    }
+
+    /**
+     * Copies the data of a slot into a slot of another table.
+     *
+     * @param slot
+     *            the slot to copy from
+     *
+     * @param target
+     *            the table to copy to
+     *
+     * @param targetSlot
+     *            the slot to copy to
+     */
+    void copy(final int slot, final UnitTable target, final int targetSlot) {
+        target.replayId[targetSlot] = replayId[slot];
+        target.playerId[targetSlot] = playerId[slot];
+        target.typeId[targetSlot] = typeId[slot];
+        target.x[targetSlot] = x[slot];
+        target.y[targetSlot] = y[slot];
+        target.tileX[targetSlot] = tileX[slot];
+        target.tileY[targetSlot] = tileY[slot];
+        target.angle[targetSlot] = angle[slot];
+        target.velocityX[targetSlot] = velocityX[slot];
+        target.velocityY[targetSlot] = velocityY[slot];
+        target.hitPoints[targetSlot] = hitPoints[slot];
+        target.shield[targetSlot] = shield[slot];
+        target.energy[targetSlot] = energy[slot];
+        target.resources[targetSlot] = resources[slot];
+        target.resourceGroup[targetSlot] = resourceGroup[slot];
+        target.lastCommandFrame[targetSlot] = lastCommandFrame[slot];
+        target.lastCommandId[targetSlot] = lastCommandId[slot];
+        target.lastAttackingPlayerId[targetSlot] = lastAttackingPlayerId[slot];
+        target.initialTypeId[targetSlot] = initialTypeId[slot];
+        target.initialX[targetSlot] = initialX[slot];
+        target.initialY[targetSlot] = initialY[slot];
+        target.initialTileX[targetSlot] = initialTileX[slot];
+        target.initialTileY[targetSlot] = initialTileY[slot];
+        target.initialHitPoints[targetSlot] = initialHitPoints[slot];
+        target.initialResources[targetSlot] = initialResources[slot];
+        target.killCount[targetSlot] = killCount[slot];
+        target.acidSporeCount[targetSlot] = acidSporeCount[slot];
+        target.interceptorCount[targetSlot] = interceptorCount[slot];
+        target.scarabCount[targetSlot] = scarabCount[slot];
+        target.spiderMineCount[targetSlot] = spiderMineCount[slot];
+        target.groundWeaponCooldown[targetSlot] = groundWeaponCooldown[slot];
+        target.airWeaponCooldown[targetSlot] = airWeaponCooldown[slot];
+        target.spellCooldown[targetSlot] = spellCooldown[slot];
+        target.defenseMatrixPoints[targetSlot] = defenseMatrixPoints[slot];
+        target.defenseMatrixTimer[targetSlot] = defenseMatrixTimer[slot];
+        target.ensnareTimer[targetSlot] = ensnareTimer[slot];
+        target.irradiateTimer[targetSlot] = irradiateTimer[slot];
+        target.lockdownTimer[targetSlot] = lockdownTimer[slot];
+        target.maelstromTimer[targetSlot] = maelstromTimer[slot];
+        target.orderTimer[targetSlot] = orderTimer[slot];
+        target.plagueTimer[targetSlot] = plagueTimer[slot];
+        target.removeTimer[targetSlot] = removeTimer[slot];
+        target.stasisTimer[targetSlot] = stasisTimer[slot];
+        target.stimTimer[targetSlot] = stimTimer[slot];
+        target.buildTypeId[targetSlot] = buildTypeId[slot];
+        target.trainingQueueSize[targetSlot] = trainingQueueSize[slot];
+        target.researchingTechId[targetSlot] = researchingTechId[slot];
+        target.upgradingUpgradeId[targetSlot] = upgradingUpgradeId[slot];
+        target.remainingBuildTimer[targetSlot] = remainingBuildTimer[slot];
+        target.remainingTrainTime[targetSlot] = remainingTrainTime[slot];
+        target.remainingResearchTime[targetSlot] = remainingResearchTime[slot];
+        target.remainingUpgradeTime[targetSlot] = remainingUpgradeTime[slot];
+        target.buildUnitId[targetSlot] = buildUnitId[slot];
+        target.targetUnitId[targetSlot] = targetUnitId[slot];
+        target.targetX[targetSlot] = targetX[slot];
+        target.targetY[targetSlot] = targetY[slot];
+        target.orderId[targetSlot] = orderId[slot];
+        target.orderTargetId[targetSlot] = orderTargetId[slot];
+        target.secondaryOrderId[targetSlot] = secondaryOrderId[slot];
+        target.rallyX[targetSlot] = rallyX[slot];
+        target.rallyY[targetSlot] = rallyY[slot];
+        target.rallyUnitId[targetSlot] = rallyUnitId[slot];
+        target.addOnId[targetSlot] = addOnId[slot];
+        target.nydusExitUnitId[targetSlot] = nydusExitUnitId[slot];
+        target.transportId[targetSlot] = transportId[slot];
+        target.loadedUnitsCount[targetSlot] = loadedUnitsCount[slot];
+        target.carrierUnitId[targetSlot] = carrierUnitId[slot];
+        target.hatcheryUnitId[targetSlot] = hatcheryUnitId[slot];
+        target.larvaCount[targetSlot] = larvaCount[slot];
+        target.powerUpUnitId[targetSlot] = powerUpUnitId[slot];
+        target.flags[targetSlot] = flags[slot];
+        target.left[targetSlot] = left[slot];
+        target.top[targetSlot] = top[slot];
+        target.right[targetSlot] = right[slot];
+        target.bottom[targetSlot] = bottom[slot];
+    }
+
+    private void grow(final int capacity) {
+        units = Arrays.copyOf(units, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+        id = Arrays.copyOf(id, capacity);
+        replayId = Arrays.copyOf(replayId, capacity);
+        playerId = Arrays.copyOf(playerId, capacity);
+        typeId = Arrays.copyOf(typeId, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        tileX = Arrays.copyOf(tileX, capacity);
+        tileY = Arrays.copyOf(tileY, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        hitPoints = Arrays.copyOf(hitPoints, capacity);
+        shield = Arrays.copyOf(shield, capacity);
+        energy = Arrays.copyOf(energy, capacity);
+        resources = Arrays.copyOf(resources, capacity);
+        resourceGroup = Arrays.copyOf(resourceGroup, capacity);
+        lastCommandFrame = Arrays.copyOf(lastCommandFrame, capacity);
+        lastCommandId = Arrays.copyOf(lastCommandId, capacity);
+        lastAttackingPlayerId = Arrays.copyOf(lastAttackingPlayerId, capacity);
+        initialTypeId = Arrays.copyOf(initialTypeId, capacity);
+        initialX = Arrays.copyOf(initialX, capacity);
+        initialY = Arrays.copyOf(initialY, capacity);
+        initialTileX = Arrays.copyOf(initialTileX, capacity);
+        initialTileY = Arrays.copyOf(initialTileY, capacity);
+        initialHitPoints = Arrays.copyOf(initialHitPoints, capacity);
+        initialResources = Arrays.copyOf(initialResources, capacity);
+        killCount = Arrays.copyOf(killCount, capacity);
+        acidSporeCount = Arrays.copyOf(acidSporeCount, capacity);
+        interceptorCount = Arrays.copyOf(interceptorCount, capacity);
+        scarabCount = Arrays.copyOf(scarabCount, capacity);
+        spiderMineCount = Arrays.copyOf(spiderMineCount, capacity);
+        groundWeaponCooldown = Arrays.copyOf(groundWeaponCooldown, capacity);
+        airWeaponCooldown = Arrays.copyOf(airWeaponCooldown, capacity);
+        spellCooldown = Arrays.copyOf(spellCooldown, capacity);
+        defenseMatrixPoints = Arrays.copyOf(defenseMatrixPoints, capacity);
+        defenseMatrixTimer = Arrays.copyOf(defenseMatrixTimer, capacity);
+        ensnareTimer = Arrays.copyOf(ensnareTimer, capacity);
+        irradiateTimer = Arrays.copyOf(irradiateTimer, capacity);
+        lockdownTimer = Arrays.copyOf(lockdownTimer, capacity);
+        maelstromTimer = Arrays.copyOf(maelstromTimer, capacity);
+        orderTimer = Arrays.copyOf(orderTimer, capacity);
+        plagueTimer = Arrays.copyOf(plagueTimer, capacity);
+        removeTimer = Arrays.copyOf(removeTimer, capacity);
+        stasisTimer = Arrays.copyOf(stasisTimer, capacity);
+        stimTimer = Arrays.copyOf(stimTimer, capacity);
+        buildTypeId = Arrays.copyOf(buildTypeId, capacity);
+        trainingQueueSize = Arrays.copyOf(trainingQueueSize, capacity);
+        researchingTechId = Arrays.copyOf(researchingTechId, capacity);
+        upgradingUpgradeId = Arrays.copyOf(upgradingUpgradeId, capacity);
+        remainingBuildTimer = Arrays.copyOf(remainingBuildTimer, capacity);
+        remainingTrainTime = Arrays.copyOf(remainingTrainTime, capacity);
+        remainingResearchTime = Arrays.copyOf(remainingResearchTime, capacity);
+        remainingUpgradeTime = Arrays.copyOf(remainingUpgradeTime, capacity);
+        buildUnitId = Arrays.copyOf(buildUnitId, capacity);
+        targetUnitId = Arrays.copyOf(targetUnitId, capacity);
+        targetX = Arrays.copyOf(targetX, capacity);
+        targetY = Arrays.copyOf(targetY, capacity);
+        orderId = Arrays.copyOf(orderId, capacity);
+        orderTargetId = Arrays.copyOf(orderTargetId, capacity);
+        secondaryOrderId = Arrays.copyOf(secondaryOrderId, capacity);
+        rallyX = Arrays.copyOf(rallyX, capacity);
+        rallyY = Arrays.copyOf(rallyY, capacity);
+        rallyUnitId = Arrays.copyOf(rallyUnitId, capacity);
+        addOnId = Arrays.copyOf(addOnId, capacity);
+        nydusExitUnitId = Arrays.copyOf(nydusExitUnitId, capacity);
+        transportId = Arrays.copyOf(transportId, capacity);
+        loadedUnitsCount = Arrays.copyOf(loadedUnitsCount, capacity);
+        carrierUnitId = Arrays.copyOf(carrierUnitId, capacity);
+        hatcheryUnitId = Arrays.copyOf(hatcheryUnitId, capacity);
+        larvaCount = Arrays.copyOf(larvaCount, capacity);
+        powerUpUnitId = Arrays.copyOf(powerUpUnitId, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        left = Arrays.copyOf(left, capacity);
+        top = Arrays.copyOf(top, capacity);
+        right = Arrays.copyOf(right, capacity);
+        bottom = Arrays.copyOf(bottom, capacity);
+    }
+
+    public int getId(final int slot) {
+        return id[slot];
+    }
+
+    public int getReplayId(final int slot) {
+        return replayId[slot];
+    }
+
+    public int getPlayerId(final int slot) {
+        return playerId[slot];
+    }
+
+    public int getTypeId(final int slot) {
+        return typeId[slot];
+    }
+
+    public int getX(final int slot) {
+        return x[slot];
+    }
+
+    public int getY(final int slot) {
+        return y[slot];
+    }
+
+    public int getTileX(final int slot) {
+        return tileX[slot];
+    }
+
+    public int getTileY(final int slot) {
+        return tileY[slot];
+    }
+
+    public int getLeft(final int slot) {
+        return left[slot];
+    }
+
+    public int getTop(final int slot) {
+        return top[slot];
+    }
+
+    public int getRight(final int slot) {
+        return right[slot];
+    }
+
+    public int getBottom(final int slot) {
+        return bottom[slot];
+    }
+
+    public double getAngle(final int slot) {
+        return angle[slot];
+    }
+
+    public double getVelocityX(final int slot) {
+        return velocityX[slot];
+    }
+
+    public double getVelocityY(final int slot) {
+        return velocityY[slot];
+    }
+
+    public int getHitPoints(final int slot) {
+        return hitPoints[slot];
+    }
+
+    public int getShield(final int slot) {
+        return shield[slot];
+    }
+
+    public int getEnergy(final int slot) {
+        return energy[slot];
+    }
+
+    public int getResources(final int slot) {
+        return resources[slot];
+    }
+
+    public int getResourceGroup(final int slot) {
+        return resourceGroup[slot];
+    }
+
+    public int getLastCommandFrame(final int slot) {
+        return lastCommandFrame[slot];
+    }
+
+    public int getLastCommandId(final int slot) {
+        return lastCommandId[slot];
+    }
+
+    public int getLastAttackingPlayerId(final int slot) {
+        return lastAttackingPlayerId[slot];
+    }
+
+    public int getInitialTypeId(final int slot) {
+        return initialTypeId[slot];
+    }
+
+    public int getInitialX(final int slot) {
+        return initialX[slot];
+    }
+
+    public int getInitialY(final int slot) {
+        return initialY[slot];
+    }
+
+    public int getInitialTileX(final int slot) {
+        return initialTileX[slot];
+    }
+
+    public int getInitialTileY(final int slot) {
+        return initialTileY[slot];
+    }
+
+    public int getInitialHitPoints(final int slot) {
+        return initialHitPoints[slot];
+    }
+
+    public int getInitialResources(final int slot) {
+        return initialResources[slot];
+    }
+
+    public int getKillCount(final int slot) {
+        return killCount[slot];
+    }
+
+    public int getAcidSporeCount(final int slot) {
+        return acidSporeCount[slot];
+    }
+
+    public int getInterceptorCount(final int slot) {
+        return interceptorCount[slot];
+    }
+
+    public int getScarabCount(final int slot) {
+        return scarabCount[slot];
+    }
+
+    public int getSpiderMineCount(final int slot) {
+        return spiderMineCount[slot];
+    }
+
+    public int getGroundWeaponCooldown(final int slot) {
+        return groundWeaponCooldown[slot];
+    }
+
+    public int getAirWeaponCooldown(final int slot) {
+        return airWeaponCooldown[slot];
+    }
+
+    public int getSpellCooldown(final int slot) {
+        return spellCooldown[slot];
+    }
+
+    public int getDefenseMatrixPoints(final int slot) {
+        return defenseMatrixPoints[slot];
+    }
+
+    public int getDefenseMatrixTimer(final int slot) {
+        return defenseMatrixTimer[slot];
+    }
+
+    public int getEnsnareTimer(final int slot) {
+        return ensnareTimer[slot];
+    }
+
+    public int getIrradiateTimer(final int slot) {
+        return irradiateTimer[slot];
+    }
+
+    public int getLockdownTimer(final int slot) {
+        return lockdownTimer[slot];
+    }
+
+    public int getMaelstromTimer(final int slot) {
+        return maelstromTimer[slot];
+    }
+
+    public int getOrderTimer(final int slot) {
+        return orderTimer[slot];
+    }
+
+    public int getPlagueTimer(final int slot) {
+        return plagueTimer[slot];
+    }
+
+    public int getRemoveTimer(final int slot) {
+        return removeTimer[slot];
+    }
+
+    public int getStasisTimer(final int slot) {
+        return stasisTimer[slot];
+    }
+
+    public int getStimTimer(final int slot) {
+        return stimTimer[slot];
+    }
+
+    public int getBuildTypeId(final int slot) {
+        return buildTypeId[slot];
+    }
+
+    public int getTrainingQueueSize(final int slot) {
+        return trainingQueueSize[slot];
+    }
+
+    public int getResearchingTechId(final int slot) {
+        return researchingTechId[slot];
+    }
+
+    public int getUpgradingUpgradeId(final int slot) {
+        return upgradingUpgradeId[slot];
+    }
+
+    public int getRemainingBuildTimer(final int slot) {
+        return remainingBuildTimer[slot];
+    }
+
+    public int getRemainingTrainTime(final int slot) {
+        return remainingTrainTime[slot];
+    }
+
+    public int getRemainingResearchTime(final int slot) {
+        return remainingResearchTime[slot];
+    }
+
+    public int getRemainingUpgradeTime(final int slot) {
+        return remainingUpgradeTime[slot];
+    }
+
+    public int getBuildUnitId(final int slot) {
+        return buildUnitId[slot];
+    }
+
+    public int getTargetUnitId(final int slot) {
+        return targetUnitId[slot];
+    }
+
+    public int getTargetX(final int slot) {
+        return targetX[slot];
+    }
+
+    public int getTargetY(final int slot) {
+        return targetY[slot];
+    }
+
+    public int getOrderId(final int slot) {
+        return orderId[slot];
+    }
+
+    public int getOrderTargetId(final int slot) {
+        return orderTargetId[slot];
+    }
+
+    public int getSecondaryOrderId(final int slot) {
+        return secondaryOrderId[slot];
+    }
+
+    public int getRallyX(final int slot) {
+        return rallyX[slot];
+    }
+
+    public int getRallyY(final int slot) {
+        return rallyY[slot];
+    }
+
+    public int getRallyUnitId(final int slot) {
+        return rallyUnitId[slot];
+    }
+
+    public int getAddOnId(final int slot) {
+        return addOnId[slot];
+    }
+
+    public int getNydusExitUnitId(final int slot) {
+        return nydusExitUnitId[slot];
+    }
+
+    public int getTransportId(final int slot) {
+        return transportId[slot];
+    }
+
+    public int getLoadedUnitsCount(final int slot) {
+        return loadedUnitsCount[slot];
+    }
+
+    public int getCarrierUnitId(final int slot) {
+        return carrierUnitId[slot];
+    }
+
+    public int getHatcheryUnitId(final int slot) {
+        return hatcheryUnitId[slot];
+    }
+
+    public int getLarvaCount(final int slot) {
+        return larvaCount[slot];
+    }
+
+    public int getPowerUpUnitId(final int slot) {
+        return powerUpUnitId[slot];
+    }
+
+    /**
+     * @param slot
+     *            the slot of the unit
+     *
+     * @return the status flags of the unit, one bit per {@link UnitFlag}
+     */
+    public long getFlags(final int slot) {
+        return flags[slot];
+    }
+
+    /**
+     * @param slot
+     *            the slot of the unit
+     *
+     * @param flag
+     *            the flag to test
+     *
+     * @return true if the unit has the flag set; false otherwise
+     */
+    public boolean has(final int slot, final UnitFlag flag) {
+        return (flags[slot] & flag.getMask()) != 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Verifies that the changes written to a BuildTileBuffer are correctly applied to its snapshots.
+ */
+public class BuildTileBufferTest {
+
+    @Test
+    public void changedWordsAreApplied() {
+        final BuildTileBuffer buffer = new BuildTileBuffer(16, 16);
+        buffer.reset(16, 16);
+        buffer.put(BuildTileBuffer.CREEP, 0, 1L << 17);
+        buffer.put(2, 3, -1L);
+        buffer.update();
+
+        assertThat(buffer.get(BuildTileBuffer.CREEP).get(1, 1), is(true));
+        assertThat(buffer.get(2).count(0, 12, 16, 4), is(equalTo(64)));
+        assertThat(buffer.get(1).count(), is(equalTo(0)));
+    }
+
+    @Test
+    public void unchangedWordsAreKept() {
+        final BuildTileBuffer buffer = new BuildTileBuffer(16, 16);
+        buffer.reset(16, 16);
+        buffer.put(BuildTileBuffer.CREEP, 0, 1L);
+        buffer.update();
+        buffer.put(BuildTileBuffer.CREEP, 1, 1L);
+        buffer.update();
+        buffer.update();
+
+        assertThat(buffer.get(BuildTileBuffer.CREEP).count(), is(equalTo(2)));
+    }
+
+    @Test
+    public void resetClearsSnapshots() {
+        final BuildTileBuffer buffer = new BuildTileBuffer(16, 16);
+        buffer.reset(16, 16);
+        buffer.put(BuildTileBuffer.CREEP, 0, 1L);
+        buffer.update();
+        buffer.reset(8, 8);
+        buffer.put(BuildTileBuffer.CREEP, 0, 1L);
+        buffer.update();
+
+        assertThat(buffer.get(BuildTileBuffer.CREEP).getWidth(), is(equalTo(8)));
+        assertThat(buffer.get(BuildTileBuffer.CREEP).count(), is(equalTo(1)));
+    }
+
+    @Test
+    public void layersAreTransferredSeparatelyWhenRequested() {
+        final List<Integer> transfers = new ArrayList<>();
+        final BuildTileBuffer[] buffer = new BuildTileBuffer[1];
+        buffer[0] = new BuildTileBuffer(16, 16, (byteBuffer, layer) -> {
+            transfers.add(layer);
+            buffer[0].put(layer, 0, 1L << layer);
+        });
+
+        assertThat(buffer[0].get(BuildTileBuffer.CREEP).count(), is(equalTo(0)));
+        assertThat(transfers.isEmpty(), is(true));
+
+        buffer[0].reset(16, 16);
+        assertThat(buffer[0].get(BuildTileBuffer.CREEP).get(0, 0), is(true));
+        assertThat(buffer[0].get(BuildTileBuffer.CREEP).count(), is(equalTo(1)));
+        assertThat(buffer[0].get(2).get(2, 0), is(true));
+        assertThat(transfers, is(equalTo(Arrays.asList(BuildTileBuffer.CREEP, 2))));
+
+        buffer[0].invalidate();
+        buffer[0].get(2);
+        assertThat(transfers, is(equalTo(Arrays.asList(BuildTileBuffer.CREEP, 2, 2))));
+    }
+}
@@ -0,0 +1,94 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.BUILD;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the BuildingPlacer applies the placement rules to the tiles and unit footprints.
+ */
+public class BuildingPlacerTest {
+
+    private static final int SIZE = 16;
+
+    private BuildingPlacer placer;
+    private BuildTileBuffer buildTiles;
+
+    private boolean canBuildHere(final int tileX, final int tileY, final Unit builder) {
+        return placer.canBuildHere(UnitType.Terran_Supply_Depot, new Position(tileX, tileY, BUILD),
+                builder);
+    }
+
+    @Before
+    public void setUp() {
+        UnitFixtures.initializeType(UnitType.Terran_Supply_Depot, 1, 2, 31);
+        UnitFixtures.initializeType(UnitType.Terran_Marine, 1, 1, 8);
+
+        final int[] buildable = new int[SIZE * SIZE];
+        Arrays.fill(buildable, 1);
+        buildable[5 + (SIZE * 5)] = 0;
+        placer = new BuildingPlacer(new GameMap("test", "test.scm", SIZE, SIZE, new int[SIZE
+                * SIZE], buildable, new int[SIZE * SIZE * 16]));
+        buildTiles = new BuildTileBuffer(SIZE, SIZE);
+        buildTiles.reset(SIZE, SIZE);
+        placer.update(Collections.<Unit> emptyList(), buildTiles);
+    }
+
+    @Test
+    public void unbuildableTileBlocks() {
+        assertThat(canBuildHere(4, 4, null), is(false));
+        assertThat(canBuildHere(3, 3, null), is(true));
+        assertThat(canBuildHere(SIZE - 1, 0, null), is(false));
+    }
+
+    @Test
+    public void unitFootprintBlocks() {
+        final Unit marine = UnitFixtures.createUnit(1, UnitType.Terran_Marine, (8 * 32) + 16,
+                (8 * 32) + 16, new UnitTable());
+        placer.update(Collections.singletonList(marine), buildTiles);
+
+        assertThat(placer.getOccupancy(new Position(8, 8, BUILD)), is(equalTo(1)));
+        assertThat(canBuildHere(7, 7, null), is(false));
+        assertThat(canBuildHere(7, 7, marine), is(true));
+
+        placer.update(Collections.<Unit> emptyList(), buildTiles);
+
+        assertThat(canBuildHere(7, 7, null), is(true));
+    }
+
+    @Test
+    public void creepBlocksTerranBuildings() {
+        buildTiles.put(BuildTileBuffer.CREEP, (10 + (SIZE * 10)) / 64, 1L << (10 + (SIZE * 10)));
+        buildTiles.update();
+
+        assertThat(canBuildHere(10, 10, null), is(false));
+        assertThat(canBuildHere(11, 11, null), is(true));
+    }
+
+    @Test
+    public void placementsAreOrderedByDistance() {
+        final List<Position> placements = placer.getPlacements(UnitType.Terran_Supply_Depot,
+                new Position(10, 10, BUILD), 1, null);
+
+        assertThat(placements.size(), is(equalTo(5)));
+        assertThat(placements.get(0).getX(BUILD), is(equalTo(10)));
+        assertThat(placements.get(0).getY(BUILD), is(equalTo(10)));
+    }
+
+    @Test
+    public void noPlacerBeforeMatch() {
+        assertThat(new Broodwar(new BroodwarListener.Adaptor()).getBuildingPlacer(),
+                is(nullValue()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Position.Resolution;
+import com.harbinger.jbw.Type.Command;
+
+import org.junit.Test;
+
+/**
+ * Verifies that unit commands are queued and their results reported correctly.
+ */
+public class CommandBufferTest {
+
+    @Test
+    public void queueCommands() {
+        final CommandBuffer buffer = new CommandBuffer();
+        assertThat(buffer.put(Command.MOVE, 7, -1, 320, 640, 0), is(equalTo(0)));
+        assertThat(buffer.put(Command.ATTACK_UNIT, 8, 9, 0, 0, 0), is(equalTo(1)));
+
+        assertThat(buffer.getCommandCount(), is(equalTo(2)));
+        assertThat(buffer.getType(1), is(equalTo(Command.ATTACK_UNIT.getId())));
+        assertThat(buffer.getUnitId(1), is(equalTo(8)));
+    }
+
+    @Test
+    public void resultsOfLastFlush() {
+        final CommandBuffer buffer = new CommandBuffer();
+        buffer.put(Command.STOP, 7, -1, 0, 0, 0);
+        buffer.put(Command.STOP, 8, -1, 0, 0, 0);
+        buffer.putResult(0, true);
+        buffer.putResult(1, false);
+        buffer.flushed();
+
+        assertThat(buffer.getCommandCount(), is(equalTo(0)));
+        assertThat(buffer.getFlushedCount(), is(equalTo(2)));
+        assertThat(buffer.getResult(0), is(true));
+        assertThat(buffer.getResult(1), is(false));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void resultNotFlushed() {
+        final CommandBuffer buffer = new CommandBuffer();
+        buffer.put(Command.STOP, 7, -1, 0, 0, 0);
+        buffer.getResult(0);
+    }
+
+    @Test
+    public void unitQueuesWhileBatching() {
+        final Broodwar broodwar = new Broodwar(new BroodwarListener.Adaptor());
+        broodwar.setCommandBatching(true);
+        final Unit unit = new Unit(7, broodwar);
+
+        final int commandId = broodwar.getNextCommandId();
+        assertThat(unit.move(new Position(10, 20, Resolution.PIXEL)), is(true));
+        assertThat(unit.stop(), is(true));
+        assertThat(broodwar.getNextCommandId(), is(equalTo(commandId + 2)));
+    }
+
+    // Queues a single stop command and flushes it with the given result, just as the bridge would.
+    private static int flush(final Broodwar broodwar, final Unit unit, final boolean result) {
+        final int commandId = broodwar.getNextCommandId();
+        unit.stop();
+        broodwar.getCommandBuffer().putResult(0, result);
+        broodwar.commandsFlushed();
+        return commandId;
+    }
+
+    @Test
+    public void resultsOfEveryFlushInFrame() {
+        final Broodwar broodwar = new Broodwar(new BroodwarListener.Adaptor());
+        broodwar.setCommandBatching(true);
+        final Unit unit = new Unit(7, broodwar);
+
+        final int firstId = flush(broodwar, unit, true);
+        final int secondId = flush(broodwar, unit, false);
+        broodwar.flushFrameCommands();
+
+        assertThat(broodwar.isCommandSuccessful(firstId), is(true));
+        assertThat(broodwar.isCommandSuccessful(secondId), is(false));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void resultsOfPreviousFrameDiscarded() {
+        final Broodwar broodwar = new Broodwar(new BroodwarListener.Adaptor());
+        broodwar.setCommandBatching(true);
+        final Unit unit = new Unit(7, broodwar);
+
+        final int firstId = flush(broodwar, unit, true);
+        broodwar.flushFrameCommands();
+        final int secondId = flush(broodwar, unit, true);
+
+        assertThat(broodwar.isCommandSuccessful(secondId), is(true));
+        broodwar.isCommandSuccessful(firstId);
+    }
+}
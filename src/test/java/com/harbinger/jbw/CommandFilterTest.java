@@ -0,0 +1,127 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Position.Resolution;
+import com.harbinger.jbw.Type.UnitType;
+
+import java.nio.IntBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that redundant unit commands are dropped within the latency window.
+ */
+public class CommandFilterTest {
+
+    private static final Position TARGET = new Position(10, 20, Resolution.PIXEL);
+
+    private Broodwar broodwar;
+    private Unit unit;
+
+    @Before
+    public void setUp() {
+        broodwar = new Broodwar(new BroodwarListener.Adaptor());
+        broodwar.setCommandBatching(true);
+        broodwar.setCommandFiltering(true);
+        broodwar.updateCommandFrame(100, 2);
+        unit = new Unit(7, broodwar);
+    }
+
+    @Test
+    public void repeatIsSuppressed() {
+        final int commandId = broodwar.getNextCommandId();
+        unit.move(TARGET);
+        assertThat(unit.move(TARGET), is(true));
+
+        assertThat(broodwar.getNextCommandId(), is(equalTo(commandId + 1)));
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void differentTargetIsSent() {
+        unit.move(TARGET);
+        unit.move(new Position(11, 20, Resolution.PIXEL));
+        unit.attack(TARGET);
+
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void repeatAfterUnfilteredCommandIsSent() {
+        final int commandId = broodwar.getNextCommandId();
+        unit.move(TARGET);
+        unit.siege();
+        unit.move(TARGET);
+
+        assertThat(broodwar.getNextCommandId(), is(equalTo(commandId + 3)));
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void repeatAfterReenablingFilteringIsSent() {
+        unit.move(TARGET);
+        broodwar.setCommandFiltering(false);
+        unit.move(TARGET);
+        broodwar.setCommandFiltering(true);
+        unit.move(TARGET);
+
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void repeatAfterLatencyIsSent() {
+        unit.move(TARGET);
+        broodwar.updateCommandFrame(102, 2);
+        unit.move(TARGET);
+        broodwar.updateCommandFrame(105, 2);
+        unit.move(TARGET);
+
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void trainIsNotFiltered() {
+        final int commandId = broodwar.getNextCommandId();
+        unit.train(UnitType.Terran_Marine);
+        unit.train(UnitType.Terran_Marine);
+
+        assertThat(broodwar.getNextCommandId(), is(equalTo(commandId + 2)));
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void retryAfterFailureIsSent() {
+        final int[] unitData = UnitFixtures.createUnitData(8, UnitType.Terran_Marine, 0, 0);
+        broodwar.updateUnits(IntBuffer.wrap(unitData), 0, 1, false);
+        final Unit registered = broodwar.getAllUnits().get(0);
+
+        final int commandId = broodwar.getNextCommandId();
+        registered.move(TARGET);
+        broodwar.getCommandBuffer().putResult(0, false);
+        broodwar.commandsFlushed();
+        assertThat(broodwar.isCommandSuccessful(commandId), is(false));
+
+        registered.move(TARGET);
+
+        assertThat(broodwar.getNextCommandId(), is(equalTo(commandId + 2)));
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void repeatAfterSuccessIsSuppressed() {
+        final int[] unitData = UnitFixtures.createUnitData(8, UnitType.Terran_Marine, 0, 0);
+        broodwar.updateUnits(IntBuffer.wrap(unitData), 0, 1, false);
+        final Unit registered = broodwar.getAllUnits().get(0);
+
+        registered.move(TARGET);
+        broodwar.getCommandBuffer().putResult(0, true);
+        broodwar.commandsFlushed();
+        registered.move(TARGET);
+
+        assertThat(broodwar.getSuppressedCommandCount(), is(equalTo(1)));
+    }
+}
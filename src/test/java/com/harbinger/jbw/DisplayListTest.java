@@ -0,0 +1,108 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Position.Resolution;
+
+import org.junit.Test;
+
+/**
+ * Verifies that shapes are correctly recorded into a DisplayList.
+ */
+public class DisplayListTest {
+
+    @Test
+    public void shapesAreRecorded() {
+        final DisplayList list = new DisplayList();
+        list.drawLineMap(1, 2, 3, 4, BWColor.RED);
+        list.drawRectangleScreen(10, 20, 5, 6, BWColor.BLUE, true);
+
+        assertThat(list.size(), is(equalTo(2)));
+        assertThat(list.getType(0), is(equalTo(DisplayList.LINE)));
+        assertThat(list.getFlags(0), is(equalTo(0)));
+        assertThat(list.getCoordinate(0, 3), is(equalTo(4)));
+        assertThat(list.getColor(0), is(equalTo(BWColor.RED.getId())));
+        assertThat(list.getType(1), is(equalTo(DisplayList.RECTANGLE)));
+        assertThat(list.getFlags(1), is(equalTo(DisplayList.SCREEN | DisplayList.FILL)));
+        assertThat(list.getCoordinate(1, 2), is(equalTo(15)));
+        assertThat(list.getCoordinate(1, 3), is(equalTo(26)));
+    }
+
+    @Test
+    public void textIsStoredInOrder() {
+        final DisplayList list = new DisplayList();
+        list.drawTextMap(0, 0, "first");
+        list.drawTextScreen(0, 0, "second");
+
+        assertThat(list.getTextLength(0), is(equalTo(5)));
+        assertThat(list.getTextSize(), is(equalTo(11)));
+        assertThat(list.getText(5, list.getTextLength(1)), is(equalTo("second")));
+    }
+
+    @Test
+    public void listGrows() {
+        final DisplayList list = new DisplayList();
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            list.drawCircleMap(i, i, 3, BWColor.GREEN, false);
+            text.append('x');
+        }
+        list.drawTextMap(0, 0, text.toString());
+
+        assertThat(list.size(), is(equalTo(5001)));
+        assertThat(list.getCoordinate(4999, 0), is(equalTo(4999)));
+        assertThat(list.getText(0, 5000), is(equalTo(text.toString())));
+    }
+
+    @Test
+    public void clearRemovesShapes() {
+        final DisplayList list = new DisplayList();
+        list.drawTextMap(0, 0, "text");
+        list.clear();
+
+        assertThat(list.isEmpty(), is(true));
+        assertThat(list.getTextSize(), is(equalTo(0)));
+    }
+
+    @Test
+    public void positionOverloadsMatchCoordinates() {
+        final Position p1 = new Position(10, 20, Resolution.PIXEL);
+        final Position p2 = new Position(30, 40, Resolution.PIXEL);
+        final DisplayList fromPositions = new DisplayList();
+        fromPositions.drawTextMap(p1, "map", BWColor.RED);
+        fromPositions.drawTextScreen(p1, "screen");
+        fromPositions.drawTextScreen(p1, "screen", BWColor.RED);
+        fromPositions.drawLineScreen(p1, p2, BWColor.BLUE);
+        fromPositions.drawRectangleMap(p1, 5, 6, BWColor.GREEN, false);
+        fromPositions.drawRectangleScreen(p1, 5, 6, BWColor.GREEN, true);
+        fromPositions.drawEllipseMap(p1, 7, 8, BWColor.YELLOW, false);
+        fromPositions.drawEllipseScreen(p1, 7, 8, BWColor.YELLOW, true);
+        fromPositions.drawCircleScreen(p1, 9, BWColor.WHITE, false);
+        final DisplayList fromCoordinates = new DisplayList();
+        fromCoordinates.drawTextMap(10, 20, "map", BWColor.RED);
+        fromCoordinates.drawTextScreen(10, 20, "screen");
+        fromCoordinates.drawTextScreen(10, 20, "screen", BWColor.RED);
+        fromCoordinates.drawLineScreen(10, 20, 30, 40, BWColor.BLUE);
+        fromCoordinates.drawRectangleMap(10, 20, 5, 6, BWColor.GREEN, false);
+        fromCoordinates.drawRectangleScreen(10, 20, 5, 6, BWColor.GREEN, true);
+        fromCoordinates.drawEllipseMap(10, 20, 7, 8, BWColor.YELLOW, false);
+        fromCoordinates.drawEllipseScreen(10, 20, 7, 8, BWColor.YELLOW, true);
+        fromCoordinates.drawCircleScreen(10, 20, 9, BWColor.WHITE, false);
+
+        assertThat(fromPositions.size(), is(equalTo(fromCoordinates.size())));
+        assertThat(fromPositions.getTextSize(), is(equalTo(fromCoordinates.getTextSize())));
+        for (int shape = 0; shape < fromCoordinates.size(); shape++) {
+            assertThat(fromPositions.getType(shape), is(equalTo(fromCoordinates.getType(shape))));
+            assertThat(fromPositions.getFlags(shape), is(equalTo(fromCoordinates.getFlags(shape))));
+            assertThat(fromPositions.getColor(shape), is(equalTo(fromCoordinates.getColor(shape))));
+            for (int coordinate = 0; coordinate < 4; coordinate++) {
+                assertThat(fromPositions.getCoordinate(shape, coordinate), is(equalTo(
+                        fromCoordinates.getCoordinate(shape, coordinate))));
+            }
+        }
+        assertThat(fromPositions.getText(0, fromPositions.getTextSize()), is(equalTo(
+                fromCoordinates.getText(0, fromCoordinates.getTextSize()))));
+    }
+}
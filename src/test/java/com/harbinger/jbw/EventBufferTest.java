@@ -0,0 +1,53 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Verifies that events written into the direct buffer are decoded correctly.
+ */
+public class EventBufferTest {
+
+    @Test
+    public void decodeEvents() {
+        final EventBuffer buffer = new EventBuffer();
+        buffer.reset();
+        buffer.put(12, 42, 0, null);
+        buffer.put(5, 0, 0, "gg".getBytes(StandardCharsets.UTF_8));
+        buffer.put(8, 320, 640, null);
+        buffer.put(5, 0, 0, "glhf".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(buffer.getEventCount(), is(equalTo(4)));
+        assertThat(buffer.getTextSize(), is(equalTo(6)));
+        assertThat(buffer.getType(0), is(equalTo(12)));
+        assertThat(buffer.getParam1(0), is(equalTo(42)));
+        assertThat(buffer.getTextLength(0), is(equalTo(-1)));
+        assertThat(buffer.getParam2(2), is(equalTo(640)));
+        assertThat(buffer.getTextLength(3), is(equalTo(4)));
+        assertThat(buffer.getText(2, 4, StandardCharsets.UTF_8), is(equalTo("glhf")));
+    }
+
+    @Test
+    public void emptyAfterReset() {
+        final EventBuffer buffer = new EventBuffer();
+        buffer.put(5, 0, 0, "gg".getBytes(StandardCharsets.UTF_8));
+        buffer.reset();
+
+        assertThat(buffer.getEventCount(), is(equalTo(0)));
+        assertThat(buffer.getTextSize(), is(equalTo(0)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void overflow() {
+        final EventBuffer buffer = new EventBuffer();
+        buffer.reset();
+        for (int i = 0; i <= EventBuffer.MAX_EVENTS; i++) {
+            buffer.put(2, 0, 0, null);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.BUILD;
+import static com.harbinger.jbw.Position.Resolution.WALK;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Verifies the path queries of the GameMap on small maps.
+ */
+public class GameMapTest {
+
+    private static final int SIZE = 16;
+
+    // Creates a map from rows of build tiles, where '#' is not walkable.
+    private static GameMap createMap(final String... rows) {
+        final int[] walkable = new int[SIZE * SIZE * 16];
+        for (int wy = 0; wy < (SIZE * 4); wy++) {
+            for (int wx = 0; wx < (SIZE * 4); wx++) {
+                final boolean blocked = ((wy / 4) < rows.length)
+                        && (rows[wy / 4].charAt(wx / 4) == '#');
+                walkable[wx + (SIZE * 4 * wy)] = blocked ? 0 : 1;
+            }
+        }
+        return new GameMap("test", "test.scm", SIZE, SIZE, new int[SIZE * SIZE],
+                new int[SIZE * SIZE], walkable);
+    }
+
+    private static Position tile(final int x, final int y) {
+        return new Position(x, y, BUILD);
+    }
+
+    @Test
+    public void straightPath() {
+        final GameMap map = createMap();
+
+        assertThat(map.findPath(tile(1, 1), tile(6, 1)), is(equalTo(Arrays.asList(tile(1, 1),
+                tile(6, 1)))));
+        assertThat(map.findPath(tile(1, 1), tile(1, 1)), is(equalTo(Arrays.asList(tile(1, 1)))));
+    }
+
+    @Test
+    public void pathAroundWall() {
+        final GameMap map = createMap(
+                "................",
+                "................",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........");
+
+        final List<Position> path = map.findPath(tile(2, 10), tile(6, 10));
+        final List<Position> smoothed = map.findPath(tile(2, 10), tile(6, 10), true);
+
+        assertThat(path.get(0), is(equalTo(tile(2, 10))));
+        assertThat(path.get(path.size() - 1), is(equalTo(tile(6, 10))));
+        assertThat(smoothed.size() < path.size(), is(true));
+        assertThat(smoothed.get(0), is(equalTo(tile(2, 10))));
+        assertThat(smoothed.get(smoothed.size() - 1), is(equalTo(tile(6, 10))));
+        // every waypoint between the ends is at the top of the wall, where the path goes around it
+        for (final Position waypoint : smoothed.subList(1, smoothed.size() - 1)) {
+            assertThat(waypoint.getY(BUILD) <= 2, is(true));
+        }
+    }
+
+    @Test
+    public void jumpPointSearchFindsSamePathLength() {
+        final GameMap map = createMap(
+                "................",
+                "..#######.......",
+                "..#.....#.......",
+                "..#.##..#.......",
+                "..#..#..........",
+                "..####..#.......",
+                "........#.......",
+                "#########.......");
+        final double distance = map.getGroundDistance(tile(4, 4), tile(1, 15));
+
+        map.setPathAlgorithm(GameMap.PathAlgorithm.JUMP_POINT_SEARCH);
+
+        assertThat(map.getGroundDistance(tile(4, 4), tile(1, 15)), is(equalTo(distance)));
+        assertThat(getLength(map.findPath(tile(4, 4), tile(1, 15))), is(equalTo(distance)));
+    }
+
+    // Sums the lengths of the straight and diagonal lines between the waypoints of a path.
+    private static double getLength(final List<Position> path) {
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            final int dx = Math.abs(path.get(i).getX(BUILD) - path.get(i - 1).getX(BUILD));
+            final int dy = Math.abs(path.get(i).getY(BUILD) - path.get(i - 1).getY(BUILD));
+            assertThat((dx == 0) || (dy == 0) || (dx == dy), is(true));
+            cost += (Math.abs(dx - dy) * 10) + (Math.min(dx, dy) * 14);
+        }
+        return PathSearch.getPixelDistance(cost);
+    }
+
+    @Test
+    public void smoothingSkipsOpenGround() {
+        final GameMap map = createMap();
+
+        // the search combines diagonal and straight moves, which smoothing replaces with a line
+        assertThat(map.findPath(tile(0, 0), tile(10, 3)).size() > 2, is(true));
+        assertThat(map.findPath(tile(0, 0), tile(10, 3), true), is(equalTo(Arrays.asList(tile(0,
+                0), tile(10, 3)))));
+    }
+
+    @Test
+    public void unreachablePath() {
+        final GameMap map = createMap(
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........",
+                "....#...........");
+
+        assertThat(map.findPath(tile(1, 1), tile(8, 1)), is(equalTo(Collections
+                .<Position> emptyList())));
+        assertThat(map.getGroundDistance(tile(1, 1), tile(8, 1)), is(equalTo(-1.0)));
+    }
+
+    @Test
+    public void distanceFieldMatchesSearch() {
+        final GameMap map = createMap(
+                "................",
+                "..#######.......",
+                "..#.....#.......",
+                "..#.##..#.......",
+                "..#..#..........",
+                "..####..#.......",
+                "........#.......",
+                "#########.......");
+        final PathSearch search = new PathSearch(SIZE, SIZE, getLowResWalkable(map));
+
+        for (final Position target : Arrays.asList(tile(4, 4), tile(12, 12), tile(3, 1))) {
+            final DistanceField field = map.getDistanceField(target);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    assertThat(field.getDistance(x, y), is(equalTo(PathSearch.getPixelDistance(
+                            search.search(x, y, target.getX(BUILD), target.getY(BUILD))))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void distanceFieldsAreCached() {
+        final GameMap map = createMap();
+        final DistanceField first = map.getDistanceField(tile(0, 0));
+
+        assertThat(map.getDistanceField(tile(0, 0)), is(sameInstance(first)));
+        for (int i = 1; i <= GameMap.DISTANCE_FIELD_CACHE_SIZE; i++) {
+            map.getDistanceField(tile(i % SIZE, i / SIZE));
+        }
+        assertThat(map.getDistanceField(tile(0, 0)), is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void reachability() {
+        final GameMap map = createMap(
+                "....#.....#.....",
+                "....#.....#.....",
+                "....#######.....",
+                "................",
+                "................",
+                "...#............",
+                "..#.............");
+
+        assertThat(map.isReachable(tile(0, 0), tile(9, 7)), is(true));
+        assertThat(map.isReachable(tile(0, 0), tile(5, 0)), is(false));
+        assertThat(map.isReachable(tile(5, 0), tile(9, 1)), is(true));
+        assertThat(map.isReachable(tile(0, 0), tile(15, 15)), is(true));
+        assertThat(map.isReachable(tile(0, 0), tile(4, 0)), is(false));
+        assertThat(map.isReachable(tile(0, 0), tile(SIZE, 0)), is(false));
+        // the diagonal between the two blocked tiles is closed, but there is a way around them
+        assertThat(map.isReachable(tile(2, 5), tile(3, 6)), is(true));
+
+        assertThat(map.isWalkReachable(new Position(0, 0, WALK), new Position(39, 31, WALK)),
+                is(true));
+        assertThat(map.isWalkReachable(new Position(0, 0, WALK), new Position(20, 0, WALK)),
+                is(false));
+    }
+
+    @Test
+    public void groundDistanceBetweenComponents() {
+        final GameMap map = createMap(
+                "....#.....#.....",
+                "....#.....#.....",
+                "....#######.....");
+
+        assertThat(map.getGroundDistance(tile(0, 0), tile(5, 0)), is(equalTo(-1.0)));
+        assertThat(map.getGroundDistance(tile(0, 0), tile(4, 0)), is(equalTo(-1.0)));
+        // a path can start on an unwalkable tile
+        assertThat(map.getGroundDistance(tile(4, 0), tile(5, 0)), is(equalTo(
+                (double) GameMap.TILE_SIZE)));
+        assertThat(map.getGroundDistance(tile(4, 0), tile(3, 0)), is(equalTo(
+                (double) GameMap.TILE_SIZE)));
+    }
+
+    private static boolean[] getLowResWalkable(final GameMap map) {
+        final boolean[] walkable = new boolean[SIZE * SIZE];
+        for (int i = 0; i < walkable.length; i++) {
+            walkable[i] = map.isLowResWalkable(tile(i % SIZE, i / SIZE));
+        }
+        return walkable;
+    }
+}
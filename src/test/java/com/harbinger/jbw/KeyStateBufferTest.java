@@ -0,0 +1,60 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Verifies that key presses are correctly determined from KeyStateBuffer snapshots.
+ */
+public class KeyStateBufferTest {
+
+    @Test
+    public void pressedKeysAreFound() {
+        final KeyStateBuffer keys = new KeyStateBuffer();
+        keys.put(3, true);
+        keys.put(64, true);
+        keys.put(255, true);
+        keys.update();
+
+        assertThat(keys.nextPressedKey(0), is(equalTo(3)));
+        assertThat(keys.nextPressedKey(4), is(equalTo(64)));
+        assertThat(keys.nextPressedKey(65), is(equalTo(255)));
+        assertThat(keys.nextPressedKey(256), is(equalTo(-1)));
+        assertThat(keys.isDown(64), is(true));
+    }
+
+    @Test
+    public void heldKeyIsOnlyPressedOnce() {
+        final KeyStateBuffer keys = new KeyStateBuffer();
+        keys.put(65, true);
+        keys.update();
+        keys.update();
+
+        assertThat(keys.nextPressedKey(0), is(equalTo(-1)));
+        assertThat(keys.isDown(65), is(true));
+    }
+
+    @Test
+    public void releasedKeyIsPressedAgain() {
+        final KeyStateBuffer keys = new KeyStateBuffer();
+        keys.put(65, true);
+        keys.update();
+        keys.put(65, false);
+        keys.update();
+
+        assertThat(keys.isDown(65), is(false));
+
+        keys.put(65, true);
+        keys.update();
+
+        assertThat(keys.nextPressedKey(0), is(equalTo(65)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keyCodeOutOfRange() {
+        new KeyStateBuffer().isDown(256);
+    }
+}
@@ -0,0 +1,137 @@
+package com.harbinger.jbw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the time taken by A* and Jump Point Search to find the distances between all pairs of
+ * base locations on synthetic maps, and checks that both find the same distances.
+ *
+ * <p>
+ * This is not run as part of the tests; run its main method to print the results.
+ */
+public class PathSearchBenchmark {
+
+    private static final int SIZE = 128;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    private final String name;
+    private final boolean[] walkable;
+    private final List<int[]> bases = new ArrayList<>();
+
+    private PathSearchBenchmark(final String name, final boolean[] walkable) {
+        this.name = name;
+        this.walkable = walkable;
+        // bases spread over the map in a 4 x 3 layout, as on a typical 8 player map
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                final int x = 12 + (column * 34);
+                final int y = 16 + (row * 48);
+                clear(walkable, x - 3, y - 3, 7, 7);
+                bases.add(new int[] { x, y });
+            }
+        }
+    }
+
+    private static void clear(final boolean[] walkable, final int left, final int top,
+            final int width, final int height) {
+        fill(walkable, left, top, width, height, true);
+    }
+
+    private static void fill(final boolean[] walkable, final int left, final int top,
+            final int width, final int height, final boolean value) {
+        for (int y = Math.max(top, 0); y < Math.min(top + height, SIZE); y++) {
+            for (int x = Math.max(left, 0); x < Math.min(left + width, SIZE); x++) {
+                walkable[x + (SIZE * y)] = value;
+            }
+        }
+    }
+
+    // Open ground with small scattered obstacles, like doodads.
+    private static PathSearchBenchmark createOpenMap(final Random random) {
+        final boolean[] walkable = new boolean[SIZE * SIZE];
+        Arrays.fill(walkable, true);
+        for (int i = 0; i < 150; i++) {
+            fill(walkable, random.nextInt(SIZE), random.nextInt(SIZE), 1 + random.nextInt(3),
+                    1 + random.nextInt(3), false);
+        }
+        return new PathSearchBenchmark("open", walkable);
+    }
+
+    // Open areas separated by cliffs, connected by narrow ramps.
+    private static PathSearchBenchmark createChokeMap(final Random random) {
+        final boolean[] walkable = new boolean[SIZE * SIZE];
+        Arrays.fill(walkable, true);
+        for (int i = 1; i < 4; i++) {
+            final int x = (i * 34) - 5;
+            fill(walkable, x, 0, 2, SIZE, false);
+            clear(walkable, x, 10 + random.nextInt(SIZE - 20), 2, 3);
+        }
+        for (int i = 1; i < 3; i++) {
+            final int y = (i * 48) - 8;
+            fill(walkable, 0, y, SIZE, 2, false);
+            clear(walkable, 10 + random.nextInt(SIZE - 20), y, 3, 2);
+        }
+        return new PathSearchBenchmark("chokes", walkable);
+    }
+
+    // Dense random obstacles, where most tiles have a blocked neighbor.
+    private static PathSearchBenchmark createClutteredMap(final Random random) {
+        final boolean[] walkable = new boolean[SIZE * SIZE];
+        for (int i = 0; i < walkable.length; i++) {
+            walkable[i] = random.nextInt(100) >= 25;
+        }
+        return new PathSearchBenchmark("cluttered", walkable);
+    }
+
+    private interface Algorithm {
+        int search(PathSearch search, int startX, int startY, int endX, int endY);
+    }
+
+    // Finds the cost between every pair of bases, returning the time taken in nanoseconds.
+    private long run(final PathSearch search, final Algorithm algorithm, final int[] costs) {
+        final long start = System.nanoTime();
+        int i = 0;
+        for (final int[] from : bases) {
+            for (final int[] to : bases) {
+                costs[i++] = algorithm.search(search, from[0], from[1], to[0], to[1]);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long measure(final PathSearch search, final Algorithm algorithm, final int[] costs) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(search, algorithm, costs);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, run(search, algorithm, costs));
+        }
+        return best;
+    }
+
+    private void report() {
+        final PathSearch search = new PathSearch(SIZE, SIZE, walkable);
+        final int[] aStarCosts = new int[bases.size() * bases.size()];
+        final int[] jumpPointCosts = new int[bases.size() * bases.size()];
+        final long aStarTime = measure(search, PathSearch::search, aStarCosts);
+        final long jumpPointTime = measure(search, PathSearch::jumpPointSearch, jumpPointCosts);
+        if (!Arrays.equals(aStarCosts, jumpPointCosts)) {
+            throw new IllegalStateException("the searches found different costs on " + name);
+        }
+        System.out.println(String.format("%-10s %8d pairs  A* %8.2f ms  JPS %8.2f ms  %6.1fx",
+                name, aStarCosts.length, aStarTime / 1e6, jumpPointTime / 1e6, aStarTime
+                        / (double) jumpPointTime));
+    }
+
+    public static void main(final String[] args) {
+        final Random random = new Random(1);
+        createOpenMap(random).report();
+        createChokeMap(random).report();
+        createClutteredMap(random).report();
+    }
+}
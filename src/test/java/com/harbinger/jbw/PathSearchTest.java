@@ -0,0 +1,166 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.BUILD;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Verifies that the PathSearch finds the costs of the shortest paths between build tiles.
+ */
+public class PathSearchTest {
+
+    private static final int SIZE = 16;
+
+    private static boolean[] createOpenGrid() {
+        final boolean[] walkable = new boolean[SIZE * SIZE];
+        Arrays.fill(walkable, true);
+        return walkable;
+    }
+
+    // Fills a column with unwalkable tiles, except for the rows from gapTop to gapBottom.
+    private static void addWall(final boolean[] walkable, final int x, final int gapTop,
+            final int gapBottom) {
+        for (int y = 0; y < SIZE; y++) {
+            walkable[x + (SIZE * y)] = (y >= gapTop) && (y <= gapBottom);
+        }
+    }
+
+    @Test
+    public void openGrid() {
+        final PathSearch search = new PathSearch(SIZE, SIZE, createOpenGrid());
+
+        assertThat(search.search(0, 0, 0, 0), is(equalTo(0)));
+        assertThat(search.search(0, 0, 5, 0), is(equalTo(50)));
+        assertThat(search.search(0, 0, 3, 3), is(equalTo(42)));
+        assertThat(search.search(0, 0, 5, 3), is(equalTo(62)));
+    }
+
+    @Test
+    public void detourThroughGap() {
+        final boolean[] walkable = createOpenGrid();
+        addWall(walkable, 5, 10, 10);
+        final PathSearch search = new PathSearch(SIZE, SIZE, walkable);
+
+        // (2, 2) -> (5, 10) is 3 diagonal and 5 straight moves, and the same again to (8, 2)
+        assertThat(search.search(2, 2, 8, 2), is(equalTo(2 * ((3 * 14) + (5 * 10)))));
+    }
+
+    @Test
+    public void unreachable() {
+        final boolean[] walkable = createOpenGrid();
+        addWall(walkable, 5, SIZE, SIZE);
+        final PathSearch search = new PathSearch(SIZE, SIZE, walkable);
+
+        assertThat(search.search(2, 2, 8, 2), is(equalTo(-1)));
+        assertThat(search.search(2, 2, SIZE, 2), is(equalTo(-1)));
+        assertThat(search.search(2, 2, 3, 3), is(equalTo(14)));
+    }
+
+    @Test
+    public void diagonalRequiresAnAdjacentTile() {
+        final boolean[] walkable = new boolean[SIZE * SIZE];
+        walkable[0] = true;
+        walkable[1 + SIZE] = true;
+        final PathSearch search = new PathSearch(SIZE, SIZE, walkable);
+
+        assertThat(search.search(0, 0, 1, 1), is(equalTo(-1)));
+
+        walkable[1] = true;
+        assertThat(search.search(0, 0, 1, 1), is(equalTo(14)));
+    }
+
+    @Test
+    public void matchesDijkstraOnRandomGrids() {
+        final Random random = new Random(42);
+        for (int trial = 0; trial < 20; trial++) {
+            final boolean[] walkable = new boolean[SIZE * SIZE];
+            for (int i = 0; i < walkable.length; i++) {
+                walkable[i] = random.nextInt(100) < 70;
+            }
+            final PathSearch search = new PathSearch(SIZE, SIZE, walkable);
+            final int start = random.nextInt(walkable.length);
+            walkable[start] = true;
+            final int[] expected = getDijkstraCosts(walkable, start);
+            for (int end = 0; end < walkable.length; end++) {
+                assertThat(search.search(start % SIZE, start / SIZE, end % SIZE, end / SIZE),
+                        is(equalTo(expected[end])));
+            }
+        }
+    }
+
+    @Test
+    public void jumpPointSearchMatchesAStar() {
+        final Random random = new Random(7);
+        for (int trial = 0; trial < 60; trial++) {
+            final boolean[] walkable = new boolean[SIZE * SIZE];
+            final int density = 5 + ((trial % 6) * 8);
+            for (int i = 0; i < walkable.length; i++) {
+                walkable[i] = random.nextInt(100) >= density;
+            }
+            final PathSearch search = new PathSearch(SIZE, SIZE, walkable);
+            for (int query = 0; query < 100; query++) {
+                final int startX = random.nextInt(SIZE);
+                final int startY = random.nextInt(SIZE);
+                final int endX = random.nextInt(SIZE);
+                final int endY = random.nextInt(SIZE);
+                assertThat(search.jumpPointSearch(startX, startY, endX, endY), is(equalTo(search
+                        .search(startX, startY, endX, endY))));
+            }
+        }
+    }
+
+    // A reference search that relaxes every edge until no cost changes.
+    private static int[] getDijkstraCosts(final boolean[] walkable, final int start) {
+        final int[] costs = new int[SIZE * SIZE];
+        Arrays.fill(costs, Integer.MAX_VALUE);
+        costs[start] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int tile = 0; tile < costs.length; tile++) {
+                if (costs[tile] == Integer.MAX_VALUE) {
+                    continue;
+                }
+                final int x = tile % SIZE;
+                final int y = tile / SIZE;
+                for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, SIZE - 1); ny++) {
+                    for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, SIZE - 1); nx++) {
+                        final boolean diagonal = (nx != x) && (ny != y);
+                        if (!walkable[nx + (SIZE * ny)] || (diagonal && !walkable[x + (SIZE * ny)]
+                                && !walkable[nx + (SIZE * y)])) {
+                            continue;
+                        }
+                        final int cost = costs[tile] + (diagonal ? 14 : 10);
+                        if (cost < costs[nx + (SIZE * ny)]) {
+                            costs[nx + (SIZE * ny)] = cost;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        for (int tile = 0; tile < costs.length; tile++) {
+            if (costs[tile] == Integer.MAX_VALUE) {
+                costs[tile] = -1;
+            }
+        }
+        return costs;
+    }
+
+    @Test
+    public void groundDistance() {
+        final int[] walkable = new int[SIZE * SIZE * 16];
+        Arrays.fill(walkable, 1);
+        final GameMap map = new GameMap("test", "test.scm", SIZE, SIZE, new int[SIZE * SIZE],
+                new int[SIZE * SIZE], walkable);
+
+        assertThat(map.getGroundDistance(new Position(0, 0, BUILD), new Position(5, 0, BUILD)),
+                is(equalTo(5.0 * GameMap.TILE_SIZE)));
+    }
+}
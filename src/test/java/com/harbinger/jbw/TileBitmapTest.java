@@ -0,0 +1,65 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.LongBuffer;
+
+import org.junit.Test;
+
+/**
+ * Verifies that build tiles are correctly queried and counted in a TileBitmap.
+ */
+public class TileBitmapTest {
+
+    @Test
+    public void tilesAreQueried() {
+        final TileBitmap tiles = new TileBitmap(100, 50);
+        tiles.set(63, 0, true);
+        tiles.set(99, 49, true);
+
+        assertThat(tiles.get(63, 0), is(true));
+        assertThat(tiles.get(64, 0), is(false));
+        assertThat(tiles.get(99, 49), is(true));
+        assertThat(tiles.get(100, 49), is(false));
+        assertThat(tiles.get(-1, 0), is(false));
+    }
+
+    @Test
+    public void regionsAreCounted() {
+        final TileBitmap tiles = new TileBitmap(128, 128);
+        for (int y = 10; y < 20; y++) {
+            for (int x = 60; x < 70; x++) {
+                tiles.set(x, y, true);
+            }
+        }
+
+        assertThat(tiles.count(), is(equalTo(100)));
+        assertThat(tiles.count(0, 0, 128, 128), is(equalTo(100)));
+        assertThat(tiles.count(64, 15, 64, 64), is(equalTo(30)));
+        assertThat(tiles.count(60, 10, 1, 1), is(equalTo(1)));
+        assertThat(tiles.count(120, 120, 20, 20), is(equalTo(0)));
+    }
+
+    @Test
+    public void snapshotIsRead() {
+        final LongBuffer data = LongBuffer.allocate(4);
+        data.put(2, 1L << 5);
+        final TileBitmap tiles = new TileBitmap(8, 8);
+        tiles.read(data, 2);
+
+        assertThat(tiles.get(5, 0), is(true));
+        assertThat(tiles.count(), is(equalTo(1)));
+    }
+
+    @Test
+    public void nothingIsVisibleBeforeMatch() {
+        final Broodwar broodwar = new Broodwar(new BroodwarListener.Adaptor());
+        final Position position = new Position(0, 0, Position.Resolution.BUILD);
+
+        assertThat(broodwar.isVisible(position), is(false));
+        assertThat(broodwar.isExplored(position), is(false));
+        assertThat(broodwar.getVisibleTiles().count(), is(equalTo(0)));
+    }
+}
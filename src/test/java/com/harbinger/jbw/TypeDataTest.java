@@ -0,0 +1,81 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.Damage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the type tables survive a round trip through the cache format.
+ */
+public class TypeDataTest {
+
+    private static final int REVISION = 4708;
+
+    private TypeData typeData;
+
+    @Before
+    public void setUp() {
+        typeData = new TypeData(REVISION);
+        for (final TypeData.Category category : TypeData.Category.values()) {
+            typeData.put(category, new int[0], new String[0]);
+        }
+        typeData.put(TypeData.Category.DAMAGE, new int[] { 3, 4 },
+                new String[] { "Normal", "Ignore Armor" });
+        typeData.putRequiredUnits(new int[0][]);
+    }
+
+    private static byte[] write(final TypeData typeData) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        typeData.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static TypeData read(final byte[] bytes, final int revision) throws IOException {
+        return TypeData.read(new DataInputStream(new ByteArrayInputStream(bytes)), revision);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final TypeData cached = read(write(typeData), REVISION);
+
+        assertThat(cached, is(notNullValue()));
+        assertThat(cached.getData(TypeData.Category.DAMAGE)[1], is(equalTo(4)));
+        assertThat(cached.getNames(TypeData.Category.DAMAGE)[1], is(equalTo("Ignore Armor")));
+        assertThat(cached.getNames(TypeData.Category.RACE).length, is(equalTo(0)));
+    }
+
+    @Test
+    public void revisionMismatch() throws IOException {
+        assertThat(read(write(typeData), REVISION + 1), is(nullValue()));
+    }
+
+    @Test(expected = IOException.class)
+    public void notACache() throws IOException {
+        read(new byte[] { 1, 2, 3, 4 }, REVISION);
+    }
+
+    @Test
+    public void initializeTypes() throws IOException {
+        read(write(typeData), REVISION).initializeTypes();
+
+        assertThat(Damage.NORMAL.getName(), is(equalTo("Normal")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void incomplete() throws IOException {
+        write(new TypeData(REVISION));
+    }
+}
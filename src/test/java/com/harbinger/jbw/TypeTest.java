@@ -0,0 +1,37 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.Order;
+import com.harbinger.jbw.Type.UnitType;
+import com.harbinger.jbw.Type.Weapon;
+
+import org.junit.Test;
+
+/**
+ * Verifies that types are looked up by their ID.
+ */
+public class TypeTest {
+
+    @Test
+    public void lookupEveryType() {
+        for (final UnitType type : UnitType.values()) {
+            assertThat(UnitType.getUnitType(type.getId()), is(sameInstance(type)));
+        }
+        for (final Order type : Order.values()) {
+            assertThat(Order.getOrderType(type.getId()), is(sameInstance(type)));
+        }
+        for (final Weapon type : Weapon.values()) {
+            assertThat(Weapon.getWeaponType(type.getId()), is(sameInstance(type)));
+        }
+    }
+
+    @Test
+    public void lookupUnknownId() {
+        assertThat(UnitType.getUnitType(-1), is(nullValue()));
+        assertThat(UnitType.getUnitType(Integer.MAX_VALUE), is(nullValue()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import org.junit.Test;
+
+/**
+ * Verifies that unit data written into the direct buffer is decoded the same as the array data.
+ */
+public class UnitDataBufferTest {
+
+    private static int[] createUnitData(final int id, final int hitPoints, final boolean idle) {
+        final int[] data = UnitFixtures.createUnitData(id, UnitType.Terran_Marine, 100 + id, 200
+                + id);
+        data[UnitFixtures.HIT_POINTS] = hitPoints;
+        long flags = UnitFlag.mask(UnitFlag.EXISTS, UnitFlag.VISIBLE);
+        if (idle) {
+            flags |= UnitFlag.IDLE.getMask();
+        }
+        UnitFixtures.setFlags(data, flags);
+        return data;
+    }
+
+    @Test
+    public void emptyAfterReset() {
+        final UnitDataBuffer buffer = new UnitDataBuffer(4);
+        buffer.put(createUnitData(1, 40, true), 0);
+        buffer.reset();
+
+        assertThat(buffer.getUnitCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void decodeUnits() {
+        final UnitDataBuffer buffer = new UnitDataBuffer(4);
+        buffer.put(createUnitData(7, 40, true), 0);
+        buffer.put(createUnitData(9, 35, false), 0);
+
+        assertThat(buffer.getUnitCount(), is(equalTo(2)));
+
+        final int index = UnitDataBuffer.getUnitIndex(1);
+        assertThat(buffer.getData().get(index), is(equalTo(9)));
+
+        final Unit unit = new Unit(9, null);
+        unit.update(buffer.getData(), index);
+        assertThat(unit.getHitPoints(), is(equalTo(35)));
+        assertThat(unit.isExists(), is(true));
+        assertThat(unit.isIdle(), is(false));
+        assertThat(unit.isVisible(), is(true));
+    }
+
+    @Test
+    public void decodeMatchesArray() {
+        final int[] data = createUnitData(3, 20, true);
+        final UnitDataBuffer buffer = new UnitDataBuffer(1);
+        buffer.put(data, 0);
+
+        final Unit fromArray = new Unit(3, null);
+        fromArray.update(data, 0);
+        final Unit fromBuffer = new Unit(3, null);
+        fromBuffer.update(buffer.getData(), UnitDataBuffer.getUnitIndex(0));
+
+        assertThat(fromBuffer.getHitPoints(), is(equalTo(fromArray.getHitPoints())));
+        assertThat(fromBuffer.getTopLeft(), is(equalTo(fromArray.getTopLeft())));
+        assertThat(fromBuffer.isIdle(), is(equalTo(fromArray.isIdle())));
+    }
+
+    @Test
+    public void idsFollowUnitData() {
+        final UnitDataBuffer buffer = new UnitDataBuffer(4);
+        buffer.put(createUnitData(9, 35, false), 0);
+        buffer.putIds(new int[] { 7, 9, 12 });
+
+        assertThat(buffer.getIdIndex(), is(equalTo(UnitDataBuffer.getUnitIndex(1))));
+        assertThat(buffer.getIdCount(), is(equalTo(3)));
+        assertThat(buffer.getData().get(buffer.getIdIndex() + 3), is(equalTo(12)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void overflow() {
+        final UnitDataBuffer buffer = new UnitDataBuffer(1);
+        buffer.put(createUnitData(1, 40, true), 0);
+        buffer.put(createUnitData(2, 40, true), 0);
+    }
+}
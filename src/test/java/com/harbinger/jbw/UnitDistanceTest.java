@@ -0,0 +1,75 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the distances between units are measured from the edges of their bounding boxes.
+ */
+public class UnitDistanceTest {
+
+    private final UnitTable table = new UnitTable();
+
+    private Unit createUnit(final int id, final int x, final int y) {
+        return UnitFixtures.createUnit(id, UnitType.Terran_Marine, x, y, table);
+    }
+
+    @Before
+    public void setUp() {
+        UnitFixtures.initializeType(UnitType.Terran_Marine, 0, 1, 8);
+    }
+
+    @Test
+    public void bounds() {
+        final Unit unit = createUnit(1, 100, 200);
+
+        assertThat(unit.getLeft(), is(equalTo(92)));
+        assertThat(unit.getTop(), is(equalTo(192)));
+        assertThat(unit.getRight(), is(equalTo(108)));
+        assertThat(unit.getBottom(), is(equalTo(208)));
+    }
+
+    @Test
+    public void distanceToUnit() {
+        final Unit unit = createUnit(1, 100, 100);
+        final Unit target = createUnit(2, 140, 100);
+
+        assertThat(unit.getDistanceSquared(target), is(equalTo(23 * 23)));
+        assertThat(unit.getDistance(target), is(equalTo(23.0)));
+        assertThat(target.getDistance(unit), is(equalTo(23.0)));
+        assertThat(unit.getApproxDistance(target), is(equalTo(23)));
+        assertThat(unit.getDistance(unit), is(equalTo(0.0)));
+    }
+
+    @Test
+    public void distanceToPosition() {
+        final Unit unit = createUnit(1, 100, 100);
+
+        assertThat(unit.getDistanceSquared(100, 130), is(equalTo(21 * 21)));
+        assertThat(unit.getDistanceSquared(105, 95), is(equalTo(0)));
+        assertThat(unit.getDistanceSquared(150, 150), is(equalTo(2 * 41 * 41)));
+        assertThat(unit.getApproxDistance(150, 150), is(equalTo(54)));
+    }
+
+    @Test
+    public void batchDistances() {
+        final Unit unit = createUnit(1, 100, 100);
+        final Unit[] targets = { createUnit(2, 140, 100), createUnit(3, 100, 130), null };
+        final int[] squared = new int[3];
+        final double[] distances = new double[3];
+
+        unit.getDistancesSquared(targets, 2, squared);
+        unit.getDistances(targets, 2, distances);
+
+        assertThat(squared[0], is(equalTo(23 * 23)));
+        assertThat(squared[1], is(equalTo(13 * 13)));
+        assertThat(squared[2], is(equalTo(0)));
+        assertThat(distances[1], is(equalTo(13.0)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.harbinger.jbw;
+
+import com.harbinger.jbw.Type.UnitType;
+
+/**
+ * Builds unit records and unit types for tests, using the attribute layouts written by the bridge.
+ * Tests refer to the attributes through the index constants, so a change to a layout only needs to
+ * be made here, and is checked by {@link UnitTableTest#fixtureMatchesLayout()}.
+ */
+final class UnitFixtures {
+
+    // indices of the attributes in a unit record, as read by UnitTable#update
+    static final int ID = 0;
+    static final int PLAYER_ID = 2;
+    static final int TYPE_ID = 3;
+    static final int X = 4;
+    static final int Y = 5;
+    static final int HIT_POINTS = 11;
+    static final int FLAGS_LOW = 71;
+    static final int FLAGS_HIGH = 72;
+
+    // indices of the attributes in a unit type record, as read by UnitType#initialize
+    static final int TYPE_RACE_ID = 1;
+    static final int TYPE_TILE_WIDTH = 19;
+    static final int TYPE_TILE_HEIGHT = 20;
+    static final int TYPE_DIMENSION_LEFT = 21;
+    static final int TYPE_DIMENSION_UP = 22;
+    static final int TYPE_DIMENSION_RIGHT = 23;
+    static final int TYPE_DIMENSION_DOWN = 24;
+
+    private UnitFixtures() {
+    }
+
+    /**
+     * Creates the record of an existing unit.
+     */
+    static int[] createUnitData(final int id, final UnitType type, final int x, final int y) {
+        final int[] data = new int[Unit.NUM_ATTRIBUTES];
+        data[ID] = id;
+        data[TYPE_ID] = type.getId();
+        data[X] = x;
+        data[Y] = y;
+        setFlags(data, UnitFlag.EXISTS.getMask());
+        return data;
+    }
+
+    /**
+     * Replaces the status flags of a unit record.
+     */
+    static void setFlags(final int[] data, final long flags) {
+        data[FLAGS_LOW] = (int) flags;
+        data[FLAGS_HIGH] = (int) (flags >>> 32);
+    }
+
+    /**
+     * Creates an existing unit, backed by a slot of the table.
+     */
+    static Unit createUnit(final int id, final UnitType type, final int x, final int y,
+            final UnitTable table) {
+        final Unit unit = new Unit(id, null, table);
+        unit.update(createUnitData(id, type, x, y), 0);
+        return unit;
+    }
+
+    /**
+     * Updates an existing unit with a new position, keeping its type.
+     */
+    static void moveUnit(final Unit unit, final int x, final int y) {
+        unit.update(createUnitData(unit.getId(), unit.getType(), x, y), 0);
+    }
+
+    /**
+     * Initializes a unit type with square dimensions, leaving all other attributes at zero.
+     *
+     * @param raceId
+     *            the ID of the race of the type
+     *
+     * @param tileSize
+     *            the width and height of the type, in build tiles
+     *
+     * @param dimension
+     *            the distance from the center of the type to each edge, in pixels
+     */
+    static void initializeType(final UnitType type, final int raceId, final int tileSize,
+            final int dimension) {
+        final int[] data = new int[UnitType.NUM_ATTRIBUTES];
+        data[ID] = type.getId();
+        data[TYPE_RACE_ID] = raceId;
+        data[TYPE_TILE_WIDTH] = tileSize;
+        data[TYPE_TILE_HEIGHT] = tileSize;
+        data[TYPE_DIMENSION_LEFT] = dimension;
+        data[TYPE_DIMENSION_UP] = dimension;
+        data[TYPE_DIMENSION_RIGHT] = dimension;
+        data[TYPE_DIMENSION_DOWN] = dimension;
+        type.initialize(data, 0, type.name(), new int[0]);
+    }
+}
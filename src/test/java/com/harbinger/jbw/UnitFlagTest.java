@@ -0,0 +1,55 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Verifies that the packed status flags are decoded and queried correctly.
+ */
+public class UnitFlagTest {
+
+    private static Unit createUnit(final UnitFlag... flags) {
+        final long mask = UnitFlag.mask(flags);
+        final int[] data = new int[Unit.NUM_ATTRIBUTES];
+        data[UnitFixtures.ID] = 1;
+        UnitFixtures.setFlags(data, mask);
+
+        final Unit unit = new Unit(1, null);
+        unit.update(data, 0);
+        return unit;
+    }
+
+    @Test
+    public void decodeBothWords() {
+        final Unit unit = createUnit(UnitFlag.EXISTS, UnitFlag.IDLE, UnitFlag.VISIBLE);
+
+        assertThat(unit.isExists(), is(true));
+        assertThat(unit.isIdle(), is(true));
+        assertThat(unit.isVisible(), is(true));
+        assertThat(unit.isBurrowed(), is(false));
+        assertThat(unit.getFlags(), is(equalTo(UnitFlag.mask(UnitFlag.EXISTS, UnitFlag.IDLE,
+                UnitFlag.VISIBLE))));
+    }
+
+    @Test
+    public void maskQueries() {
+        final Unit unit = createUnit(UnitFlag.IDLE, UnitFlag.COMPLETED);
+
+        assertThat(unit.hasAll(UnitFlag.IDLE, UnitFlag.COMPLETED), is(true));
+        assertThat(unit.hasAll(UnitFlag.IDLE, UnitFlag.BURROWED), is(false));
+        assertThat(unit.hasAny(UnitFlag.IDLE, UnitFlag.BURROWED), is(true));
+        assertThat(unit.hasAny(UnitFlag.BURROWED, UnitFlag.CLOAKED), is(false));
+    }
+
+    @Test
+    public void destroyedClearsExists() {
+        final Unit unit = createUnit(UnitFlag.EXISTS, UnitFlag.COMPLETED);
+        unit.setDestroyed();
+
+        assertThat(unit.isExists(), is(false));
+        assertThat(unit.isCompleted(), is(true));
+    }
+}
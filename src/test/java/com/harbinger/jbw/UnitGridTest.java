@@ -0,0 +1,95 @@
+package com.harbinger.jbw;
+
+import static com.harbinger.jbw.Position.Resolution.PIXEL;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the UnitGrid finds the units near a position as units move.
+ */
+public class UnitGridTest {
+
+    private final UnitTable table = new UnitTable();
+    private UnitGrid grid;
+
+    private Unit createUnit(final int id, final int x, final int y) {
+        return UnitFixtures.createUnit(id, UnitType.Terran_Marine, x, y, table);
+    }
+
+    private static Position at(final int x, final int y) {
+        return new Position(x, y, PIXEL);
+    }
+
+    @Before
+    public void setUp() {
+        UnitFixtures.initializeType(UnitType.Terran_Marine, 0, 1, 8);
+        grid = new UnitGrid(1024, 1024);
+    }
+
+    @Test
+    public void unitsInRadius() {
+        final Unit near = createUnit(1, 100, 100);
+        final Unit spanning = createUnit(2, 128, 100);
+        final Unit far = createUnit(3, 500, 500);
+        grid.update(Arrays.asList(near, spanning, far));
+
+        final List<Unit> found = grid.getUnitsInRadius(at(110, 100), 20);
+
+        assertThat(found.size(), is(equalTo(2)));
+        assertThat(found.contains(far), is(false));
+    }
+
+    @Test
+    public void unitsInRectangle() {
+        final Unit inside = createUnit(1, 300, 300);
+        final Unit outside = createUnit(2, 600, 300);
+        grid.update(Arrays.asList(inside, outside));
+
+        assertThat(grid.getUnitsInRectangle(at(250, 250), at(400, 400)), is(equalTo(Arrays
+                .asList(inside))));
+    }
+
+    @Test
+    public void closestUnit() {
+        final Unit near = createUnit(1, 200, 200);
+        final Unit farther = createUnit(2, 700, 200);
+        grid.update(Arrays.asList(near, farther));
+
+        assertThat(grid.getClosestUnit(at(600, 200), 1000, unit -> true), is(sameInstance(
+                farther)));
+        assertThat(grid.getClosestUnit(at(600, 200), 1000, unit -> unit != farther),
+                is(sameInstance(near)));
+        assertThat(grid.getClosestUnit(at(600, 200), 100, unit -> unit != farther),
+                is(nullValue()));
+    }
+
+    @Test
+    public void unitsMoveAndLeave() {
+        final Unit unit = createUnit(1, 100, 100);
+        final List<Unit> units = new ArrayList<>(Arrays.asList(unit));
+        grid.update(units);
+        UnitFixtures.moveUnit(unit, 900, 900);
+        grid.update(units);
+
+        assertThat(grid.getUnitsInRadius(at(100, 100), 50).isEmpty(), is(true));
+        assertThat(grid.getUnitsInRadius(at(900, 900), 50).size(), is(equalTo(1)));
+
+        units.clear();
+        grid.update(units);
+
+        assertThat(grid.size(), is(equalTo(0)));
+        assertThat(grid.getUnitsInRadius(at(900, 900), 50).isEmpty(), is(true));
+    }
+}
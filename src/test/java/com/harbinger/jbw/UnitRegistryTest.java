@@ -0,0 +1,50 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Verifies that units are correctly registered by their ID.
+ */
+public class UnitRegistryTest {
+
+    @Test
+    public void getById() {
+        final UnitRegistry registry = new UnitRegistry();
+        final Unit unit = new Unit(42, null);
+        registry.put(unit);
+
+        assertThat(registry.get(42), is(sameInstance(unit)));
+        assertThat(registry.get(41), is(nullValue()));
+        assertThat(registry.get(-1), is(nullValue()));
+        assertThat(registry.get(UnitDataBuffer.MAX_UNITS), is(nullValue()));
+    }
+
+    @Test
+    public void removeKeepsOthersIterable() {
+        final UnitRegistry registry = new UnitRegistry();
+        final Unit unit1 = new Unit(1, null);
+        final Unit unit2 = new Unit(2, null);
+        final Unit unit3 = new Unit(3, null);
+        registry.put(unit1);
+        registry.put(unit2);
+        registry.put(unit3);
+
+        assertThat(registry.remove(1), is(sameInstance(unit1)));
+        assertThat(registry.size(), is(equalTo(2)));
+        assertThat(registry.getAt(0), is(sameInstance(unit3)));
+        assertThat(registry.remove(3), is(sameInstance(unit3)));
+        assertThat(registry.get(2), is(sameInstance(unit2)));
+        assertThat(registry.getAt(0), is(sameInstance(unit2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void idOutOfRange() {
+        new UnitRegistry().put(new Unit(UnitDataBuffer.MAX_UNITS, null));
+    }
+}
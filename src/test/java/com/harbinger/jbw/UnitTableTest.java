@@ -0,0 +1,97 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import org.junit.Test;
+
+/**
+ * Verifies that units are correctly backed by the slots of a UnitTable.
+ */
+public class UnitTableTest {
+
+    private static int[] createUnitData(final int id, final int hitPoints) {
+        final int[] data = UnitFixtures.createUnitData(id, UnitType.Terran_Marine, 0, 0);
+        data[UnitFixtures.HIT_POINTS] = hitPoints;
+        return data;
+    }
+
+    @Test
+    public void fixtureMatchesLayout() {
+        UnitFixtures.initializeType(UnitType.Terran_Supply_Depot, 1, 2, 16);
+        final int[] data = UnitFixtures.createUnitData(5, UnitType.Terran_Supply_Depot, 300, 400);
+        data[UnitFixtures.PLAYER_ID] = 3;
+        data[UnitFixtures.HIT_POINTS] = 25;
+        UnitFixtures.setFlags(data, UnitFlag.mask(UnitFlag.EXISTS, UnitFlag.VISIBLE));
+        final UnitTable table = new UnitTable();
+        final Unit unit = new Unit(5, null, table);
+        unit.update(data, 0);
+
+        assertThat(table.getPlayerId(unit.getSlot()), is(equalTo(3)));
+        assertThat(unit.getType(), is(equalTo(UnitType.Terran_Supply_Depot)));
+        assertThat(table.getX(unit.getSlot()), is(equalTo(300)));
+        assertThat(table.getY(unit.getSlot()), is(equalTo(400)));
+        assertThat(unit.getHitPoints(), is(equalTo(25)));
+        assertThat(unit.getFlags(), is(equalTo(UnitFlag.mask(UnitFlag.EXISTS, UnitFlag.VISIBLE))));
+        assertThat(unit.getLeft(), is(equalTo(284)));
+        assertThat(UnitType.Terran_Supply_Depot.getRaceId(), is(equalTo(1)));
+        assertThat(UnitType.Terran_Supply_Depot.getTileWidth(), is(equalTo(2)));
+        assertThat(UnitType.Terran_Supply_Depot.getTileHeight(), is(equalTo(2)));
+    }
+
+    @Test
+    public void unitReadsFromSlot() {
+        final UnitTable table = new UnitTable(1);
+        final Unit unit1 = new Unit(1, null, table);
+        final Unit unit2 = new Unit(2, null, table);
+        unit1.update(createUnitData(1, 40), 0);
+        unit2.update(createUnitData(2, 35), 0);
+
+        assertThat(table.getSlotCount(), is(equalTo(2)));
+        assertThat(table.getUnit(unit2.getSlot()), is(sameInstance(unit2)));
+        assertThat(table.getHitPoints(unit1.getSlot()), is(equalTo(40)));
+        assertThat(unit2.getHitPoints(), is(equalTo(35)));
+    }
+
+    @Test
+    public void destroyedUnitKeepsData() {
+        final UnitTable table = new UnitTable();
+        final Unit unit = new Unit(1, null, table);
+        unit.update(createUnitData(1, 40), 0);
+        final int slot = unit.getSlot();
+
+        unit.setDestroyed();
+        final Unit replacement = new Unit(2, null, table);
+        replacement.update(createUnitData(2, 35), 0);
+
+        assertThat(replacement.getSlot(), is(equalTo(slot)));
+        assertThat(unit.getHitPoints(), is(equalTo(40)));
+        assertThat(unit.isExists(), is(false));
+    }
+
+    @Test
+    public void releasedSlotIsEmpty() {
+        final UnitTable table = new UnitTable();
+        final Unit unit = new Unit(1, null, table);
+        final int slot = unit.getSlot();
+        unit.setDestroyed();
+
+        assertThat(table.getUnit(slot), is(nullValue()));
+    }
+
+    @Test
+    public void cloneIsSnapshot() {
+        final Unit unit = new Unit(1, null, new UnitTable());
+        unit.update(createUnitData(1, 40), 0);
+        final Unit clone = unit.clone();
+        unit.update(createUnitData(1, 10), 0);
+
+        assertThat(clone.getHitPoints(), is(equalTo(40)));
+        assertThat(clone, is(equalTo(unit)));
+    }
+}
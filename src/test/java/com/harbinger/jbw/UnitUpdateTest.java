@@ -0,0 +1,182 @@
+package com.harbinger.jbw;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.harbinger.jbw.Type.UnitType;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the units and unit lists are updated from the unit data written by the bridge.
+ */
+public class UnitUpdateTest {
+
+    private Broodwar broodwar;
+    private UnitDataBuffer buffer;
+
+    @Before
+    public void setUp() {
+        broodwar = new Broodwar(new BroodwarListener.Adaptor());
+        buffer = new UnitDataBuffer(8);
+    }
+
+    private static int[] createUnitData(final int id, final int hitPoints) {
+        final int[] data = UnitFixtures.createUnitData(id, UnitType.Terran_Marine, 100, 200);
+        data[UnitFixtures.HIT_POINTS] = hitPoints;
+        return data;
+    }
+
+    private static int[] createUnitData(final int id, final int hitPoints, final int playerId) {
+        final int[] data = createUnitData(id, hitPoints);
+        data[UnitFixtures.PLAYER_ID] = playerId;
+        return data;
+    }
+
+    private static Player createPlayer(final int id) {
+        final int[] data = new int[11];
+        data[0] = id;
+        return new Player(data, 0, "Player " + id);
+    }
+
+    // Updates from the data of all accessible units, as transferred in a single array.
+    private void update(final int[]... units) {
+        final int[] unitData = new int[units.length * Unit.NUM_ATTRIBUTES];
+        for (int i = 0; i < units.length; i++) {
+            System.arraycopy(units[i], 0, unitData, i * Unit.NUM_ATTRIBUTES, Unit.NUM_ATTRIBUTES);
+        }
+        broodwar.updateUnits(IntBuffer.wrap(unitData), 0, units.length, false);
+    }
+
+    // Writes the changed units and the IDs of all accessible units, and updates from the buffer.
+    private void updateDelta(final int[] ids, final int[]... changedUnits) {
+        buffer.reset();
+        for (final int[] data : changedUnits) {
+            buffer.put(data, 0);
+        }
+        buffer.putIds(ids);
+        broodwar.updateUnits(buffer.getData(), UnitDataBuffer.HEADER_SIZE, buffer.getUnitCount(),
+                true);
+    }
+
+    @Test
+    public void deltaKeepsUnchangedUnits() {
+        updateDelta(new int[] { 1, 2, 3 }, createUnitData(1, 40), createUnitData(2, 40),
+                createUnitData(3, 40));
+        final Unit first = broodwar.getAllUnits().get(0);
+        final Unit second = broodwar.getAllUnits().get(1);
+        final Unit third = broodwar.getAllUnits().get(2);
+
+        updateDelta(new int[] { 1, 2, 3 }, createUnitData(2, 25));
+
+        assertThat(broodwar.getAllUnits(), is(equalTo(Arrays.asList(first, second, third))));
+        assertThat(broodwar.getChangedUnits(), is(equalTo(Collections.singletonList(second))));
+        assertThat(broodwar.getRemovedUnits().isEmpty(), is(true));
+        assertThat(second.getHitPoints(), is(equalTo(25)));
+        assertThat(first.getHitPoints(), is(equalTo(40)));
+        assertThat(third.getHitPoints(), is(equalTo(40)));
+    }
+
+    @Test
+    public void deltaReadsIdsAfterChangedUnits() {
+        updateDelta(new int[] { 4, 5 }, createUnitData(4, 40), createUnitData(5, 40));
+        final Unit unit = broodwar.getAllUnits().get(1);
+
+        // the unchanged unit is listed before the changed one, so the list order comes from the IDs
+        updateDelta(new int[] { 5, 4 }, createUnitData(4, 30));
+
+        assertThat(broodwar.getAllUnits().size(), is(equalTo(2)));
+        assertThat(broodwar.getAllUnits().get(0), is(sameInstance(unit)));
+        assertThat(broodwar.getAllUnits().get(1).getId(), is(equalTo(4)));
+        assertThat(broodwar.getChangedUnits().size(), is(equalTo(1)));
+        assertThat(broodwar.getChangedUnits().get(0).getId(), is(equalTo(4)));
+    }
+
+    @Test
+    public void missingUnitIsRemoved() {
+        update(createUnitData(1, 40), createUnitData(2, 35));
+        final Unit removed = broodwar.getAllUnits().get(1);
+
+        update(createUnitData(1, 30));
+
+        assertThat(broodwar.getRemovedUnits(), is(equalTo(Collections.singletonList(removed))));
+        assertThat(broodwar.getAllUnits().size(), is(equalTo(1)));
+        assertThat(removed.isExists(), is(false));
+        assertThat(removed.getId(), is(equalTo(2)));
+        assertThat(removed.getHitPoints(), is(equalTo(35)));
+        assertThat(removed.getType(), is(equalTo(UnitType.Terran_Marine)));
+
+        update(createUnitData(1, 30));
+
+        assertThat(broodwar.getRemovedUnits().isEmpty(), is(true));
+    }
+
+    @Test
+    public void missingIdIsRemovedFromDelta() {
+        updateDelta(new int[] { 1, 2 }, createUnitData(1, 40), createUnitData(2, 35));
+        final Unit removed = broodwar.getAllUnits().get(1);
+
+        updateDelta(new int[] { 1 });
+
+        assertThat(broodwar.getRemovedUnits(), is(equalTo(Collections.singletonList(removed))));
+        assertThat(removed.isExists(), is(false));
+        assertThat(removed.getHitPoints(), is(equalTo(35)));
+    }
+
+    @Test
+    public void unitsAreBucketedByPlayer() {
+        final Player first = createPlayer(0);
+        final Player second = createPlayer(1);
+        update(createUnitData(1, 40, 0), createUnitData(2, 40, 1), createUnitData(3, 40, 1),
+                createUnitData(4, 40, -1));
+        final Unit unit1 = broodwar.getAllUnits().get(0);
+        final Unit unit2 = broodwar.getAllUnits().get(1);
+        final Unit unit3 = broodwar.getAllUnits().get(2);
+
+        assertThat(broodwar.getUnits(first), is(equalTo(Collections.singletonList(unit1))));
+        assertThat(broodwar.getUnits(second), is(equalTo(Arrays.asList(unit2, unit3))));
+        assertThat(broodwar.getUnits(createPlayer(2)).isEmpty(), is(true));
+        assertThat(broodwar.getUnits(createPlayer(Broodwar.MAX_PLAYERS)).isEmpty(), is(true));
+
+        // the first unit changes owner and the third is no longer accessible
+        update(createUnitData(1, 40, 1), createUnitData(2, 40, 1));
+
+        assertThat(broodwar.getUnits(first).isEmpty(), is(true));
+        assertThat(broodwar.getUnits(second), is(equalTo(Arrays.asList(unit1, unit2))));
+    }
+
+    @Test
+    public void legacyUnitDataIsConverted() {
+        final int[] legacyData = new int[2 * Broodwar.LEGACY_UNIT_ATTRIBUTES];
+        for (int i = 0; i < (Unit.NUM_ATTRIBUTES - 2); i++) {
+            legacyData[i] = i;
+            legacyData[Broodwar.LEGACY_UNIT_ATTRIBUTES + i] = 1000 + i;
+        }
+        final int flagsIndex = Unit.NUM_ATTRIBUTES - 2;
+        legacyData[flagsIndex + UnitFlag.EXISTS.ordinal()] = 1;
+        legacyData[flagsIndex + UnitFlag.VISIBLE.ordinal()] = 1;
+        legacyData[Broodwar.LEGACY_UNIT_ATTRIBUTES + flagsIndex + UnitFlag.IDLE.ordinal()] = 1;
+
+        final int[] unitData = Broodwar.convertLegacyUnitData(legacyData);
+
+        assertThat(unitData.length, is(equalTo(2 * Unit.NUM_ATTRIBUTES)));
+        for (int i = 0; i < (Unit.NUM_ATTRIBUTES - 2); i++) {
+            assertThat(unitData[i], is(equalTo(i)));
+            assertThat(unitData[Unit.NUM_ATTRIBUTES + i], is(equalTo(1000 + i)));
+        }
+        final long firstFlags = (unitData[UnitFixtures.FLAGS_LOW] & 0xFFFFFFFFL)
+                | ((long) unitData[UnitFixtures.FLAGS_HIGH] << Integer.SIZE);
+        final long secondFlags = (unitData[Unit.NUM_ATTRIBUTES + UnitFixtures.FLAGS_LOW]
+                & 0xFFFFFFFFL)
+                | ((long) unitData[Unit.NUM_ATTRIBUTES + UnitFixtures.FLAGS_HIGH] << Integer.SIZE);
+        assertThat(firstFlags, is(equalTo(UnitFlag.mask(UnitFlag.EXISTS, UnitFlag.VISIBLE))));
+        assertThat(secondFlags, is(equalTo(UnitFlag.IDLE.getMask())));
+    }
+}